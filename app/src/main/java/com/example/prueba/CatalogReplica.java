@@ -0,0 +1,288 @@
+package com.example.prueba;
+
+import android.content.ContentValues;
+import android.content.Context;
+import android.database.Cursor;
+import android.database.sqlite.SQLiteDatabase;
+import android.database.sqlite.SQLiteOpenHelper;
+import android.database.sqlite.SQLiteStatement;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+// Copia local de la tabla peliculas de Turso (catalog_replica.db), separada de movies.db para
+// poder borrarla o reconstruirla sin tocar la watchlist. ReplicaSync la rellena (primero por
+// rowid y luego con los cambios de peliculas_changes) y CatalogRouter la consulta cuando está al
+// día. Las escrituras van solo desde el hilo de ReplicaSync; las lecturas desde cualquier hilo
+// (WAL: no esperan a que termine de aplicarse una página).
+public class CatalogReplica extends SQLiteOpenHelper {
+
+    private static final String DATABASE_NAME = "catalog_replica.db";
+    private static final int DATABASE_VERSION = 1;
+
+    private static final String TABLE_MOVIES = "peliculas";
+    private static final String TABLE_STATE = "replica_state";
+
+    // Claves de replica_state
+    private static final String STATE_BOOTSTRAP_AFTER = "bootstrap_after"; // último rowid copiado
+    private static final String STATE_COMPLETE = "complete";               // 1 cuando la copia inicial acabó
+    private static final String STATE_CHANGE_SEQ = "change_seq";           // último seq aplicado
+    private static final String STATE_SYNCED_AT = "synced_at";             // última vez que se llegó al final
+
+    // Columnas que se piden a Turso, en este orden (ReplicaSync)
+    static final String REMOTE_COLUMNS = "rowid, title, runtime, overview, overview_es, poster_path, genres";
+
+    private volatile boolean complete;
+    private volatile long bootstrapAfter;
+    private volatile long changeSeq;
+    private volatile long syncedAt;
+
+    public CatalogReplica(Context context) {
+        super(context, DATABASE_NAME, null, DATABASE_VERSION);
+    }
+
+    @Override
+    public void onConfigure(SQLiteDatabase db) {
+        db.enableWriteAheadLogging();
+    }
+
+    @Override
+    public void onCreate(SQLiteDatabase db) {
+        // title_norm lo calcula la app con TitleNormalizer al guardar (como la columna de la migración 001)
+        db.execSQL("CREATE TABLE " + TABLE_MOVIES + " (id INTEGER PRIMARY KEY, title TEXT, runtime INTEGER, "
+                + "overview TEXT, overview_es TEXT, poster_path TEXT, genres TEXT, title_norm TEXT)");
+        db.execSQL("CREATE TABLE " + TABLE_STATE + " (key TEXT PRIMARY KEY, value INTEGER)");
+    }
+
+    @Override
+    public void onUpgrade(SQLiteDatabase db, int oldVersion, int newVersion) {
+        // Es una copia: ante la duda se tira y se vuelve a descargar
+        db.execSQL("DROP TABLE IF EXISTS " + TABLE_MOVIES);
+        db.execSQL("DROP TABLE IF EXISTS " + TABLE_STATE);
+        onCreate(db);
+    }
+
+    // --- ESTADO (hilo de ReplicaSync) ---
+
+    void loadState() {
+        SQLiteDatabase db = getReadableDatabase();
+        try (Cursor cursor = db.rawQuery("SELECT key, value FROM " + TABLE_STATE, null)) {
+            while (cursor.moveToNext()) {
+                String key = cursor.getString(0);
+                long value = cursor.getLong(1);
+                if (key.equals(STATE_BOOTSTRAP_AFTER)) bootstrapAfter = value;
+                else if (key.equals(STATE_COMPLETE)) complete = value == 1;
+                else if (key.equals(STATE_CHANGE_SEQ)) changeSeq = value;
+                else if (key.equals(STATE_SYNCED_AT)) syncedAt = value;
+            }
+        }
+    }
+
+    public boolean isComplete() { return complete; }
+    public long getBootstrapAfter() { return bootstrapAfter; }
+    public long getChangeSeq() { return changeSeq; }
+    public long getSyncedAt() { return syncedAt; }
+
+    // Empieza una copia desde cero. 'changeSeq' es el último cambio que había en el servidor antes
+    // de copiar: lo que cambie mientras tanto se reaplica después y deja la copia coherente.
+    void beginBootstrap(long changeSeq) {
+        SQLiteDatabase db = getWritableDatabase();
+        db.beginTransaction();
+        try {
+            db.delete(TABLE_MOVIES, null, null);
+            putState(db, STATE_COMPLETE, 0);
+            putState(db, STATE_BOOTSTRAP_AFTER, 0);
+            putState(db, STATE_CHANGE_SEQ, changeSeq);
+            putState(db, STATE_SYNCED_AT, 0);
+            db.setTransactionSuccessful();
+        } finally {
+            db.endTransaction();
+        }
+        this.complete = false;
+        this.bootstrapAfter = 0;
+        this.changeSeq = changeSeq;
+        this.syncedAt = 0;
+    }
+
+    // Una página de la copia inicial (columnas REMOTE_COLUMNS) y hasta dónde llega, en la misma transacción
+    void applySnapshotPage(List<String> columns, List<String[]> rows, long lastRowId, boolean last) {
+        SQLiteDatabase db = getWritableDatabase();
+        db.beginTransaction();
+        try {
+            SQLiteStatement upsert = compileUpsert(db);
+            RowLayout layout = new RowLayout(columns);
+            for (String[] row : rows) bindUpsert(upsert, layout, row);
+            putState(db, STATE_BOOTSTRAP_AFTER, lastRowId);
+            if (last) putState(db, STATE_COMPLETE, 1);
+            db.setTransactionSuccessful();
+        } finally {
+            db.endTransaction();
+        }
+        bootstrapAfter = lastRowId;
+        if (last) complete = true;
+    }
+
+    // Cambios de peliculas_changes con la fila actual al lado (LEFT JOIN): si la fila ya no existe
+    // en el servidor se borra aquí también, aunque el cambio fuese un alta
+    void applyChanges(List<String> columns, List<String[]> rows) {
+        SQLiteDatabase db = getWritableDatabase();
+        RowLayout layout = new RowLayout(columns);
+        long lastSeq = changeSeq;
+        db.beginTransaction();
+        try {
+            SQLiteStatement upsert = compileUpsert(db);
+            SQLiteStatement delete = db.compileStatement("DELETE FROM " + TABLE_MOVIES + " WHERE id = ?");
+            for (String[] row : rows) {
+                boolean deleted = "1".equals(layout.get(row, "deleted")) || layout.get(row, "title") == null;
+                if (deleted) {
+                    delete.bindLong(1, Long.parseLong(layout.get(row, "rowid")));
+                    delete.executeUpdateDelete();
+                } else {
+                    bindUpsert(upsert, layout, row);
+                }
+                lastSeq = Math.max(lastSeq, Long.parseLong(layout.get(row, "seq")));
+            }
+            putState(db, STATE_CHANGE_SEQ, lastSeq);
+            db.setTransactionSuccessful();
+        } finally {
+            db.endTransaction();
+        }
+        changeSeq = lastSeq;
+    }
+
+    void markSynced(long now) {
+        putState(getWritableDatabase(), STATE_SYNCED_AT, now);
+        syncedAt = now;
+    }
+
+    private static SQLiteStatement compileUpsert(SQLiteDatabase db) {
+        return db.compileStatement("INSERT OR REPLACE INTO " + TABLE_MOVIES
+                + " (id, title, runtime, overview, overview_es, poster_path, genres, title_norm) VALUES (?, ?, ?, ?, ?, ?, ?, ?)");
+    }
+
+    private static void bindUpsert(SQLiteStatement upsert, RowLayout layout, String[] row) {
+        String title = layout.get(row, "title");
+        upsert.clearBindings();
+        upsert.bindLong(1, Long.parseLong(layout.get(row, "rowid")));
+        bindText(upsert, 2, title);
+        String runtime = layout.get(row, "runtime");
+        upsert.bindLong(3, runtime == null ? 0 : (long) Double.parseDouble(runtime));
+        bindText(upsert, 4, layout.get(row, "overview"));
+        bindText(upsert, 5, layout.get(row, "overview_es"));
+        bindText(upsert, 6, layout.get(row, "poster_path"));
+        bindText(upsert, 7, layout.get(row, "genres"));
+        bindText(upsert, 8, title == null ? null : TitleNormalizer.normalize(title));
+        upsert.executeInsert();
+    }
+
+    private static void bindText(SQLiteStatement statement, int index, String value) {
+        if (value == null) statement.bindNull(index);
+        else statement.bindString(index, value);
+    }
+
+    private static void putState(SQLiteDatabase db, String key, long value) {
+        ContentValues values = new ContentValues();
+        values.put("key", key);
+        values.put("value", value);
+        db.insertWithOnConflict(TABLE_STATE, null, values, SQLiteDatabase.CONFLICT_REPLACE);
+    }
+
+    // Posición de cada columna por nombre en las filas crudas de TursoResponseParser
+    private static class RowLayout {
+        private final List<String> columns;
+
+        RowLayout(List<String> columns) {
+            this.columns = columns;
+        }
+
+        String get(String[] row, String column) {
+            int i = columns.indexOf(column);
+            return (i >= 0 && i < row.length) ? row[i] : null;
+        }
+    }
+
+    // --- CONSULTAS (CatalogRouter, hilo de lectura) ---
+    // Mismas formas que las de TursoClient, con el rowid como clave de paginación
+
+    public Set<Movie> page(long afterRowId, int limit) {
+        return query("SELECT " + columns() + " FROM " + TABLE_MOVIES + " WHERE id > ? ORDER BY id LIMIT ?",
+                String.valueOf(afterRowId), String.valueOf(limit));
+    }
+
+    public Movie byId(long id) {
+        Set<Movie> movies = query("SELECT " + columns() + " FROM " + TABLE_MOVIES + " WHERE id = ?", String.valueOf(id));
+        return movies.isEmpty() ? null : movies.iterator().next();
+    }
+
+    // Todos los términos (normalizados como title_norm) tienen que aparecer en el título
+    public Set<Movie> search(String[] terms, long afterRowId, int limit) {
+        StringBuilder sql = new StringBuilder("SELECT " + columns() + " FROM " + TABLE_MOVIES + " WHERE id > ?");
+        List<String> args = new ArrayList<>();
+        args.add(String.valueOf(afterRowId));
+        for (String term : terms) {
+            String normalized = TitleNormalizer.normalize(term);
+            if (normalized.isEmpty()) continue;
+            sql.append(" AND title_norm LIKE ? ESCAPE '\\'");
+            args.add("%" + normalized.replace("\\", "\\\\").replace("%", "\\%").replace("_", "\\_") + "%");
+        }
+        sql.append(" ORDER BY id LIMIT ?");
+        args.add(String.valueOf(limit));
+        return query(sql.toString(), args.toArray(new String[0]));
+    }
+
+    // Como TursoClient.buildGenreCoverageSql: completa el género hasta 'target' con películas que no
+    // estén en la primera página. Aquí la tabla es local y pequeña, así que vale ORDER BY RANDOM().
+    public Set<Movie> genreCoverage(String genre, int target, int basePageSize) {
+        String pattern = "%" + genre + "%";
+        String basePage = "SELECT id, genres FROM " + TABLE_MOVIES + " ORDER BY id LIMIT " + basePageSize;
+        return query("SELECT " + columns() + " FROM " + TABLE_MOVIES + " WHERE genres LIKE ?"
+                        + " AND id NOT IN (SELECT id FROM (" + basePage + "))"
+                        + " ORDER BY RANDOM() LIMIT MAX(0, ? - (SELECT COUNT(*) FROM (" + basePage + ") WHERE genres LIKE ?))",
+                pattern, String.valueOf(target), pattern);
+    }
+
+    public int count() {
+        try (Cursor cursor = getReadableDatabase().rawQuery("SELECT COUNT(*) FROM " + TABLE_MOVIES, null)) {
+            return cursor.moveToFirst() ? cursor.getInt(0) : 0;
+        }
+    }
+
+    // Sinopsis en 'language' de esas películas (las que no estén en la copia faltan)
+    public Map<Long, String> overviews(long[] ids, String language) {
+        Map<Long, String> overviews = new HashMap<>(ids.length * 2);
+        StringBuilder idList = new StringBuilder();
+        for (long id : ids) {
+            if (idList.length() > 0) idList.append(',');
+            idList.append(id);
+        }
+        try (Cursor cursor = getReadableDatabase().rawQuery("SELECT id, " + ContentLanguage.overviewColumn(language)
+                + " FROM " + TABLE_MOVIES + " WHERE id IN (" + idList + ")", null)) {
+            while (cursor.moveToNext()) overviews.put(cursor.getLong(0), cursor.getString(1));
+        }
+        return overviews;
+    }
+
+    // Aquí están las dos sinopsis y cuestan poco: la película sale con las dos y un cambio de
+    // idioma no tiene que volver a pedirla
+    private Set<Movie> query(String sql, String... args) {
+        Set<Movie> movies = new LinkedHashSet<>();
+        try (Cursor cursor = getReadableDatabase().rawQuery(sql, args)) {
+            while (cursor.moveToNext()) {
+                String genres = cursor.getString(5);
+                Movie movie = new Movie(cursor.getLong(0), cursor.getString(1), cursor.getString(4), cursor.getString(3),
+                        TursoResponseParser.formatDuration(cursor.getInt(2)),
+                        genres == null ? new ArrayList<>() : TursoResponseParser.parseGenres(genres), ContentLanguage.EN);
+                movie.putOverview(ContentLanguage.ES, cursor.getString(6));
+                movies.add(movie);
+            }
+        }
+        return movies;
+    }
+
+    private static String columns() {
+        return "id, title, runtime, overview, poster_path, genres, overview_es";
+    }
+}
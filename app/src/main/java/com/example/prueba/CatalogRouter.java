@@ -0,0 +1,243 @@
+package com.example.prueba;
+
+import android.os.Handler;
+import android.os.Looper;
+import android.util.Log;
+import java.util.LinkedHashSet;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+// Decide a dónde va cada lectura del catálogo: a CatalogReplica si la copia está completa y se
+// sincronizó hace menos de MAX_STALENESS_MS, y si no a Turso. Si Turso falla y hay copia completa
+// se contesta con ella aunque esté vieja (sin red la app sigue funcionando). Cuando la copia está
+// vieja se pide una sincronización en segundo plano para la próxima vez.
+// Misma forma de uso que TursoClient: callbacks en el hilo principal y QueryHandle para cancelar.
+// Hasta que DataRepository.init le da la réplica todo va a Turso.
+public class CatalogRouter {
+    static final long MAX_STALENESS_MS = 15 * 60 * 1000L;
+
+    private final TursoClient remote;
+    private volatile CatalogReplica replica;
+    private ReplicaSync sync;
+    private final ExecutorService reader = Executors.newSingleThreadExecutor(r -> new Thread(r, "catalog-replica-read"));
+    private final Handler mainHandler = new Handler(Looper.getMainLooper());
+
+    CatalogRouter(TursoClient remote) {
+        this.remote = remote;
+    }
+
+    // Engancha la réplica y empieza a sincronizarla (hilo principal)
+    void attachReplica(CatalogReplica replica) {
+        this.sync = new ReplicaSync(remote, replica);
+        this.replica = replica;
+        sync.sync();
+    }
+
+    public boolean isLocalFresh() {
+        boolean fresh = isFresh();
+        if (!fresh && sync != null) sync.sync();
+        return fresh;
+    }
+
+    private boolean isFresh() {
+        return hasReplica() && System.currentTimeMillis() - replica.getSyncedAt() < MAX_STALENESS_MS;
+    }
+
+    // Copia completa, aunque sea vieja: sirve para contestar sin red
+    public boolean hasReplica() {
+        return replica != null && replica.isComplete();
+    }
+
+    // "replica: seq 5521, synced 3 min ago" para la pantalla de ajustes en debug
+    public String getReplicaStatus() {
+        if (replica == null) return "replica: not attached";
+        if (sync.isUnsupported()) return "replica: off (no peliculas_changes on the server)";
+        if (!replica.isComplete()) return "replica: copying, after rowid " + replica.getBootstrapAfter();
+        long ageMin = (System.currentTimeMillis() - replica.getSyncedAt()) / 60_000;
+        return "replica: seq " + replica.getChangeSeq() + ", synced " + ageMin + " min ago"
+                + (isFresh() ? "" : " (stale, reads go to Turso)");
+    }
+
+    public QueryHandle fetchMoviesPage(PageCursor cursor, int limit, TursoClient.PageCallback callback) {
+        long after = cursor.isFirst() ? Long.MIN_VALUE : cursor.getAfterRowId();
+        if (isLocalFresh()) return localPage(() -> replica.page(after, limit), limit, callback);
+        QueryHandle handle = new QueryHandle();
+        QueryHandle net = remote.fetchMoviesPage(cursor, limit, withLocalFallback(handle, callback,
+                () -> localPage(() -> replica.page(after, limit), limit, callback)));
+        handle.onCancel(net::cancel);
+        return handle;
+    }
+
+    public QueryHandle fetchMovieById(long id, TursoClient.MovieCallback callback) {
+        Callable<Set<Movie>> local = () -> {
+            Set<Movie> movies = new LinkedHashSet<>();
+            Movie movie = replica.byId(id);
+            if (movie != null) movies.add(movie);
+            return movies;
+        };
+        if (isLocalFresh()) return runLocal(local, callback);
+        QueryHandle handle = new QueryHandle();
+        QueryHandle net = remote.fetchMovieById(id, new TursoClient.MovieCallback() {
+            @Override
+            public void onSuccess(Set<Movie> movies) {
+                callback.onSuccess(movies);
+            }
+
+            @Override
+            public void onError(Exception e) {
+                if (!hasReplica()) {
+                    callback.onError(e);
+                    return;
+                }
+                handle.onCancel(runLocal(local, callback)::cancel);
+            }
+        });
+        handle.onCancel(net::cancel);
+        return handle;
+    }
+
+    // Las búsquedas paginadas por relevancia (cursor FTS) solo puede continuarlas Turso
+    public QueryHandle searchMovies(String query, PageCursor cursor, int limit, TursoClient.PageCallback callback) {
+        String trimmed = query.trim();
+        if (trimmed.isEmpty() || cursor.hasRank()) return remote.searchMovies(query, cursor, limit, callback);
+        String[] terms = trimmed.split("\\s+");
+        long after = cursor.isFirst() ? Long.MIN_VALUE : cursor.getAfterRowId();
+        Callable<Set<Movie>> local = () -> replica.search(terms, after, limit);
+        if (isLocalFresh()) return localPage(local, limit, callback);
+        QueryHandle handle = new QueryHandle();
+        QueryHandle net = remote.searchMovies(query, cursor, limit,
+                withLocalFallback(handle, callback, () -> localPage(local, limit, callback)));
+        handle.onCancel(net::cancel);
+        return handle;
+    }
+
+    // Sinopsis en otro idioma para películas que ya están en memoria (cambio de idioma)
+    public QueryHandle fetchOverviews(long[] ids, String language, TursoClient.OverviewsCallback callback) {
+        if (isLocalFresh()) return localOverviews(ids, language, callback);
+        QueryHandle handle = new QueryHandle();
+        QueryHandle net = remote.fetchOverviews(ids, language, new TursoClient.OverviewsCallback() {
+            @Override
+            public void onSuccess(java.util.Map<Long, String> overviews) {
+                callback.onSuccess(overviews);
+            }
+
+            @Override
+            public void onError(Exception e) {
+                if (!hasReplica()) {
+                    callback.onError(e);
+                    return;
+                }
+                handle.onCancel(localOverviews(ids, language, callback)::cancel);
+            }
+        });
+        handle.onCancel(net::cancel);
+        return handle;
+    }
+
+    private QueryHandle localOverviews(long[] ids, String language, TursoClient.OverviewsCallback callback) {
+        QueryHandle handle = new QueryHandle();
+        reader.execute(() -> {
+            if (handle.isCancelled()) return;
+            java.util.Map<Long, String> overviews;
+            try {
+                overviews = replica.overviews(ids, language);
+            } catch (Exception e) {
+                Log.e("CatalogRouter", "Local overviews failed", e);
+                mainHandler.post(() -> {
+                    if (!handle.isCancelled()) callback.onError(e);
+                });
+                return;
+            }
+            mainHandler.post(() -> {
+                if (!handle.isCancelled()) callback.onSuccess(overviews);
+            });
+        });
+        return handle;
+    }
+
+    // Portada sin red: primera página más la cobertura de cada género, como el lote de DataRepository
+    public QueryHandle loadHomeFeedLocally(int pageSize, String[] genres, int genreTarget, TursoClient.PageCallback callback) {
+        PageCursor[] next = {null};
+        return runLocal(() -> {
+            Set<Movie> movies = replica.page(Long.MIN_VALUE, pageSize);
+            next[0] = nextCursor(movies, pageSize);
+            for (String genre : genres) movies.addAll(replica.genreCoverage(genre, genreTarget, pageSize));
+            return movies;
+        }, new TursoClient.MovieCallback() {
+            @Override
+            public void onSuccess(Set<Movie> movies) {
+                callback.onSuccess(movies, next[0]);
+            }
+
+            @Override
+            public void onError(Exception e) {
+                callback.onError(e);
+            }
+        });
+    }
+
+    private TursoClient.PageCallback withLocalFallback(QueryHandle handle, TursoClient.PageCallback callback,
+                                                       java.util.function.Supplier<QueryHandle> local) {
+        return new TursoClient.PageCallback() {
+            @Override
+            public void onSuccess(Set<Movie> movies, PageCursor next) {
+                callback.onSuccess(movies, next);
+            }
+
+            @Override
+            public void onError(Exception e) {
+                if (!hasReplica()) {
+                    callback.onError(e);
+                    return;
+                }
+                Log.w("CatalogRouter", "Turso unavailable, answering from the local replica: " + e.getMessage());
+                handle.onCancel(local.get()::cancel);
+            }
+        };
+    }
+
+    // El cursor de las páginas locales es siempre el rowid de la última fila
+    private QueryHandle localPage(Callable<Set<Movie>> query, int limit, TursoClient.PageCallback callback) {
+        return runLocal(query, new TursoClient.MovieCallback() {
+            @Override
+            public void onSuccess(Set<Movie> movies) {
+                callback.onSuccess(movies, nextCursor(movies, limit));
+            }
+
+            @Override
+            public void onError(Exception e) {
+                callback.onError(e);
+            }
+        });
+    }
+
+    private static PageCursor nextCursor(Set<Movie> page, int limit) {
+        if (page.size() < limit) return null;
+        long lastId = 0;
+        for (Movie m : page) lastId = m.getId();
+        return PageCursor.afterRow(lastId);
+    }
+
+    private QueryHandle runLocal(Callable<Set<Movie>> query, TursoClient.MovieCallback callback) {
+        QueryHandle handle = new QueryHandle();
+        reader.execute(() -> {
+            if (handle.isCancelled()) return;
+            Set<Movie> movies;
+            try {
+                movies = query.call();
+            } catch (Exception e) {
+                Log.e("CatalogRouter", "Local query failed", e);
+                mainHandler.post(() -> {
+                    if (!handle.isCancelled()) callback.onError(e);
+                });
+                return;
+            }
+            mainHandler.post(() -> {
+                if (!handle.isCancelled()) callback.onSuccess(movies);
+            });
+        });
+        return handle;
+    }
+}
@@ -1,5 +1,7 @@
 package com.example.prueba;
 
+import java.util.Iterator;
+import java.util.Locale;
 import java.util.Set;
 
 public class Category {
@@ -7,6 +9,7 @@ public class Category {
     private Set<Movie> movies;
 
     private Runnable onRefresh;
+    private final long id;
 
     public Category(String title, Set<Movie> movies) {
         this(title, movies, null);
@@ -16,9 +19,40 @@ public class Category {
         this.title = title;
         this.movies = movies;
         this.onRefresh = onRefresh;
+        this.id = idFor(getKey());
     }
 
     public String getTitle() { return title; }
     public Set<Movie> getMovies() { return movies; }
     public Runnable getOnRefresh() { return onRefresh; }
+
+    // Identifica la fila entre actualizaciones ("Action" cargando y "Action" ya con datos son la misma)
+    public String getKey() { return title.toLowerCase(Locale.ROOT); }
+
+    // Id estable del adaptador: igual para la misma clave en cada reconstrucción de la fila
+    public long getId() { return id; }
+
+    // FNV-1a de 64 bits con los bits mezclados (finalizador de MurmurHash3): con las pocas filas
+    // que hay, no chocan como pasaba con los 32 bits de String.hashCode()
+    private static long idFor(String key) {
+        long hash = 0xcbf29ce484222325L;
+        for (int i = 0; i < key.length(); i++) hash = (hash ^ key.charAt(i)) * 0x100000001b3L;
+        hash ^= hash >>> 33;
+        hash *= 0xff51afd7ed558ccdL;
+        hash ^= hash >>> 33;
+        hash *= 0xc4ceb9fe1a85ec53L;
+        hash ^= hash >>> 33;
+        return hash;
+    }
+
+    // Mismas películas en el mismo orden y pintadas igual
+    public boolean hasSameContent(Category other) {
+        if (!title.equals(other.title) || (onRefresh == null) != (other.onRefresh == null)) return false;
+        if (movies.size() != other.movies.size()) return false;
+        Iterator<Movie> theirs = other.movies.iterator();
+        for (Movie mine : movies) {
+            if (!mine.hasSameContent(theirs.next())) return false;
+        }
+        return true;
+    }
 }
@@ -1,55 +1,145 @@
 package com.example.prueba;
 
 import android.content.Context;
+import android.os.Parcelable;
 import android.view.LayoutInflater;
 import android.view.View;
 import android.view.ViewGroup;
 import android.widget.TextView;
 import androidx.annotation.NonNull;
+import androidx.recyclerview.widget.DiffUtil;
 import androidx.recyclerview.widget.LinearLayoutManager;
+import androidx.recyclerview.widget.ListAdapter;
 import androidx.recyclerview.widget.RecyclerView;
-import java.util.List;
+import java.util.Map;
 
-public class CategoryAdapter extends RecyclerView.Adapter<CategoryAdapter.CategoryViewHolder> {
+// Filas de la portada. El diff (en segundo plano) identifica cada fila por su clave; si una fila
+// cambia se reutiliza su ViewHolder y su adaptador horizontal, que a su vez solo anima los
+// pósters que han cambiado.
+public class CategoryAdapter extends ListAdapter<Category, CategoryAdapter.CategoryViewHolder> {
+
+    // Pósters que caben en pantalla en una fila (120dp + márgenes en un móvil normal), para el prefetch
+    private static final int POSTERS_PREFETCH = 4;
+    // Lo que sueltan 4-5 filas al salir de pantalla; con el tamaño por defecto (5) se volvían a inflar
+    private static final int POSTER_POOL_SIZE = 24;
+
+    // Con un payload el ItemAnimator actualiza la fila en su sitio en vez de hacer un fundido entero
+    private static final Object PAYLOAD_MOVIES = new Object();
+
+    private static final DiffUtil.ItemCallback<Category> DIFF = new DiffUtil.ItemCallback<Category>() {
+        @Override
+        public boolean areItemsTheSame(Category oldItem, Category newItem) {
+            return oldItem.getKey().equals(newItem.getKey());
+        }
+
+        @Override
+        public boolean areContentsTheSame(Category oldItem, Category newItem) {
+            return oldItem.hasSameContent(newItem);
+        }
+
+        @Override
+        public Object getChangePayload(Category oldItem, Category newItem) {
+            return PAYLOAD_MOVIES;
+        }
+    };
 
     private Context context;
-    private List<Category> categoryList;
+    // Todas las filas comparten los pósters reciclados: al bajar por la portada, la fila que entra
+    // reutiliza las vistas que suelta la que sale en vez de inflar otras nuevas
+    private final RecyclerView.RecycledViewPool posterPool = new RecyclerView.RecycledViewPool();
+    // Scroll horizontal de cada fila por clave, para dejarla donde estaba al volver a verla. Vive en
+    // HomeFragment.RowScroll y dura más que el adaptador: al volver a la pestaña se crea otro
+    private final Map<String, Parcelable> scrollStates;
 
-    public CategoryAdapter(Context context, List<Category> categoryList) {
+    public CategoryAdapter(Context context, Map<String, Parcelable> scrollStates) {
+        super(DIFF);
         this.context = context;
-        this.categoryList = categoryList;
+        this.scrollStates = scrollStates;
+        setHasStableIds(true);
+        posterPool.setMaxRecycledViews(HorizontalMovieAdapter.TYPE_MOVIE, POSTER_POOL_SIZE);
     }
 
     @NonNull
     @Override
     public CategoryViewHolder onCreateViewHolder(@NonNull ViewGroup parent, int viewType) {
         View view = LayoutInflater.from(context).inflate(R.layout.item_category, parent, false);
-        return new CategoryViewHolder(view);
+        CategoryViewHolder holder = new CategoryViewHolder(view);
+        holder.recyclerView.setRecycledViewPool(posterPool);
+        return holder;
     }
 
     public static class CategoryViewHolder extends RecyclerView.ViewHolder {
         TextView title;
         RecyclerView recyclerView;
+        LinearLayoutManager layoutManager;
+        HorizontalMovieAdapter movieAdapter;
+        String boundKey;
 
         public CategoryViewHolder(@NonNull View itemView) {
             super(itemView);
             title = itemView.findViewById(R.id.category_title);
             recyclerView = itemView.findViewById(R.id.category_recycler_view);
+            layoutManager = new LinearLayoutManager(itemView.getContext(), LinearLayoutManager.HORIZONTAL, false);
+            layoutManager.setInitialPrefetchItemCount(POSTERS_PREFETCH);
+            // Al soltar la fila sus pósters vuelven al pool compartido
+            layoutManager.setRecycleChildrenOnDetach(true);
+            recyclerView.setLayoutManager(layoutManager);
         }
     }
 
     @Override
-    public int getItemCount() {
-        return categoryList.size();
+    public long getItemId(int position) {
+        return getItem(position).getId();
     }
 
     @Override
     public void onBindViewHolder(@NonNull CategoryViewHolder holder, int position) {
-        Category category = categoryList.get(position);
+        Category category = getItem(position);
         holder.title.setText(category.getTitle());
 
-        HorizontalMovieAdapter movieAdapter = new HorizontalMovieAdapter(context, category.getMovies(), category.getOnRefresh());
-        holder.recyclerView.setLayoutManager(new LinearLayoutManager(context, LinearLayoutManager.HORIZONTAL, false));
-        holder.recyclerView.setAdapter(movieAdapter);
+        if (holder.movieAdapter == null) {
+            holder.movieAdapter = new HorizontalMovieAdapter(context, category.getMovies(), category.getOnRefresh());
+            holder.recyclerView.setAdapter(holder.movieAdapter);
+            holder.recyclerView.addOnScrollListener(holder.movieAdapter.createPreloader(POSTERS_PREFETCH));
+            restoreScroll(holder, category.getKey());
+        } else if (category.getKey().equals(holder.boundKey)) {
+            holder.movieAdapter.submitMovies(category.getMovies());
+            holder.movieAdapter.setOnRefresh(category.getOnRefresh());
+        } else {
+            holder.movieAdapter.replaceMovies(category.getMovies());
+            holder.movieAdapter.setOnRefresh(category.getOnRefresh());
+            restoreScroll(holder, category.getKey());
+        }
+        holder.boundKey = category.getKey();
+    }
+
+    @Override
+    public void onViewRecycled(@NonNull CategoryViewHolder holder) {
+        super.onViewRecycled(holder);
+        saveScroll(holder);
+    }
+
+    // Al salir de pantalla la fila puede quedarse en la caché del RecyclerView sin reciclarse
+    @Override
+    public void onViewDetachedFromWindow(@NonNull CategoryViewHolder holder) {
+        super.onViewDetachedFromWindow(holder);
+        saveScroll(holder);
+    }
+
+    // Las filas que siguen en pantalla cuando se destruye la vista no pasan por ninguno de los dos
+    public void saveScrollStates(RecyclerView rows) {
+        for (int i = 0; i < rows.getChildCount(); i++) {
+            saveScroll((CategoryViewHolder) rows.getChildViewHolder(rows.getChildAt(i)));
+        }
+    }
+
+    private void saveScroll(CategoryViewHolder holder) {
+        if (holder.boundKey != null) scrollStates.put(holder.boundKey, holder.layoutManager.onSaveInstanceState());
+    }
+
+    private void restoreScroll(CategoryViewHolder holder, String key) {
+        Parcelable state = scrollStates.get(key);
+        if (state != null) holder.layoutManager.onRestoreInstanceState(state);
+        else holder.layoutManager.scrollToPosition(0);
     }
 }
@@ -1,36 +1,73 @@
 package com.example.prueba;
 
 import android.content.Context;
+import android.os.Handler;
+import android.os.Looper;
+import android.util.Log;
 import java.util.ArrayList;
 import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Set;
 import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 
 public class DataRepository {
     private static DataRepository instance;
     private User currentUser;
-    private Set<Movie> cachedMovies;
+    // Catálogo en memoria: versión inmutable que se sustituye entera en cada cambio (updateCatalog)
+    private volatile CatalogSnapshot catalog = CatalogSnapshot.EMPTY;
     private TursoClient tursoClient;
+    // Lecturas del catálogo: réplica local si está al día, Turso si no
+    private CatalogRouter catalogRouter;
 
     // Referencia a la Base de Datos Local
     private MovieDatabaseHelper dbHelper;
-
-    // Caché en memoria de los IDs guardados (para acceso rápido)
-    private Set<Long> localWatchlistIds;
-    private Set<Long> localSeenIds;
-    private Map<Long, Integer> localResumeMap;
+    // Cola de escritura diferida para watchlist, vistas y progreso
+    private UserDataWriter userWriter;
+
+    // Caché en memoria de los IDs guardados (para acceso rápido). Empiezan vacíos y se completan
+    // cuando termina la lectura de la BD en segundo plano (init)
+    private final LongHashSet localWatchlistIds = new LongHashSet();
+    private final LongHashSet localSeenIds = new LongHashSet();
+    private final LongIntHashMap localResumeMap = new LongIntHashMap();
+    private final LocalLibrary localLibrary = new LocalLibrary(localWatchlistIds, localSeenIds, localResumeMap);
+
+    // Un único hilo para movies.db: estado local primero y después las lecturas de QueryCache, en orden
+    private final ExecutorService dbExecutor = Executors.newSingleThreadExecutor(r -> new Thread(r, "movies-db"));
+    // Puntuar el catálogo entero no debe tocar ni el hilo principal ni el de BD
+    private final ExecutorService recommendExecutor = Executors.newSingleThreadExecutor(r -> new Thread(r, "recommender"));
+    private final Handler mainHandler = new Handler(Looper.getMainLooper());
+
+    // Caché persistente de consultas (movies.db) y última portada publicada
+    private QueryCache queryCache;
+    private List<Movie> homeFeed = new ArrayList<>();
+    // Índice de películas parecidas sobre lo guardado en movies.db (detalle)
+    private SimilarTitles similarTitles;
+
+    // Películas abiertas en el detalle que no son del catálogo en memoria (resultados de búsqueda,
+    // recomendaciones...), las últimas MAX_OPENED_MOVIES por orden de uso
+    private static final int MAX_OPENED_MOVIES = 64;
+    private final Map<Long, Movie> openedMovies = new java.util.LinkedHashMap<Long, Movie>(16, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<Long, Movie> eldest) {
+            return size() > MAX_OPENED_MOVIES;
+        }
+    };
 
     public void cacheMovie(Movie movie) {
-        if (!cachedMovies.contains(movie)) {
-            cachedMovies.add(movie);
-        }
+        updateCatalog(current -> current.withAdded(java.util.Collections.singletonList(movie)));
+    }
+
+    // Los escritores se turnan aquí; los lectores solo leen 'catalog' y nunca esperan
+    private synchronized void updateCatalog(java.util.function.UnaryOperator<CatalogSnapshot> change) {
+        catalog = change.apply(catalog);
     }
 
     private DataRepository() {
         currentUser = new User();
-        cachedMovies = new LinkedHashSet<>();
         tursoClient = new TursoClient();
+        catalogRouter = new CatalogRouter(tursoClient);
     }
 
     public static synchronized DataRepository getInstance() {
@@ -40,29 +77,163 @@ public class DataRepository {
         return instance;
     }
 
-    // --- NUEVO: Inicialización de BD ---
+    // --- Inicialización de BD ---
+    // No bloquea: lo guardado en el móvil se lee en el hilo de BD y se publica en el principal.
+    // Como la caché de consultas usa el mismo hilo, la portada guardada llega siempre después.
     public void init(Context context) {
-        dbHelper = new MovieDatabaseHelper(context);
-        // Cargamos lo que hay guardado en el móvil
-        localWatchlistIds = dbHelper.getWatchlistIds();
-        localSeenIds = dbHelper.getSeenIds();
-        localResumeMap = dbHelper.getResumePositions();
+        if (dbHelper != null) return;
+        dbHelper = new MovieDatabaseHelper(context.getApplicationContext());
+        queryCache = new QueryCache(dbHelper, dbExecutor);
+        similarTitles = new SimilarTitles(dbHelper, dbExecutor);
+        userWriter = new UserDataWriter(dbHelper, dbExecutor);
+        catalogRouter.attachReplica(new CatalogReplica(context.getApplicationContext()));
+        dbExecutor.execute(() -> {
+            LongHashSet watchlist = new LongHashSet();
+            LongHashSet seen = new LongHashSet();
+            LongIntHashMap resume = new LongIntHashMap();
+            try {
+                watchlist = dbHelper.getWatchlistIds();
+                seen = dbHelper.getSeenIds();
+                resume = dbHelper.getResumePositions();
+            } catch (Exception e) {
+                Log.e("DataRepository", "Local state read failed", e);
+            }
+            LongHashSet loadedWatchlist = watchlist;
+            LongHashSet loadedSeen = seen;
+            LongIntHashMap loadedResume = resume;
+            mainHandler.post(() -> publishLocalState(loadedWatchlist, loadedSeen, loadedResume));
+        });
+    }
+
+    private void publishLocalState(LongHashSet watchlist, LongHashSet seen, LongIntHashMap resume) {
+        // Lo que se haya tocado mientras se leía aún está en la cola de escritura y manda sobre la BD
+        userWriter.overlayAndStart(watchlist, seen, resume);
+        localWatchlistIds.clear();
+        localWatchlistIds.addAll(watchlist);
+        localSeenIds.clear();
+        localSeenIds.addAll(seen);
+        localResumeMap.clear();
+        localResumeMap.putAll(resume);
+        // Por si algo del catálogo llegó antes que la base local
+        syncWithLocalData(catalog.getMovies());
+        mergeUserData();
+        StartupTrace.mark("local_state");
+    }
+
+    // Abre la conexión con Turso mientras se infla la interfaz
+    public void prewarmConnection() {
+        tursoClient.prewarm();
+    }
+
+    // Métricas de red de las consultas a Turso (pantalla de ajustes en debug)
+    public QueryTelemetry getQueryTelemetry() {
+        return tursoClient.getTelemetry();
+    }
+
+    public String getReplicaStatus() {
+        return catalogRouter.getReplicaStatus();
     }
 
     public void clearCache() {
-        if (cachedMovies != null) {
-            cachedMovies.clear();
+        updateCatalog(CatalogSnapshot::emptied);
+        openedMovies.clear();
+        homeFeed = new ArrayList<>();
+    }
+
+    // --- IDIOMA ---
+    // Películas cuya sinopsis en el idioma actual ya se pidió. No se repite aunque falle: sin red se
+    // ve la que haya (Movie.getDescription) hasta el próximo cambio de idioma.
+    private final LongHashSet overviewsRequested = new LongHashSet();
+
+    // Cambio de idioma (SettingsActivity, después de Locale.setDefault). Título, póster, géneros y
+    // duración son iguales en todos los idiomas, así que el catálogo en memoria y la caché siguen
+    // valiendo: solo faltan las sinopsis que nunca se vieron en el nuevo.
+    public void switchLanguage() {
+        overviewsRequested.clear();
+        List<Movie> inMemory = new ArrayList<>(catalog.getMovies());
+        inMemory.addAll(userMovies());
+        inMemory.addAll(openedMovies.values());
+        fillOverviews(inMemory);
+    }
+
+    // Primero lo guardado en movies.db y lo que falte, en una sola consulta por rowid
+    private void fillOverviews(java.util.Collection<Movie> movies) {
+        String language = ContentLanguage.current();
+        List<Movie> missing = new ArrayList<>();
+        for (Movie m : movies) {
+            if (m.isLoading() || m.hasOverview(language) || !overviewsRequested.add(m.getId())) continue;
+            missing.add(m);
+        }
+        if (missing.isEmpty()) return;
+        long[] ids = new long[missing.size()];
+        for (int i = 0; i < ids.length; i++) ids[i] = missing.get(i).getId();
+        if (dbHelper == null) {
+            fetchOverviews(missing, ids, language);
+            return;
+        }
+        dbExecutor.execute(() -> {
+            Map<Long, String> stored = new java.util.HashMap<>();
+            try {
+                stored = dbHelper.getOverviews(ids, language);
+            } catch (Exception e) {
+                Log.e("DataRepository", "Overview read failed", e);
+            }
+            Map<Long, String> found = stored;
+            mainHandler.post(() -> {
+                applyOverviews(missing, found, language);
+                List<Movie> remaining = new ArrayList<>();
+                for (Movie m : missing) if (!found.containsKey(m.getId())) remaining.add(m);
+                if (remaining.isEmpty()) return;
+                long[] remainingIds = new long[remaining.size()];
+                for (int i = 0; i < remainingIds.length; i++) remainingIds[i] = remaining.get(i).getId();
+                fetchOverviews(remaining, remainingIds, language);
+            });
+        });
+    }
+
+    private void fetchOverviews(List<Movie> movies, long[] ids, String language) {
+        catalogRouter.fetchOverviews(ids, language, new TursoClient.OverviewsCallback() {
+            @Override
+            public void onSuccess(Map<Long, String> overviews) {
+                applyOverviews(movies, overviews, language);
+                if (dbHelper == null) return;
+                dbExecutor.execute(() -> {
+                    try {
+                        dbHelper.saveOverviews(overviews, language);
+                    } catch (Exception e) {
+                        Log.e("DataRepository", "Overview write failed", e);
+                    }
+                });
+            }
+
+            @Override
+            public void onError(Exception e) {
+                Log.w("DataRepository", "Overviews in " + language + " not loaded: " + e.getMessage());
+            }
+        });
+    }
+
+    // A las instancias pedidas y a la que haya ahora en memoria, por si se sustituyó entretanto
+    private void applyOverviews(List<Movie> requested, Map<Long, String> overviews, String language) {
+        for (Movie m : requested) {
+            if (!overviews.containsKey(m.getId())) continue;
+            String overview = overviews.get(m.getId());
+            m.putOverview(language, overview);
+            Movie current = findMovie(m.getId());
+            if (current != null && current != m) current.putOverview(language, overview);
         }
     }
 
     // --- MÉTODOS DE PERSISTENCIA ---
+    // La memoria cambia ya; la BD la pone al día UserDataWriter en su siguiente volcado
     public void addToWatchlist(Movie movie) {
         if (!currentUser.isInWatchlist(movie)) {
             currentUser.addToWatchlist(movie);
             if (dbHelper != null) {
-                dbHelper.addToWatchlist(movie.getId()); // Guardar en BD
+                userWriter.setInWatchlist(movie.getId(), true); // Guardar en BD
                 localWatchlistIds.add(movie.getId());
             }
+            updateProfile(movie);
         }
     }
 
@@ -70,9 +241,10 @@ public class DataRepository {
         if (currentUser.isInWatchlist(movie)) {
             currentUser.removeFromWatchlist(movie);
             if (dbHelper != null) {
-                dbHelper.removeFromWatchlist(movie.getId()); // Borrar de BD
+                userWriter.setInWatchlist(movie.getId(), false); // Borrar de BD
                 localWatchlistIds.remove(movie.getId());
             }
+            updateProfile(movie);
         }
     }
 
@@ -80,9 +252,10 @@ public class DataRepository {
         if (!currentUser.isSeen(movie)) {
             currentUser.addToSeen(movie);
             if (dbHelper != null) {
-                dbHelper.addToSeen(movie.getId()); // Guardar en BD
+                userWriter.setSeen(movie.getId(), true); // Guardar en BD
                 localSeenIds.add(movie.getId());
             }
+            updateProfile(movie);
         }
     }
 
@@ -90,38 +263,43 @@ public class DataRepository {
         if (currentUser.isSeen(movie)) {
             currentUser.removeFromSeen(movie);
             if (dbHelper != null) {
-                dbHelper.removeFromSeen(movie.getId()); // Borrar de BD
+                userWriter.setSeen(movie.getId(), false); // Borrar de BD
                 localSeenIds.remove(movie.getId());
             }
+            updateProfile(movie);
         }
     }
 
     public void saveProgress(Movie movie, int minutes) {
         currentUser.setResumePosition(movie, minutes);
         if (dbHelper != null) {
-            dbHelper.saveProgress(movie.getId(), minutes); // Guardar en BD
+            userWriter.saveProgress(movie.getId(), minutes); // Guardar en BD
             localResumeMap.put(movie.getId(), minutes);
         }
+        updateProfile(movie);
+    }
+
+    // Vuelca ya lo pendiente (la app pasa a segundo plano y el sistema puede matar el proceso)
+    public void flushPendingWrites() {
+        if (userWriter != null) userWriter.flushNow();
     }
 
     // Sincroniza las películas que llegan de Internet con lo que tenemos guardado
-    private void syncWithLocalData(Set<Movie> movies) {
-        if (localWatchlistIds == null) return;
+    private void syncWithLocalData(java.util.Collection<Movie> movies) {
+        localLibrary.sync(currentUser, movies);
+        for (Movie m : movies) updateProfile(m);
+        // Lo que venga de la caché en otro idioma (lo de Turso ya llega en el actual)
+        fillOverviews(movies);
+    }
 
-        for (Movie m : movies) {
-            if (localWatchlistIds.contains(m.getId())) {
-                m.setInWatchlist(true);
-                currentUser.addToWatchlist(m);
-            }
-            if (localSeenIds.contains(m.getId())) {
-                m.setWatched(true);
-                currentUser.addToSeen(m);
-            }
-            if (localResumeMap.containsKey(m.getId())) {
-                int min = localResumeMap.get(m.getId());
-                currentUser.setResumePosition(m, min);
-            }
-        }
+    // El perfil de recomendaciones solo suma o resta lo de esta película
+    private void updateProfile(Movie movie) {
+        long id = movie.getId();
+        int signals = 0;
+        if (currentUser.isInWatchlist(movie) || localWatchlistIds.contains(id)) signals |= Recommender.WATCHLIST;
+        if (currentUser.isSeen(movie) || localSeenIds.contains(id)) signals |= Recommender.SEEN;
+        if (currentUser.getResumePosition(movie) > 0 || localResumeMap.get(id, 0) > 0) signals |= Recommender.IN_PROGRESS;
+        recommender.update(movie, signals);
     }
 
     public interface DataCallback {
@@ -129,156 +307,454 @@ public class DataRepository {
         void onError(String error);
     }
 
-    private int currentOffset = 0;
+    // Dónde sigue el catálogo después de lo ya cargado (null si no hay más)
+    private PageCursor catalogCursor = PageCursor.FIRST;
     private static final int PAGE_SIZE = 10;
-    private boolean isLoading = false;
+    private boolean isLoadingMore = false;
+
+    // Refresco de portada en curso (null si no hay ninguno): quien llama mientras tanto se apunta
+    // aquí y recibe los mismos avisos, en vez de perderse. Solo se toca desde el hilo principal.
+    private List<DataCallback> refreshWaiters;
+    // El refresco en curso ya pintó la portada guardada: quien se apunte ahora la tiene disponible
+    private boolean refreshPublished;
+    // loadRecommendations que llegaron sin catálogo mientras se refrescaba
+    private List<DataCallback> recommendationWaiters = new ArrayList<>();
+
+    private static final String[] COVERAGE_GENRES = {"Action", "Drama", "Comedy", "Romance", "Documentary", "Adventure"};
+    private static final int HOME_PAGE_SIZE = 50;
+    private static final int GENRE_TARGET = 10;
+
+    // Cancelar el handle solo quita este callback: el refresco sigue para los demás y su
+    // resultado se guarda igualmente
+    public QueryHandle refreshMovies(DataCallback callback) {
+        QueryHandle handle = new QueryHandle();
+        if (callback != null) handle.onCancel(() -> {
+            if (refreshWaiters != null) refreshWaiters.remove(callback);
+        });
+        if (refreshWaiters != null) {
+            if (callback != null) {
+                refreshWaiters.add(callback);
+                if (refreshPublished) callback.onDataLoaded();
+            }
+            return handle;
+        }
+        refreshWaiters = new ArrayList<>();
+        refreshPublished = false;
+        if (callback != null) refreshWaiters.add(callback);
+
+        if (queryCache == null) {
+            fetchHomeFeed(false);
+            return handle;
+        }
+        // Stale-while-revalidate: lo guardado en movies.db se pinta ya y la red solo confirma o corrige
+        queryCache.get(QueryCache.KEY_HOME, cached -> {
+            boolean hasCached = cached != null && !cached.movies.isEmpty();
+            if (hasCached) {
+                publishHomeFeed(cached.movies);
+                StartupTrace.mark("home_cached");
+                catalogCursor = PageCursor.fromToken(cached.nextCursor);
+                notifyRefreshWaiters(null);
+                refreshPublished = true;
+                if (cached.isFresh(QueryCache.HOME_TTL_MS)) {
+                    finishRefresh();
+                    return;
+                }
+            }
+            fetchHomeFeed(hasCached);
+        });
+        return handle;
+    }
 
-    public void refreshMovies(DataCallback callback) {
-        if (isLoading) return;
-        isLoading = true;
-        currentOffset = 0;
-        cachedMovies.clear();
+    // Avisa a todos los que esperan el refresco en curso (error == null si ha ido bien)
+    private void notifyRefreshWaiters(String error) {
+        if (refreshWaiters == null) return;
+        for (DataCallback waiter : new ArrayList<>(refreshWaiters)) {
+            if (error == null) waiter.onDataLoaded();
+            else waiter.onError(error);
+        }
+    }
 
-        // Reiniciamos usuario en memoria para reconstruirlo desde BD + Internet
-        currentUser = new User();
+    private void finishRefresh() {
+        refreshWaiters = null;
+        if (recommendationWaiters.isEmpty()) return;
+        List<DataCallback> waiting = recommendationWaiters;
+        recommendationWaiters = new ArrayList<>();
+        for (DataCallback waiter : waiting) loadRecommendations(waiter);
+    }
 
-        tursoClient.fetchMovies(50, 0, new TursoClient.MovieCallback() {
+    private void fetchHomeFeed(boolean showingCached) {
+        if (catalogRouter.isLocalFresh()) {
+            loadHomeFeedLocally(showingCached, null);
+            return;
+        }
+        fetchHomeFeedRemote(showingCached);
+    }
+
+    // networkError != null: Turso no contestó y la réplica (aunque vieja) es lo único que hay
+    private void loadHomeFeedLocally(boolean showingCached, String networkError) {
+        catalogRouter.loadHomeFeedLocally(HOME_PAGE_SIZE, COVERAGE_GENRES, GENRE_TARGET, new TursoClient.PageCallback() {
             @Override
-            public void onSuccess(Set<Movie> movies) {
-                // Aquí cruzamos los datos nuevos con la BD local
-                syncWithLocalData(movies);
+            public void onSuccess(Set<Movie> movies, PageCursor next) {
+                onHomeFeedLoaded(movies, next, showingCached, "home_replica");
+            }
 
-                synchronized (cachedMovies) {
-                    cachedMovies.addAll(movies);
+            @Override
+            public void onError(Exception e) {
+                if (networkError == null) {
+                    fetchHomeFeedRemote(showingCached);
+                    return;
                 }
-                mergeUserData();
-                if (callback != null) callback.onDataLoaded();
-                ensureGenreCoverage(callback);
+                if (!showingCached) notifyRefreshWaiters(networkError);
+                finishRefresh();
+            }
+        });
+    }
+
+    private void fetchHomeFeedRemote(boolean showingCached) {
+        // Primera página + cobertura de géneros en una sola petición al pipeline
+        final String[] error = {null};
+        final PageCursor[] next = {null};
+        Set<Movie> fetched = new LinkedHashSet<>();
+        TursoClient.Batch batch = tursoClient.newBatch();
+        batch.fetchMoviesPage(PageCursor.FIRST, HOME_PAGE_SIZE, new TursoClient.PageCallback() {
+            @Override
+            public void onSuccess(Set<Movie> movies, PageCursor nextPage) {
+                fetched.addAll(movies);
+                next[0] = nextPage;
             }
 
             @Override
             public void onError(Exception e) {
-                isLoading = false;
-                if (callback != null) callback.onError(e.getMessage());
+                error[0] = e.getMessage();
             }
         });
+        for (String genre : COVERAGE_GENRES) {
+            batch.fetchGenreCoverage(genre, GENRE_TARGET, HOME_PAGE_SIZE, new TursoClient.MovieCallback() {
+                @Override
+                public void onSuccess(Set<Movie> movies) {
+                    fetched.addAll(movies);
+                }
+                @Override
+                public void onError(Exception e) {}
+            });
+        }
+        batch.onComplete(() -> {
+            if (error[0] != null) {
+                if (catalogRouter.hasReplica()) {
+                    loadHomeFeedLocally(showingCached, error[0]);
+                    return;
+                }
+                // Si ya se ve lo guardado, un fallo de red no deja la pantalla vacía
+                if (!showingCached) notifyRefreshWaiters(error[0]);
+                finishRefresh();
+                return;
+            }
+            onHomeFeedLoaded(fetched, next[0], showingCached, "home_network");
+        }).execute();
+    }
+
+    private void onHomeFeedLoaded(Set<Movie> fetched, PageCursor next, boolean showingCached, String trace) {
+        catalogCursor = next;
+        if (queryCache != null) {
+            queryCache.put(QueryCache.KEY_HOME, fetched, next);
+            similarTitles.add(fetched);
+        }
+        boolean changed = publishHomeFeed(fetched);
+        StartupTrace.mark(trace);
+        if (changed || !showingCached) notifyRefreshWaiters(null);
+        finishRefresh();
     }
 
-    private void ensureGenreCoverage(DataCallback callback) {
-        String[] targetGenres = {"Action", "Drama", "Comedy", "Romance", "Documentary", "Adventure"};
-        final java.util.concurrent.atomic.AtomicInteger pendingRequests = new java.util.concurrent.atomic.AtomicInteger(0);
+    // Sustituye el catálogo en memoria reutilizando las instancias que no han cambiado.
+    // Devuelve false si lo recibido es idéntico a lo que ya se estaba mostrando.
+    private boolean publishHomeFeed(java.util.Collection<Movie> movies) {
+        Map<Long, Movie> previous = new java.util.HashMap<>();
+        for (Movie m : homeFeed) previous.put(m.getId(), m);
+        boolean changed = previous.size() != movies.size() || homeFeed.isEmpty();
+        List<Movie> next = new ArrayList<>(movies.size());
+        for (Movie m : movies) {
+            Movie old = previous.get(m.getId());
+            if (old != null && old.hasSameContent(m)) {
+                next.add(old);
+            } else {
+                next.add(m);
+                changed = true;
+            }
+        }
+        if (!changed) return false;
+
+        homeFeed = next;
+        // Reiniciamos usuario en memoria para reconstruirlo desde BD + Internet
+        currentUser = new User();
+        // Aquí cruzamos los datos nuevos con la BD local
+        syncWithLocalData(next);
+        // Portada y listas del usuario en una sola versión: nadie ve el catálogo a medias
+        List<Movie> userMovies = userMovies();
+        updateCatalog(current -> current.replacedBy(next).withAdded(userMovies));
+        recommendationsDirty = true;
+        return true;
+    }
 
-        for (String genre : targetGenres) {
-            int count = 0;
-            for (Movie m : cachedMovies) {
-                if (hasGenre(m, genre)) count++;
+    // Siguiente página del catálogo a partir del último rowid cargado
+    public void loadMoreMovies(DataCallback callback) {
+        if (isLoadingMore || refreshWaiters != null || catalogCursor == null) {
+            if (callback != null) callback.onDataLoaded();
+            return;
+        }
+        isLoadingMore = true;
+        catalogRouter.fetchMoviesPage(catalogCursor, HOME_PAGE_SIZE, new TursoClient.PageCallback() {
+            @Override
+            public void onSuccess(Set<Movie> movies, PageCursor next) {
+                isLoadingMore = false;
+                catalogCursor = next;
+                syncWithLocalData(movies);
+                updateCatalog(current -> current.withAdded(movies));
+                if (callback != null) callback.onDataLoaded();
             }
 
-            if (count < 10) {
-                int needed = 10 - count;
-                pendingRequests.incrementAndGet();
-                tursoClient.fetchMoviesByGenre(genre, needed, new TursoClient.MovieCallback() {
-                    @Override
-                    public void onSuccess(Set<Movie> movies) {
-                        syncWithLocalData(movies); // Sincronizar
-                        synchronized (cachedMovies) {
-                            cachedMovies.addAll(movies);
-                        }
-                        if (pendingRequests.decrementAndGet() == 0) finishRefresh(callback);
-                    }
-                    @Override
-                    public void onError(Exception e) {
-                        if (pendingRequests.decrementAndGet() == 0) finishRefresh(callback);
-                    }
-                });
+            @Override
+            public void onError(Exception e) {
+                isLoadingMore = false;
+                if (callback != null) callback.onError(e.getMessage());
             }
-        }
-        if (pendingRequests.get() == 0) finishRefresh(callback);
+        });
     }
 
+    public boolean hasMoreMovies() { return catalogCursor != null; }
+
     private void mergeUserData() {
-        synchronized (cachedMovies) {
-            for (Movie m : currentUser.getWatchlist()) if (!cachedMovies.contains(m)) cachedMovies.add(m);
-            for (Movie m : currentUser.getSeenList()) if (!cachedMovies.contains(m)) cachedMovies.add(m);
-            for (Movie m : currentUser.getResumeMovies()) if (!cachedMovies.contains(m)) cachedMovies.add(m);
-        }
+        List<Movie> userMovies = userMovies();
+        updateCatalog(current -> current.withAdded(userMovies));
     }
 
-    private void finishRefresh(DataCallback callback) {
-        mergeUserData();
-        isLoading = false;
-        if (callback != null) callback.onDataLoaded();
+    private List<Movie> userMovies() {
+        List<Movie> userMovies = new ArrayList<>(currentUser.getWatchlist());
+        userMovies.addAll(currentUser.getSeenList());
+        userMovies.addAll(currentUser.getResumeMovies());
+        return userMovies;
     }
 
 
 
     public User getCurrentUser() { return currentUser; }
-    public Set<Movie> getAllMovies() { return new LinkedHashSet<>(cachedMovies); }
 
+    // La instancia de la que cuelgan los flags de watchlist/vista: catálogo, listas del usuario o
+    // películas abiertas hace poco. null si no la tenemos en memoria.
+    public Movie findMovie(long id) {
+        Movie movie = catalog.get(id);
+        if (movie != null) return movie;
+        for (Movie m : currentUser.getWatchlist()) if (m.getId() == id) return m;
+        for (Movie m : currentUser.getSeenList()) if (m.getId() == id) return m;
+        for (Movie m : currentUser.getResumeMovies()) if (m.getId() == id) return m;
+        return openedMovies.get(id);
+    }
+
+    // Se llama antes de navegar al detalle para que findMovie encuentre la misma instancia
+    public void rememberMovie(Movie movie) {
+        if (findMovie(movie.getId()) == null) openedMovies.put(movie.getId(), movie);
+    }
 
-    public Set<Movie> search(String query) {
-        String normalizedQuery = normalizeForSearch(query);
-        Set<Movie> results = new LinkedHashSet<>();
-        for (Movie m : cachedMovies) {
-            String normalizedTitle = normalizeForSearch(m.getTitle());
-            if (normalizedTitle.contains(normalizedQuery)) results.add(m);
+    public interface MovieLookupCallback { void onMovie(Movie movie); void onError(String error); }
+    // Si no está en memoria (p. ej. el proceso murió con el detalle abierto) se pide a Turso por id
+    public QueryHandle loadMovie(long id, MovieLookupCallback callback) {
+        Movie known = findMovie(id);
+        if (known != null) {
+            callback.onMovie(known);
+            return new QueryHandle();
+        }
+        return catalogRouter.fetchMovieById(id, new TursoClient.MovieCallback() {
+            @Override
+            public void onSuccess(Set<Movie> movies) {
+                Movie found = findMovie(id);
+                if (found == null && !movies.isEmpty()) {
+                    found = movies.iterator().next();
+                    syncWithLocalData(movies);
+                    openedMovies.put(id, found);
+                }
+                if (found != null) callback.onMovie(found);
+                else callback.onError("Movie " + id + " not found");
+            }
+
+            @Override
+            public void onError(Exception e) {
+                callback.onError(e.getMessage());
+            }
+        });
+    }
+
+    public interface SimilarCallback { void onSimilar(List<Movie> movies); }
+    private static final int SIMILAR_COUNT = 12;
+    // Parecidas a 'movie' entre las guardadas en el móvil, sin red. Se devuelven las instancias de
+    // memoria cuando las hay, para que los flags de watchlist/vista sean los mismos.
+    public void findSimilar(Movie movie, SimilarCallback callback) {
+        if (similarTitles == null) {
+            callback.onSimilar(new ArrayList<>());
+            return;
         }
-        return results;
+        similarTitles.find(movie, SIMILAR_COUNT, found -> {
+            List<Movie> similar = new ArrayList<>(found.size());
+            List<Movie> loaded = new ArrayList<>();
+            for (Movie m : found) {
+                Movie known = findMovie(m.getId());
+                if (known == null) {
+                    loaded.add(m);
+                    openedMovies.put(m.getId(), m);
+                    known = m;
+                }
+                similar.add(known);
+            }
+            syncWithLocalData(loaded);
+            callback.onSimilar(similar);
+        });
     }
-    private String normalizeForSearch(String s) {
-        return s.toLowerCase().replace("-", "").replace(" ", "").replace("á", "a").replace("é", "e").replace("í", "i").replace("ó", "o").replace("ú", "u");
+
+    // Sin copia: el conjunto es de solo lectura y no cambia aunque llegue otra versión
+    public Set<Movie> getAllMovies() { return catalog.getMovies(); }
+
+    public CatalogSnapshot getCatalog() { return catalog; }
+
+
+    public Set<Movie> search(String query) {
+        return MovieSearch.search(catalog.getMovies(), query);
     }
 
-    public interface SearchCallback { void onResults(Set<Movie> movies); void onError(String error); }
-    public void searchMovies(String query, int limit, int offset, SearchCallback callback) {
-        tursoClient.searchMovies(query, limit, offset, new TursoClient.MovieCallback() {
-            @Override public void onSuccess(Set<Movie> movies) { if (callback != null) callback.onResults(movies); }
-            @Override public void onError(Exception e) { if (callback != null) callback.onError(e.getMessage()); }
+    public interface SearchCallback { void onResults(Set<Movie> movies, PageCursor next); void onError(String error); }
+    // Tras cancelar el handle no llega ningún callback, venga de la caché o de la red
+    public QueryHandle searchMovies(String query, PageCursor cursor, int limit, SearchCallback callback) {
+        QueryHandle handle = new QueryHandle();
+        if (queryCache == null) {
+            searchRemote(query, cursor, limit, null, handle, callback);
+            return handle;
+        }
+        String key = QueryCache.searchKey(query, cursor, limit);
+        queryCache.get(key, cached -> {
+            if (handle.isCancelled()) return;
+            if (cached != null && cached.isFresh(QueryCache.SEARCH_TTL_MS)) {
+                deliverCachedSearch(cached, callback);
+            } else {
+                searchRemote(query, cursor, limit, cached, handle, callback);
+            }
         });
+        return handle;
+    }
+    private void searchRemote(String query, PageCursor cursor, int limit, MovieDatabaseHelper.CachedResult stale, QueryHandle handle, SearchCallback callback) {
+        QueryHandle remote = catalogRouter.searchMovies(query, cursor, limit, new TursoClient.PageCallback() {
+            @Override public void onSuccess(Set<Movie> movies, PageCursor next) {
+                if (queryCache != null) {
+                    queryCache.put(QueryCache.searchKey(query, cursor, limit), movies, next);
+                    similarTitles.add(movies);
+                }
+                syncWithLocalData(movies);
+                if (callback != null) callback.onResults(movies, next);
+            }
+            @Override public void onError(Exception e) {
+                // Sin red, mejor un resultado caducado que ninguno
+                if (stale != null) deliverCachedSearch(stale, callback);
+                else if (callback != null) callback.onError(e.getMessage());
+            }
+        });
+        handle.onCancel(remote::cancel);
+    }
+    private void deliverCachedSearch(MovieDatabaseHelper.CachedResult cached, SearchCallback callback) {
+        Set<Movie> movies = new LinkedHashSet<>(cached.movies);
+        syncWithLocalData(movies);
+        if (callback != null) callback.onResults(movies, PageCursor.fromToken(cached.nextCursor));
     }
     public Set<Movie> getContinueWatchingMovies() {
         Set<Movie> inProgress = new LinkedHashSet<>();
-        for (Movie m : cachedMovies) if (currentUser.getResumePosition(m) > 0) inProgress.add(m);
+        for (Movie m : catalog.getMovies()) if (currentUser.getResumePosition(m) > 0) inProgress.add(m);
         return inProgress;
     }
+    // Recomendaciones por contenido (Recommender). Lo calculado vale mientras no cambien ni el perfil
+    // ni la portada; refreshRecommendations pide otra tanda sin las que ya se han enseñado.
+    private static final int RECOMMENDATION_COUNT = 20;
+    private final Recommender recommender = new Recommender();
     private Set<Movie> recommendedMovies = new LinkedHashSet<>();
     public Set<Movie> getRecommendedMovies() { return new LinkedHashSet<>(recommendedMovies); }
     private boolean recommendationsDirty = true;
-    // Métodos delegados actualizados (ya implementados arriba)
-
-    public void refreshRecommendations(DataCallback callback) { recommendationsDirty = true; loadRecommendations(callback); }
+    private long recommendedProfileVersion = -1;
+    // Solo se publica el último cálculo lanzado
+    private int recommendationRun;
+    private long widenedProfileVersion = -1;
+    // Catálogo aplanado para puntuar; solo lo toca el hilo "recommender"
+    private Recommender.Candidates candidates;
+
+    public void refreshRecommendations(DataCallback callback) {
+        LongHashSet shown = new LongHashSet(recommendedMovies.size());
+        for (Movie m : recommendedMovies) shown.add(m.getId());
+        computeRecommendations(shown, callback);
+    }
     public void loadRecommendations(DataCallback callback) {
-        if (!recommendationsDirty && !recommendedMovies.isEmpty()) { if (callback != null) callback.onDataLoaded(); return; }
-        Set<Movie> candidates = new LinkedHashSet<>();
-        if (cachedMovies.isEmpty()) { recommendationsDirty = false; if (callback != null) callback.onDataLoaded(); return; }
-        List<Movie> candidateList = new ArrayList<>(cachedMovies);
-        java.util.Collections.shuffle(candidateList);
-        recommendedMovies.clear();
-        for (int i = 0; i < Math.min(candidateList.size(), 20); i++) recommendedMovies.add(candidateList.get(i));
+        if (!recommendationsDirty && recommendedProfileVersion == recommender.getVersion() && !recommendedMovies.isEmpty()) {
+            if (callback != null) callback.onDataLoaded();
+            return;
+        }
+        CatalogSnapshot current = catalog;
+        if (current.isEmpty() && refreshWaiters != null) {
+            // El catálogo está llegando: se calculan cuando termine el refresco
+            if (callback != null) recommendationWaiters.add(callback);
+            return;
+        }
+        if (current.isEmpty()) { recommendationsDirty = false; if (callback != null) callback.onDataLoaded(); return; }
+        computeRecommendations(null, callback);
+    }
+
+    private void computeRecommendations(LongHashSet skip, DataCallback callback) {
+        CatalogSnapshot current = catalog;
+        Recommender.Profile profile = recommender.snapshot();
         recommendationsDirty = false;
-        if (callback != null) callback.onDataLoaded();
+        recommendedProfileVersion = profile.getVersion();
+        int run = ++recommendationRun;
+        recommendExecutor.execute(() -> {
+            if (candidates == null || candidates.getCatalogVersion() != current.getVersion()) {
+                candidates = Recommender.Candidates.of(current);
+            }
+            Set<Movie> result = new LinkedHashSet<>(profile.recommend(candidates, RECOMMENDATION_COUNT, skip));
+            // Sin biblioteca, o con pocas afines, se completa al azar como antes
+            if (result.size() < RECOMMENDATION_COUNT) {
+                for (Movie m : current.getGenres().sample((String) null, RECOMMENDATION_COUNT * 2)) {
+                    if (result.size() == RECOMMENDATION_COUNT) break;
+                    if (!profile.inLibrary(m.getId()) && (skip == null || !skip.contains(m.getId()))) result.add(m);
+                }
+            }
+            mainHandler.post(() -> {
+                if (run == recommendationRun) recommendedMovies = result;
+                if (callback != null) callback.onDataLoaded();
+            });
+        });
+        widenCandidates(profile);
     }
-    private void addGenresToCount(java.util.Collection<Movie> movies, java.util.Map<String, Integer> counts) {
-        for (Movie m : movies) if (m.getGenres() != null) for (String g : m.getGenres()) counts.put(g, counts.getOrDefault(g, 0) + 1);
+
+    // Trae de Turso unas cuantas películas de los géneros favoritos que quizá no estén en memoria;
+    // entran en el siguiente cálculo. Una vez por versión del perfil.
+    private void widenCandidates(Recommender.Profile profile) {
+        if (profile.isEmpty() || widenedProfileVersion == profile.getVersion()) return;
+        widenedProfileVersion = profile.getVersion();
+        tursoClient.fetchRecommendations(profile.topGenres(3), java.util.Collections.emptyList(), new TursoClient.MovieCallback() {
+            @Override
+            public void onSuccess(Set<Movie> movies) {
+                syncWithLocalData(movies);
+                updateCatalog(current -> current.withAdded(movies));
+                recommendationsDirty = true;
+            }
+
+            @Override
+            public void onError(Exception e) {
+                Log.w("DataRepository", "Could not widen recommendation candidates: " + e.getMessage());
+            }
+        });
     }
     public List<String> getSignificantGenres() {
-        java.util.Map<String, Integer> counts = new java.util.HashMap<>();
-        addGenresToCount(cachedMovies, counts);
-        List<String> sorted = new ArrayList<>(counts.keySet());
-        sorted.sort((a, b) -> counts.get(b) - counts.get(a));
-        if (sorted.size() > 5) return sorted.subList(0, 5);
-        return sorted;
+        return catalog.getGenres().topGenres(5);
     }
     public Set<Movie> getMoviesForGenre(String genre) {
-        List<Movie> matches = new ArrayList<>();
-        for (Movie m : cachedMovies) if (hasGenre(m, genre)) matches.add(m);
-        java.util.Collections.shuffle(matches);
-        if (matches.size() > 10) return new LinkedHashSet<>(matches.subList(0, 10));
-        return new LinkedHashSet<>(matches);
-    }
-    private boolean hasGenre(Movie m, String keyword) {
-        if (m.getGenres() == null || m.getGenres().isEmpty()) return false;
-        for (String g : m.getGenres()) if (g.toLowerCase().contains(keyword.toLowerCase())) return true;
-        return false;
+        return catalog.getGenres().sample(genre, 10);
+    }
+    public int countMoviesForGenre(String genre) {
+        return catalog.getGenres().count(genre);
+    }
+    // Filtro por facetas: películas con todos los géneros dados y duración en [minRuntime, maxRuntime] minutos
+    public Set<Movie> getMoviesForGenres(List<String> genres, int minRuntime, int maxRuntime, int limit) {
+        return catalog.getGenres().sample(genres.toArray(new String[0]), minRuntime, maxRuntime, limit);
     }
 }
\ No newline at end of file
@@ -1,22 +1,66 @@
 package com.example.prueba;
 
+import android.content.Context;
+import android.content.Intent;
 import android.os.Bundle;
 import android.widget.ImageView;
 import android.widget.TextView;
 import androidx.appcompat.app.AppCompatActivity;
+import androidx.recyclerview.widget.LinearLayoutManager;
+import androidx.recyclerview.widget.RecyclerView;
 import com.bumptech.glide.Glide;
 // IMPORTANTE: Importar AlertDialog
 import androidx.appcompat.app.AlertDialog;
 
 public class DetailActivity extends AppCompatActivity {
 
+    public static final String EXTRA_MOVIE_ID = "movie_id";
+
+    private QueryHandle loadHandle;
+
+    // Solo viaja el id: la película se resuelve en DataRepository, así el detalle trabaja sobre la
+    // misma instancia que las listas (flags de watchlist/vista incluidos) y el Intent pesa 8 bytes
+    public static void start(Context context, Movie movie) {
+        DataRepository.getInstance().rememberMovie(movie);
+        Intent intent = new Intent(context, DetailActivity.class);
+        intent.putExtra(EXTRA_MOVIE_ID, movie.getId());
+        context.startActivity(intent);
+    }
+
     @Override
     protected void onCreate(Bundle savedInstanceState) {
         super.onCreate(savedInstanceState);
         setContentView(R.layout.activity_detail);
 
-        Movie movie = (Movie) getIntent().getSerializableExtra("movie");
+        long movieId = getIntent().getLongExtra(EXTRA_MOVIE_ID, 0);
+        loadHandle = DataRepository.getInstance().loadMovie(movieId, new DataRepository.MovieLookupCallback() {
+            @Override
+            public void onMovie(Movie movie) {
+                bindMovie(movie);
+            }
 
+            @Override
+            public void onError(String error) {
+                android.widget.Toast.makeText(DetailActivity.this, R.string.msg_movie_load_failed, android.widget.Toast.LENGTH_SHORT).show();
+                finish();
+            }
+        });
+    }
+
+    // Al salir del detalle sus cambios van a disco sin esperar al retardo de la cola
+    @Override
+    protected void onStop() {
+        super.onStop();
+        DataRepository.getInstance().flushPendingWrites();
+    }
+
+    @Override
+    protected void onDestroy() {
+        super.onDestroy();
+        if (loadHandle != null) loadHandle.cancel();
+    }
+
+    private void bindMovie(Movie movie) {
         if (movie != null) {
             ImageView backdrop = findViewById(R.id.detail_backdrop);
             ImageView poster = findViewById(R.id.detail_poster);
@@ -125,11 +169,28 @@ public class DetailActivity extends AppCompatActivity {
                 }
             });
 
-            Glide.with(this).load(movie.getBackdropUrl()).into(backdrop);
-            Glide.with(this).load(movie.getPosterUrl()).into(poster);
+            bindSimilar(movie);
+
+            // Tamaños de activity_detail.xml: fondo a todo el ancho x 250dp, póster de 120x180dp
+            int screenWidth = getResources().getDisplayMetrics().widthPixels;
+            PosterImages.backdrop(Glide.with(this), movie, screenWidth, PosterImages.dpToPx(this, 250)).into(backdrop);
+            PosterImages.thumbnail(Glide.with(this), movie, PosterImages.dpToPx(this, 120), PosterImages.dpToPx(this, 180)).into(poster);
         }
     }
 
+    // Parecidas entre las guardadas en el móvil: sin red, así que la fila aparece o no al momento
+    private void bindSimilar(Movie movie) {
+        DataRepository.getInstance().findSimilar(movie, similar -> {
+            if (isDestroyed() || similar.isEmpty()) return;
+            TextView label = findViewById(R.id.label_similar_titles);
+            RecyclerView row = findViewById(R.id.similar_recycler_view);
+            row.setLayoutManager(new LinearLayoutManager(this, LinearLayoutManager.HORIZONTAL, false));
+            row.setAdapter(new HorizontalMovieAdapter(this, new java.util.LinkedHashSet<>(similar)));
+            label.setVisibility(android.view.View.VISIBLE);
+            row.setVisibility(android.view.View.VISIBLE);
+        });
+    }
+
     private void updateButtons(android.widget.Button btnWatchlist, android.widget.Button btnSeen, Movie movie) {
         User user = DataRepository.getInstance().getCurrentUser();
 
@@ -1,22 +1,33 @@
 package com.example.prueba;
 
 import android.os.Bundle;
+import android.os.Parcelable;
 import android.view.LayoutInflater;
 import android.view.View;
 import android.view.ViewGroup;
 import androidx.annotation.NonNull;
 import androidx.annotation.Nullable;
 import androidx.fragment.app.Fragment;
+import androidx.lifecycle.ViewModel;
+import androidx.lifecycle.ViewModelProvider;
 import androidx.recyclerview.widget.LinearLayoutManager;
 import androidx.recyclerview.widget.RecyclerView;
 import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 
 public class HomeFragment extends Fragment {
 
+    // Scroll horizontal de cada fila de la portada, por clave de categoría
+    public static class RowScroll extends ViewModel {
+        final Map<String, Parcelable> states = new HashMap<>();
+    }
+
     private RecyclerView recyclerView;
     private CategoryAdapter adapter;
     private List<Category> categoryList;
+    private QueryHandle refreshHandle;
 
     @Override
     public View onCreateView(@NonNull LayoutInflater inflater, @Nullable ViewGroup container, @Nullable Bundle savedInstanceState) {
@@ -25,11 +36,13 @@ public class HomeFragment extends Fragment {
         recyclerView.setLayoutManager(new LinearLayoutManager(getContext()));
 
         categoryList = new ArrayList<>();
-        adapter = new CategoryAdapter(getContext(), categoryList);
+        // Del activity: la pestaña crea un HomeFragment nuevo cada vez que se vuelve a ella
+        RowScroll rowScroll = new ViewModelProvider(requireActivity()).get(RowScroll.class);
+        adapter = new CategoryAdapter(getContext(), rowScroll.states);
         recyclerView.setAdapter(adapter);
 
         // Si ya hay datos cargados en memoria, los usamos directamente y no recargamos
-        if (!DataRepository.getInstance().getAllMovies().isEmpty()) {
+        if (!DataRepository.getInstance().getCatalog().isEmpty()) {
             updateUI();
         } else {
             loadData();
@@ -43,11 +56,19 @@ public class HomeFragment extends Fragment {
         super.onResume();
 
     }
+
+    @Override
+    public void onDestroyView() {
+        adapter.saveScrollStates(recyclerView);
+        super.onDestroyView();
+        // El refresco sigue para quien más lo espere; este fragment ya no necesita el aviso
+        if (refreshHandle != null) refreshHandle.cancel();
+    }
     // ---------------------------------------------------------------------
 
     private void loadData() {
         showLoadingState();
-        DataRepository.getInstance().refreshMovies(new DataRepository.DataCallback() {
+        refreshHandle = DataRepository.getInstance().refreshMovies(new DataRepository.DataCallback() {
             @Override
             public void onDataLoaded() {
                 DataRepository.getInstance().loadRecommendations(new DataRepository.DataCallback() {
@@ -110,7 +131,7 @@ public class HomeFragment extends Fragment {
                         for (int i = 0; i < categoryList.size(); i++) {
                             if (categoryList.get(i).getTitle().equalsIgnoreCase(title)) {
                                 categoryList.set(i, new Category(title, newMovies, categoryList.get(i).getOnRefresh()));
-                                adapter.notifyItemChanged(i);
+                                publishCategories();
                                 break;
                             }
                         }
@@ -128,7 +149,16 @@ public class HomeFragment extends Fragment {
             }
         }
 
-        adapter.notifyDataSetChanged();
+        publishCategories();
+        if (!categoryList.isEmpty() && getActivity() != null) {
+            StartupTrace.mark("home_first_content");
+            getActivity().reportFullyDrawn();
+        }
+    }
+
+    // El adaptador necesita una lista nueva en cada envío para poder calcular el diff contra la anterior
+    private void publishCategories() {
+        adapter.submitList(new ArrayList<>(categoryList));
     }
 
     private void showLoadingState() {
@@ -141,7 +171,7 @@ public class HomeFragment extends Fragment {
             }
             categoryList.add(new Category(section, dummyMovies));
         }
-        adapter.notifyDataSetChanged();
+        publishCategories();
     }
 
     private void updateCategoryItem(String title, java.util.Set<Movie> newMovies) {
@@ -149,7 +179,7 @@ public class HomeFragment extends Fragment {
             if (categoryList.get(i).getTitle().equalsIgnoreCase(title)) {
                 Category old = categoryList.get(i);
                 categoryList.set(i, new Category(title, newMovies, old.getOnRefresh()));
-                adapter.notifyItemChanged(i);
+                publishCategories();
                 break;
             }
         }
@@ -1,25 +1,43 @@
 package com.example.prueba;
 
 import android.content.Context;
-import android.content.Intent;
+import android.graphics.drawable.Drawable;
 import android.view.LayoutInflater;
 import android.view.View;
 import android.view.ViewGroup;
 import android.widget.ImageView;
 import androidx.annotation.NonNull;
+import androidx.recyclerview.widget.AsyncListDiffer;
 import androidx.recyclerview.widget.RecyclerView;
 import com.bumptech.glide.Glide;
+import com.bumptech.glide.ListPreloader;
+import com.bumptech.glide.RequestBuilder;
+import com.bumptech.glide.integration.recyclerview.RecyclerViewPreloader;
+import com.bumptech.glide.util.FixedPreloadSizeProvider;
+import java.util.Collections;
 import java.util.List;
 import com.example.prueba.Movie;
 
-public class HorizontalMovieAdapter extends RecyclerView.Adapter<RecyclerView.ViewHolder> {
+public class HorizontalMovieAdapter extends RecyclerView.Adapter<RecyclerView.ViewHolder>
+        implements ListPreloader.PreloadModelProvider<Movie> {
 
-    private static final int TYPE_MOVIE = 0;
+    // Compartido con el pool de pósters de CategoryAdapter
+    static final int TYPE_MOVIE = 0;
     private static final int TYPE_REFRESH = 1;
     private static final int TYPE_LOADING = 2;
 
+    // Id estable de la tarjeta de refrescar (las películas de carga usan ids negativos pequeños)
+    private static final long REFRESH_ITEM_ID = Long.MIN_VALUE;
+
+    // Tamaño de la tarjeta en item_movie_horizontal.xml
+    private static final int POSTER_WIDTH_DP = 120;
+    private static final int POSTER_HEIGHT_DP = 180;
+
     private Context context;
-    private List<Movie> movieList;
+    private final int posterWidth;
+    private final int posterHeight;
+    // La tarjeta de refrescar va siempre al final, así que las posiciones del diff valen tal cual
+    private final AsyncListDiffer<Movie> differ = new AsyncListDiffer<>(this, MovieDiffCallback.INSTANCE);
     private Runnable onRefresh;
 
     public HorizontalMovieAdapter(Context context, java.util.Set<Movie> movieSet) {
@@ -28,8 +46,30 @@ public class HorizontalMovieAdapter extends RecyclerView.Adapter<RecyclerView.Vi
 
     public HorizontalMovieAdapter(Context context, java.util.Set<Movie> movieSet, Runnable onRefresh) {
         this.context = context;
-        this.movieList = new java.util.ArrayList<>(movieSet);
         this.onRefresh = onRefresh;
+        this.posterWidth = PosterImages.dpToPx(context, POSTER_WIDTH_DP);
+        this.posterHeight = PosterImages.dpToPx(context, POSTER_HEIGHT_DP);
+        setHasStableIds(true);
+        differ.submitList(new java.util.ArrayList<>(movieSet));
+    }
+
+    // Nueva lista para la fila: el diff va en segundo plano y solo se repintan los pósters que cambian
+    public void submitMovies(java.util.Set<Movie> movieSet) {
+        differ.submitList(new java.util.ArrayList<>(movieSet));
+    }
+
+    // Otra fila en el mismo adaptador (ViewHolder reciclado): se cambia de golpe, sin diff ni animación
+    public void replaceMovies(java.util.Set<Movie> movieSet) {
+        differ.submitList(null);
+        differ.submitList(new java.util.ArrayList<>(movieSet));
+    }
+
+    public void setOnRefresh(Runnable onRefresh) {
+        boolean hadCard = this.onRefresh != null;
+        this.onRefresh = onRefresh;
+        int cardPosition = differ.getCurrentList().size();
+        if (hadCard && onRefresh == null) notifyItemRemoved(cardPosition);
+        else if (!hadCard && onRefresh != null) notifyItemInserted(cardPosition);
     }
 
     @NonNull
@@ -59,34 +99,55 @@ public class HorizontalMovieAdapter extends RecyclerView.Adapter<RecyclerView.Vi
         }
 
         MovieViewHolder movieHolder = (MovieViewHolder) holder;
-        Movie movie = movieList.get(position);
-        Glide.with(context)
-                .load(movie.getPosterUrl())
-                .centerCrop()
-                .placeholder(android.R.drawable.ic_menu_gallery)
-                .into(movieHolder.poster);
+        Movie movie = differ.getCurrentList().get(position);
+        PosterImages.thumbnail(Glide.with(context), movie, posterWidth, posterHeight).into(movieHolder.poster);
 
         movieHolder.itemView.setOnClickListener(v -> {
-            Intent intent = new Intent(context, DetailActivity.class);
-            intent.putExtra("movie", movie);
-            context.startActivity(intent);
+            DetailActivity.start(context, movie);
         });
     }
 
+    // Precarga de los siguientes pósters en el sentido del scroll horizontal
+    public RecyclerView.OnScrollListener createPreloader(int maxPreload) {
+        return new RecyclerViewPreloader<>(Glide.with(context), this,
+                new FixedPreloadSizeProvider<>(posterWidth, posterHeight), maxPreload);
+    }
+
+    @NonNull
+    @Override
+    public List<Movie> getPreloadItems(int position) {
+        List<Movie> movies = differ.getCurrentList();
+        if (position >= movies.size() || movies.get(position).isLoading()) return Collections.emptyList();
+        return Collections.singletonList(movies.get(position));
+    }
+
+    @Override
+    public RequestBuilder<Drawable> getPreloadRequestBuilder(@NonNull Movie movie) {
+        return PosterImages.thumbnail(Glide.with(context), movie, posterWidth, posterHeight);
+    }
+
     @Override
     public int getItemCount() {
+        List<Movie> movies = differ.getCurrentList();
         if (onRefresh != null) {
-            return movieList.size() + 1;
+            return movies.size() + 1;
         }
-        return movieList.size();
+        return movies.size();
+    }
+
+    @Override
+    public long getItemId(int position) {
+        List<Movie> movies = differ.getCurrentList();
+        return (position < movies.size()) ? movies.get(position).getId() : REFRESH_ITEM_ID;
     }
 
     @Override
     public int getItemViewType(int position) {
-        if (onRefresh != null && position == movieList.size()) {
+        List<Movie> movies = differ.getCurrentList();
+        if (onRefresh != null && position == movies.size()) {
             return TYPE_REFRESH;
         }
-        if (position < movieList.size() && movieList.get(position).isLoading()) {
+        if (position < movies.size() && movies.get(position).isLoading()) {
             return TYPE_LOADING;
         }
         return TYPE_MOVIE;
@@ -13,12 +13,15 @@ public class MainActivity extends AppCompatActivity {
 
     @Override
     protected void onCreate(Bundle savedInstanceState) {
+        StartupTrace.mark("main_create");
         //CARGAR EL IDIOMA GUARDADO ANTES DE CREAR LA VISTA
         loadLocale();
 
         super.onCreate(savedInstanceState);
         setContentView(R.layout.activity_main);
+        StartupTrace.mark("main_content_view");
 
+        // Normalmente ya lo ha hecho PruebaApplication; aquí no hace nada
         DataRepository.getInstance().init(this);
 
         com.google.android.material.bottomnavigation.BottomNavigationView bottomNav = findViewById(R.id.bottom_navigation);
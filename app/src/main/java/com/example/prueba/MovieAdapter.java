@@ -1,39 +1,88 @@
 package com.example.prueba;
 
 import android.content.Context;
-import android.content.Intent;
+import android.graphics.drawable.Drawable;
 import android.view.LayoutInflater;
 import android.view.View;
 import android.view.ViewGroup;
 import android.widget.ImageView;
 import androidx.annotation.NonNull;
+import androidx.recyclerview.widget.ListAdapter;
 import androidx.recyclerview.widget.RecyclerView;
 import com.bumptech.glide.Glide;
+import com.bumptech.glide.ListPreloader;
+import com.bumptech.glide.RequestBuilder;
+import com.bumptech.glide.integration.recyclerview.RecyclerViewPreloader;
+import com.bumptech.glide.util.FixedPreloadSizeProvider;
+import java.util.Collections;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Set;
 import java.util.ArrayList;
 
-public class MovieAdapter extends RecyclerView.Adapter<MovieAdapter.MovieViewHolder> {
+// El diff entre listas se calcula en segundo plano (ListAdapter) y solo se animan las filas que cambian
+public class MovieAdapter extends ListAdapter<Movie, MovieAdapter.MovieViewHolder>
+        implements ListPreloader.PreloadModelProvider<Movie> {
+
+    // Columnas de la rejilla de búsqueda y alto del póster en item_movie.xml
+    public static final int GRID_COLUMNS = 3;
+    private static final int POSTER_HEIGHT_DP = 240;
+    private static final int CARD_MARGIN_DP = 4;
 
     private Context context;
-    private List<Movie> movieList;
+    private final int posterWidth;
+    private final int posterHeight;
+    // Última lista enviada; getCurrentList() no la refleja hasta que termina el diff
+    private List<Movie> latest;
 
     public MovieAdapter(Context context, Set<Movie> movieSet) {
+        super(MovieDiffCallback.INSTANCE);
         this.context = context;
-        this.movieList = new ArrayList<>(movieSet);
+        // Ancho de columna a partir del de la pantalla (la rejilla ocupa todo el ancho)
+        int screenWidth = context.getResources().getDisplayMetrics().widthPixels;
+        this.posterWidth = screenWidth / GRID_COLUMNS - 2 * PosterImages.dpToPx(context, CARD_MARGIN_DP);
+        this.posterHeight = PosterImages.dpToPx(context, POSTER_HEIGHT_DP);
+        setHasStableIds(true);
+        submit(new ArrayList<>(movieSet));
     }
 
     // Actualiza la lista completa (para nueva búsqueda)
     public void updateMovies(Set<Movie> newMovies) {
-        this.movieList.clear();
-        this.movieList.addAll(newMovies);
-        notifyDataSetChanged();
+        submit(new ArrayList<>(newMovies));
     }
 
     public void addMovies(Set<Movie> moreMovies) {
-        int startPos = this.movieList.size();
-        this.movieList.addAll(moreMovies);
-        notifyItemRangeInserted(startPos, moreMovies.size());
+        Set<Movie> all = new LinkedHashSet<>(latest);
+        all.addAll(moreMovies);
+        submit(new ArrayList<>(all));
+    }
+
+    private void submit(List<Movie> movies) {
+        latest = movies;
+        submitList(movies);
+    }
+
+    // Precarga de los pósters de las siguientes filas en el sentido del scroll
+    public RecyclerView.OnScrollListener createPreloader(int maxPreload) {
+        return new RecyclerViewPreloader<>(Glide.with(context), this,
+                new FixedPreloadSizeProvider<>(posterWidth, posterHeight), maxPreload);
+    }
+
+    @NonNull
+    @Override
+    public List<Movie> getPreloadItems(int position) {
+        if (position >= getItemCount() || getItem(position).isLoading()) return Collections.emptyList();
+        return Collections.singletonList(getItem(position));
+    }
+
+    @Override
+    public RequestBuilder<Drawable> getPreloadRequestBuilder(@NonNull Movie movie) {
+        return PosterImages.thumbnail(Glide.with(context), movie, posterWidth, posterHeight);
+    }
+
+    @Override
+    public long getItemId(int position) {
+        return getItem(position).getId();
     }
 
     @NonNull
@@ -45,32 +94,21 @@ public class MovieAdapter extends RecyclerView.Adapter<MovieAdapter.MovieViewHol
 
     @Override
     public void onBindViewHolder(@NonNull MovieViewHolder holder, int position) {
-        Movie movie = movieList.get(position);
+        Movie movie = getItem(position);
 
         if (movie.isLoading()) {
             holder.poster.setImageResource(android.R.drawable.ic_menu_help);
         } else {
-            Glide.with(context)
-                    .load(movie.getPosterUrl())
-                    .centerCrop()
-                    .placeholder(android.R.drawable.ic_menu_gallery)
-                    .into(holder.poster);
+            PosterImages.thumbnail(Glide.with(context), movie, posterWidth, posterHeight).into(holder.poster);
         }
 
         holder.itemView.setOnClickListener(v -> {
             if (!movie.isLoading()) {
-                Intent intent = new Intent(context, DetailActivity.class);
-                intent.putExtra("movie", movie);
-                context.startActivity(intent);
+                DetailActivity.start(context, movie);
             }
         });
     }
 
-    @Override
-    public int getItemCount() {
-        return movieList.size();
-    }
-
     public static class MovieViewHolder extends RecyclerView.ViewHolder {
         ImageView poster;
 
@@ -5,25 +5,47 @@ import android.content.Context;
 import android.database.Cursor;
 import android.database.sqlite.SQLiteDatabase;
 import android.database.sqlite.SQLiteOpenHelper;
+import android.database.sqlite.SQLiteStatement;
+import android.text.TextUtils;
 import java.util.ArrayList;
-import java.util.HashSet;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.LinkedHashMap;
 import java.util.List;
-import java.util.Set;
 import java.util.Map;
 import java.util.HashMap;
 
 public class MovieDatabaseHelper extends SQLiteOpenHelper {
 
     private static final String DATABASE_NAME = "movies.db";
-    private static final int DATABASE_VERSION = 5;
+    private static final int DATABASE_VERSION = 9;
 
     public static final String TABLE_MOVIES = "movies";
     public static final String COLUMN_ID = "id";
     public static final String COLUMN_TITLE = "title";
     public static final String COLUMN_RUNTIME = "runtime";
-    public static final String COLUMN_OVERVIEW = "overview";
     public static final String COLUMN_POSTER_PATH = "poster_path";
     public static final String COLUMN_GENRES = "genres";
+    public static final String COLUMN_CACHED_AT = "cached_at";
+
+    // --- SINOPSIS POR IDIOMA ---
+    // Lo único del catálogo que cambia con el idioma: una fila por película e idioma, así que
+    // cambiar de idioma no invalida ni las películas ni las consultas guardadas
+    private static final String TABLE_OVERVIEWS = "overviews";
+    public static final String COLUMN_LOCALE = "locale";
+    public static final String COLUMN_OVERVIEW = "overview";
+
+    // --- CACHÉ DE CONSULTAS ---
+    private static final String TABLE_QUERY_CACHE = "query_cache";
+    private static final String COL_CACHE_KEY = "cache_key";
+    private static final String COL_FETCHED_AT = "fetched_at";
+    private static final String COL_MOVIE_IDS = "movie_ids";
+    private static final String COL_NEXT_CURSOR = "next_cursor";
+
+    // --- FIRMAS DE SIMILARIDAD (SimilarTitles) ---
+    private static final String TABLE_SIMILARITY = "similarity";
+    private static final String COL_VERSION = "version";
+    private static final String COL_SIGNATURE = "signature";
 
     // --- NUEVAS TABLAS DE USUARIO ---
     private static final String TABLE_WATCHLIST = "watchlist";
@@ -38,6 +60,13 @@ public class MovieDatabaseHelper extends SQLiteOpenHelper {
         super(context, DATABASE_NAME, null, DATABASE_VERSION);
     }
 
+    // WAL: las escrituras de UserDataWriter no bloquean las lecturas de la caché y cada commit
+    // es un append al log en vez de reescribir páginas de la base
+    @Override
+    public void onConfigure(SQLiteDatabase db) {
+        db.enableWriteAheadLogging();
+    }
+
     @Override
     public void onCreate(SQLiteDatabase db) {
         // Crear tabla MOVIES
@@ -45,11 +74,15 @@ public class MovieDatabaseHelper extends SQLiteOpenHelper {
                 COLUMN_ID + " INTEGER PRIMARY KEY, " +
                 COLUMN_TITLE + " TEXT, " +
                 COLUMN_RUNTIME + " TEXT, " +
-                COLUMN_OVERVIEW + " TEXT, " +
                 COLUMN_POSTER_PATH + " TEXT, " +
-                COLUMN_GENRES + " TEXT)";
+                COLUMN_GENRES + " TEXT, " +
+                COLUMN_CACHED_AT + " INTEGER)";
         db.execSQL(createMoviesTable);
 
+        createOverviewsTable(db);
+
+        createQueryCacheTable(db);
+
         // Crear tabla WATCHLIST
         String createWatchlistTable = "CREATE TABLE " + TABLE_WATCHLIST + " (" +
                 COL_MOVIE_ID + " INTEGER PRIMARY KEY, " +
@@ -67,36 +100,78 @@ public class MovieDatabaseHelper extends SQLiteOpenHelper {
                 COL_MOVIE_ID + " INTEGER PRIMARY KEY, " +
                 COL_POSITION + " INTEGER)";
         db.execSQL(createResumeTable);
+
+        createSimilarityTable(db);
     }
 
-    @Override
-    public void onUpgrade(SQLiteDatabase db, int oldVersion, int newVersion) {
-        // Borrar tablas antiguas si cambia la versión
-        db.execSQL("DROP TABLE IF EXISTS " + TABLE_MOVIES);
-        db.execSQL("DROP TABLE IF EXISTS " + TABLE_WATCHLIST);
-        db.execSQL("DROP TABLE IF EXISTS " + TABLE_SEEN);
-        db.execSQL("DROP TABLE IF EXISTS " + TABLE_RESUME);
-        // Volver a crear
-        onCreate(db);
+    private void createQueryCacheTable(SQLiteDatabase db) {
+        String createQueryCacheTable = "CREATE TABLE " + TABLE_QUERY_CACHE + " (" +
+                COL_CACHE_KEY + " TEXT PRIMARY KEY, " +
+                COL_FETCHED_AT + " INTEGER, " +
+                COL_MOVIE_IDS + " TEXT, " +
+                COL_NEXT_CURSOR + " TEXT)";
+        db.execSQL(createQueryCacheTable);
     }
 
-    public void addToWatchlist(long movieId) {
-        SQLiteDatabase db = this.getWritableDatabase();
-        ContentValues values = new ContentValues();
-        values.put(COL_MOVIE_ID, movieId);
-        values.put(COL_TIMESTAMP, System.currentTimeMillis());
-        db.insertWithOnConflict(TABLE_WATCHLIST, null, values, SQLiteDatabase.CONFLICT_REPLACE);
+    private void createOverviewsTable(SQLiteDatabase db) {
+        String createOverviewsTable = "CREATE TABLE " + TABLE_OVERVIEWS + " (" +
+                COL_MOVIE_ID + " INTEGER, " +
+                COLUMN_LOCALE + " TEXT, " +
+                COLUMN_OVERVIEW + " TEXT, " +
+                "PRIMARY KEY (" + COL_MOVIE_ID + ", " + COLUMN_LOCALE + ")) WITHOUT ROWID";
+        db.execSQL(createOverviewsTable);
     }
 
-    public void removeFromWatchlist(long movieId) {
-        SQLiteDatabase db = this.getWritableDatabase();
-        db.delete(TABLE_WATCHLIST, COL_MOVIE_ID + " = ?", new String[]{String.valueOf(movieId)});
+    private void createSimilarityTable(SQLiteDatabase db) {
+        String createSimilarityTable = "CREATE TABLE " + TABLE_SIMILARITY + " (" +
+                COL_MOVIE_ID + " INTEGER PRIMARY KEY, " +
+                COL_VERSION + " INTEGER, " +
+                COL_SIGNATURE + " BLOB)";
+        db.execSQL(createSimilarityTable);
     }
 
-    public Set<Long> getWatchlistIds() {
-        Set<Long> ids = new HashSet<>();
+    @Override
+    public void onUpgrade(SQLiteDatabase db, int oldVersion, int newVersion) {
+        if (oldVersion < 5) {
+            // Borrar tablas antiguas si cambia la versión
+            db.execSQL("DROP TABLE IF EXISTS " + TABLE_MOVIES);
+            db.execSQL("DROP TABLE IF EXISTS " + TABLE_WATCHLIST);
+            db.execSQL("DROP TABLE IF EXISTS " + TABLE_SEEN);
+            db.execSQL("DROP TABLE IF EXISTS " + TABLE_RESUME);
+            // Volver a crear
+            onCreate(db);
+            return;
+        }
+        // A partir de la 5 migramos sin perder la watchlist, vistas ni progreso
+        if (oldVersion < 6) {
+            db.execSQL("ALTER TABLE " + TABLE_MOVIES + " ADD COLUMN " + COLUMN_LOCALE + " TEXT");
+            db.execSQL("ALTER TABLE " + TABLE_MOVIES + " ADD COLUMN " + COLUMN_CACHED_AT + " INTEGER");
+            createQueryCacheTable(db);
+        } else if (oldVersion < 7) {
+            // (si venimos de la 5, la tabla creada arriba ya trae next_cursor)
+            db.execSQL("ALTER TABLE " + TABLE_QUERY_CACHE + " ADD COLUMN " + COL_NEXT_CURSOR + " TEXT");
+        }
+        if (oldVersion < 8) {
+            createSimilarityTable(db);
+        }
+        if (oldVersion < 9) {
+            // La sinopsis pasa a su tabla con el idioma en que se guardó; las películas y las
+            // consultas dejan de depender del idioma
+            createOverviewsTable(db);
+            db.execSQL("INSERT OR REPLACE INTO " + TABLE_OVERVIEWS + " (" + COL_MOVIE_ID + ", " + COLUMN_LOCALE + ", " + COLUMN_OVERVIEW + ")" +
+                    " SELECT " + COLUMN_ID + ", " + COLUMN_LOCALE + ", " + COLUMN_OVERVIEW + " FROM " + TABLE_MOVIES +
+                    " WHERE " + COLUMN_LOCALE + " IS NOT NULL");
+            db.execSQL("ALTER TABLE " + TABLE_MOVIES + " DROP COLUMN " + COLUMN_OVERVIEW);
+            db.execSQL("ALTER TABLE " + TABLE_MOVIES + " DROP COLUMN " + COLUMN_LOCALE);
+            // (si venimos de la 5, query_cache se creó arriba ya sin idioma)
+            if (oldVersion >= 6) db.execSQL("ALTER TABLE " + TABLE_QUERY_CACHE + " DROP COLUMN " + COLUMN_LOCALE);
+        }
+    }
+
+    public LongHashSet getWatchlistIds() {
         SQLiteDatabase db = this.getReadableDatabase();
         Cursor cursor = db.rawQuery("SELECT " + COL_MOVIE_ID + " FROM " + TABLE_WATCHLIST, null);
+        LongHashSet ids = new LongHashSet(cursor.getCount());
         if (cursor.moveToFirst()) {
             do {
                 ids.add(cursor.getLong(0));
@@ -107,23 +182,10 @@ public class MovieDatabaseHelper extends SQLiteOpenHelper {
     }
 
 
-    public void addToSeen(long movieId) {
-        SQLiteDatabase db = this.getWritableDatabase();
-        ContentValues values = new ContentValues();
-        values.put(COL_MOVIE_ID, movieId);
-        values.put(COL_TIMESTAMP, System.currentTimeMillis());
-        db.insertWithOnConflict(TABLE_SEEN, null, values, SQLiteDatabase.CONFLICT_REPLACE);
-    }
-
-    public void removeFromSeen(long movieId) {
-        SQLiteDatabase db = this.getWritableDatabase();
-        db.delete(TABLE_SEEN, COL_MOVIE_ID + " = ?", new String[]{String.valueOf(movieId)});
-    }
-
-    public Set<Long> getSeenIds() {
-        Set<Long> ids = new HashSet<>();
+    public LongHashSet getSeenIds() {
         SQLiteDatabase db = this.getReadableDatabase();
         Cursor cursor = db.rawQuery("SELECT " + COL_MOVIE_ID + " FROM " + TABLE_SEEN, null);
+        LongHashSet ids = new LongHashSet(cursor.getCount());
         if (cursor.moveToFirst()) {
             do {
                 ids.add(cursor.getLong(0));
@@ -134,18 +196,65 @@ public class MovieDatabaseHelper extends SQLiteOpenHelper {
     }
 
 
-    public void saveProgress(long movieId, int position) {
+    // --- ESCRITURAS DE USUARIO (UserDataWriter) ---
+    // Último estado pendiente de cada película, en el orden en que se tocaron
+    public static class UserWrites {
+        public static final long REMOVED = -1;
+
+        final Map<Long, Long> watchlist = new LinkedHashMap<>(); // id -> timestamp del alta, o REMOVED
+        final Map<Long, Long> seen = new LinkedHashMap<>();
+        final Map<Long, Integer> resume = new LinkedHashMap<>();   // id -> minuto
+
+        boolean isEmpty() {
+            return watchlist.isEmpty() && seen.isEmpty() && resume.isEmpty();
+        }
+    }
+
+    // Sentencias compiladas una vez y reutilizadas en cada volcado (solo desde el hilo de BD)
+    private SQLiteStatement insertWatchlist, deleteWatchlist, insertSeen, deleteSeen, insertResume;
+
+    // Todo lo pendiente en una transacción: un solo commit aunque sean cien películas
+    public void applyUserWrites(UserWrites writes) {
         SQLiteDatabase db = this.getWritableDatabase();
-        ContentValues values = new ContentValues();
-        values.put(COL_MOVIE_ID, movieId);
-        values.put(COL_POSITION, position);
-        db.insertWithOnConflict(TABLE_RESUME, null, values, SQLiteDatabase.CONFLICT_REPLACE);
+        if (insertWatchlist == null) {
+            insertWatchlist = db.compileStatement("INSERT OR REPLACE INTO " + TABLE_WATCHLIST + " (" + COL_MOVIE_ID + ", " + COL_TIMESTAMP + ") VALUES (?, ?)");
+            deleteWatchlist = db.compileStatement("DELETE FROM " + TABLE_WATCHLIST + " WHERE " + COL_MOVIE_ID + " = ?");
+            insertSeen = db.compileStatement("INSERT OR REPLACE INTO " + TABLE_SEEN + " (" + COL_MOVIE_ID + ", " + COL_TIMESTAMP + ") VALUES (?, ?)");
+            deleteSeen = db.compileStatement("DELETE FROM " + TABLE_SEEN + " WHERE " + COL_MOVIE_ID + " = ?");
+            insertResume = db.compileStatement("INSERT OR REPLACE INTO " + TABLE_RESUME + " (" + COL_MOVIE_ID + ", " + COL_POSITION + ") VALUES (?, ?)");
+        }
+        db.beginTransaction();
+        try {
+            applyMembership(writes.watchlist, insertWatchlist, deleteWatchlist);
+            applyMembership(writes.seen, insertSeen, deleteSeen);
+            for (Map.Entry<Long, Integer> entry : writes.resume.entrySet()) {
+                insertResume.bindLong(1, entry.getKey());
+                insertResume.bindLong(2, entry.getValue());
+                insertResume.executeInsert();
+            }
+            db.setTransactionSuccessful();
+        } finally {
+            db.endTransaction();
+        }
     }
 
-    public Map<Long, Integer> getResumePositions() {
-        Map<Long, Integer> map = new HashMap<>();
+    private static void applyMembership(Map<Long, Long> changes, SQLiteStatement insert, SQLiteStatement delete) {
+        for (Map.Entry<Long, Long> change : changes.entrySet()) {
+            if (change.getValue() == UserWrites.REMOVED) {
+                delete.bindLong(1, change.getKey());
+                delete.executeUpdateDelete();
+            } else {
+                insert.bindLong(1, change.getKey());
+                insert.bindLong(2, change.getValue());
+                insert.executeInsert();
+            }
+        }
+    }
+
+    public LongIntHashMap getResumePositions() {
         SQLiteDatabase db = this.getReadableDatabase();
         Cursor cursor = db.rawQuery("SELECT " + COL_MOVIE_ID + ", " + COL_POSITION + " FROM " + TABLE_RESUME, null);
+        LongIntHashMap map = new LongIntHashMap(cursor.getCount());
         if (cursor.moveToFirst()) {
             do {
                 map.put(cursor.getLong(0), cursor.getInt(1));
@@ -155,5 +264,218 @@ public class MovieDatabaseHelper extends SQLiteOpenHelper {
         return map;
     }
 
+    // --- CACHÉ PERSISTENTE DE RESULTADOS ---
+    public static class CachedResult {
+        public final List<Movie> movies;
+        public final long fetchedAt;
+        public final String nextCursor; // PageCursor.toToken() de la página siguiente, o null
+
+        CachedResult(List<Movie> movies, long fetchedAt, String nextCursor) {
+            this.movies = movies;
+            this.fetchedAt = fetchedAt;
+            this.nextCursor = nextCursor;
+        }
 
+        public boolean isFresh(long ttlMs) {
+            return System.currentTimeMillis() - fetchedAt < ttlMs;
+        }
+    }
+
+    // Cada película con todas las sinopsis que traiga (normalmente la del idioma actual)
+    public void saveQueryResult(String key, Collection<Movie> movies, String nextCursor) {
+        long now = System.currentTimeMillis();
+        SQLiteDatabase db = this.getWritableDatabase();
+        db.beginTransaction();
+        try {
+            StringBuilder ids = new StringBuilder();
+            ContentValues values = new ContentValues();
+            for (Movie m : movies) {
+                if (ids.length() > 0) ids.append(',');
+                ids.append(m.getId());
+
+                values.clear();
+                values.put(COLUMN_ID, m.getId());
+                values.put(COLUMN_TITLE, m.getTitle());
+                values.put(COLUMN_RUNTIME, m.getDuration());
+                values.put(COLUMN_POSTER_PATH, m.getPosterUrl());
+                values.put(COLUMN_GENRES, TextUtils.join(",", m.getGenres()));
+                values.put(COLUMN_CACHED_AT, now);
+                db.insertWithOnConflict(TABLE_MOVIES, null, values, SQLiteDatabase.CONFLICT_REPLACE);
+
+                for (Map.Entry<String, String> overview : m.getOverviews().entrySet()) {
+                    values.clear();
+                    values.put(COL_MOVIE_ID, m.getId());
+                    values.put(COLUMN_LOCALE, overview.getKey());
+                    values.put(COLUMN_OVERVIEW, overview.getValue());
+                    db.insertWithOnConflict(TABLE_OVERVIEWS, null, values, SQLiteDatabase.CONFLICT_REPLACE);
+                }
+            }
+
+            values.clear();
+            values.put(COL_CACHE_KEY, key);
+            values.put(COL_FETCHED_AT, now);
+            values.put(COL_MOVIE_IDS, ids.toString());
+            values.put(COL_NEXT_CURSOR, nextCursor);
+            db.insertWithOnConflict(TABLE_QUERY_CACHE, null, values, SQLiteDatabase.CONFLICT_REPLACE);
+            db.setTransactionSuccessful();
+        } finally {
+            db.endTransaction();
+        }
+    }
+
+    // Las películas vienen con todas las sinopsis guardadas; Movie.getDescription() elige la del idioma
+    public CachedResult getQueryResult(String key) {
+        SQLiteDatabase db = this.getReadableDatabase();
+        String idList;
+        long fetchedAt;
+        String nextCursor;
+        try (Cursor cursor = db.rawQuery("SELECT " + COL_MOVIE_IDS + ", " + COL_FETCHED_AT + ", " + COL_NEXT_CURSOR + " FROM " + TABLE_QUERY_CACHE +
+                " WHERE " + COL_CACHE_KEY + " = ?", new String[]{key})) {
+            if (!cursor.moveToFirst()) return null;
+            idList = cursor.getString(0);
+            fetchedAt = cursor.getLong(1);
+            nextCursor = cursor.getString(2);
+        }
+        if (idList == null || idList.isEmpty()) return new CachedResult(new ArrayList<>(), fetchedAt, nextCursor);
+
+        Map<Long, Movie> byId = loadMovies(db, idList);
+
+        // Respetamos el orden original del resultado
+        List<Movie> movies = new ArrayList<>();
+        for (String id : idList.split(",")) {
+            Movie movie = byId.get(Long.parseLong(id));
+            if (movie != null) movies.add(movie);
+        }
+        return new CachedResult(movies, fetchedAt, nextCursor);
+    }
+
+    // Películas guardadas, en el orden de 'ids'; las que no estén se saltan
+    public List<Movie> getCachedMovies(long[] ids) {
+        List<Movie> movies = new ArrayList<>(ids.length);
+        if (ids.length == 0) return movies;
+        StringBuilder idList = new StringBuilder();
+        for (long id : ids) {
+            if (idList.length() > 0) idList.append(',');
+            idList.append(id);
+        }
+        Map<Long, Movie> byId = loadMovies(this.getReadableDatabase(), idList.toString());
+        for (long id : ids) {
+            Movie movie = byId.get(id);
+            if (movie != null) movies.add(movie);
+        }
+        return movies;
+    }
+
+    // Una fila por película e idioma guardado (o una sin sinopsis si no hay ninguno)
+    private static Map<Long, Movie> loadMovies(SQLiteDatabase db, String idList) {
+        Map<Long, Movie> byId = new HashMap<>();
+        try (Cursor cursor = db.rawQuery("SELECT m." + COLUMN_ID + ", m." + COLUMN_TITLE + ", m." + COLUMN_RUNTIME + ", m." +
+                COLUMN_POSTER_PATH + ", m." + COLUMN_GENRES + ", o." + COLUMN_LOCALE + ", o." + COLUMN_OVERVIEW +
+                " FROM " + TABLE_MOVIES + " m LEFT JOIN " + TABLE_OVERVIEWS + " o ON o." + COL_MOVIE_ID + " = m." + COLUMN_ID +
+                " WHERE m." + COLUMN_ID + " IN (" + idList + ")", null)) {
+            while (cursor.moveToNext()) {
+                Movie movie = byId.get(cursor.getLong(0));
+                if (movie != null) {
+                    movie.putOverview(cursor.getString(5), cursor.getString(6));
+                    continue;
+                }
+                String genres = cursor.getString(4);
+                List<String> genreList = new ArrayList<>();
+                if (genres != null && !genres.isEmpty()) genreList.addAll(Arrays.asList(genres.split(",")));
+                movie = new Movie(cursor.getLong(0), cursor.getString(1), cursor.getString(3),
+                        cursor.getString(6), cursor.getString(2), genreList, cursor.getString(5));
+                byId.put(movie.getId(), movie);
+            }
+        }
+        return byId;
+    }
+
+    // Sinopsis guardadas en 'locale' de esas películas; las que falten no están en el mapa
+    public Map<Long, String> getOverviews(long[] ids, String locale) {
+        Map<Long, String> overviews = new HashMap<>();
+        if (ids.length == 0) return overviews;
+        StringBuilder idList = new StringBuilder();
+        for (long id : ids) {
+            if (idList.length() > 0) idList.append(',');
+            idList.append(id);
+        }
+        try (Cursor cursor = this.getReadableDatabase().rawQuery("SELECT " + COL_MOVIE_ID + ", " + COLUMN_OVERVIEW +
+                " FROM " + TABLE_OVERVIEWS + " WHERE " + COLUMN_LOCALE + " = ? AND " + COL_MOVIE_ID + " IN (" + idList + ")",
+                new String[]{locale})) {
+            while (cursor.moveToNext()) overviews.put(cursor.getLong(0), cursor.getString(1));
+        }
+        return overviews;
+    }
+
+    // Solo las de películas guardadas: las demás solo existen en memoria
+    public void saveOverviews(Map<Long, String> overviews, String locale) {
+        if (overviews.isEmpty()) return;
+        SQLiteDatabase db = this.getWritableDatabase();
+        db.beginTransaction();
+        try (SQLiteStatement insert = db.compileStatement("INSERT OR REPLACE INTO " + TABLE_OVERVIEWS +
+                " (" + COL_MOVIE_ID + ", " + COLUMN_LOCALE + ", " + COLUMN_OVERVIEW + ")" +
+                " SELECT ?, ?, ? WHERE EXISTS (SELECT 1 FROM " + TABLE_MOVIES + " WHERE " + COLUMN_ID + " = ?)")) {
+            for (Map.Entry<Long, String> entry : overviews.entrySet()) {
+                insert.bindLong(1, entry.getKey());
+                insert.bindString(2, locale);
+                if (entry.getValue() != null) insert.bindString(3, entry.getValue());
+                else insert.bindNull(3);
+                insert.bindLong(4, entry.getKey());
+                insert.executeInsert();
+            }
+            db.setTransactionSuccessful();
+        } finally {
+            db.endTransaction();
+        }
+    }
+
+    // Firmas guardadas con la versión actual del índice; las de otra versión se ignoran y se
+    // recalculan según vuelven a pasar las películas
+    public Map<Long, int[]> getSignatures() {
+        SQLiteDatabase db = this.getReadableDatabase();
+        Map<Long, int[]> signatures = new HashMap<>();
+        try (Cursor cursor = db.rawQuery("SELECT " + COL_MOVIE_ID + ", " + COL_SIGNATURE + " FROM " + TABLE_SIMILARITY +
+                " WHERE " + COL_VERSION + " = ?", new String[]{String.valueOf(SimilarityIndex.VERSION)})) {
+            while (cursor.moveToNext()) {
+                int[] signature = SimilarityIndex.decode(cursor.getBlob(1));
+                if (signature != null) signatures.put(cursor.getLong(0), signature);
+            }
+        }
+        return signatures;
+    }
+
+    private SQLiteStatement insertSignature;
+
+    // Solo desde el hilo de BD, como applyUserWrites
+    public void saveSignatures(Map<Long, int[]> signatures) {
+        if (signatures.isEmpty()) return;
+        SQLiteDatabase db = this.getWritableDatabase();
+        if (insertSignature == null) {
+            insertSignature = db.compileStatement("INSERT OR REPLACE INTO " + TABLE_SIMILARITY + " (" + COL_MOVIE_ID + ", " +
+                    COL_VERSION + ", " + COL_SIGNATURE + ") VALUES (?, ?, ?)");
+        }
+        db.beginTransaction();
+        try {
+            for (Map.Entry<Long, int[]> entry : signatures.entrySet()) {
+                insertSignature.bindLong(1, entry.getKey());
+                insertSignature.bindLong(2, SimilarityIndex.VERSION);
+                insertSignature.bindBlob(3, SimilarityIndex.encode(entry.getValue()));
+                insertSignature.executeInsert();
+            }
+            db.setTransactionSuccessful();
+        } finally {
+            db.endTransaction();
+        }
+    }
+
+    // Borra consultas viejas y las películas que solo ellas referenciaban
+    public void pruneQueryCache(long maxAgeMs) {
+        long cutoff = System.currentTimeMillis() - maxAgeMs;
+        SQLiteDatabase db = this.getWritableDatabase();
+        db.delete(TABLE_QUERY_CACHE, COL_FETCHED_AT + " < ?", new String[]{String.valueOf(cutoff)});
+        db.delete(TABLE_MOVIES, COLUMN_CACHED_AT + " IS NULL OR " + COLUMN_CACHED_AT + " < ?", new String[]{String.valueOf(cutoff)});
+        db.delete(TABLE_OVERVIEWS, COL_MOVIE_ID + " NOT IN (SELECT " + COLUMN_ID + " FROM " + TABLE_MOVIES + ")", null);
+        // Sin la película no hay nada que enseñar como parecida
+        db.delete(TABLE_SIMILARITY, COL_MOVIE_ID + " NOT IN (SELECT " + COLUMN_ID + " FROM " + TABLE_MOVIES + ")", null);
+    }
 }
\ No newline at end of file
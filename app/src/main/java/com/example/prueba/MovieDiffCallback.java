@@ -0,0 +1,20 @@
+package com.example.prueba;
+
+import androidx.recyclerview.widget.DiffUtil;
+
+// Diff de las listas de películas: es la misma si coincide el id y no hay que repintarla si se ve
+// igual (hasSameContent). Los flags de watchlist/vista no salen en los pósters.
+public class MovieDiffCallback extends DiffUtil.ItemCallback<Movie> {
+
+    public static final MovieDiffCallback INSTANCE = new MovieDiffCallback();
+
+    @Override
+    public boolean areItemsTheSame(Movie oldItem, Movie newItem) {
+        return oldItem.getId() == newItem.getId();
+    }
+
+    @Override
+    public boolean areContentsTheSame(Movie oldItem, Movie newItem) {
+        return oldItem.hasSameContent(newItem);
+    }
+}
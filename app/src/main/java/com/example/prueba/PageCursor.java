@@ -0,0 +1,57 @@
+package com.example.prueba;
+
+// Posición opaca para paginar por clave (keyset) en vez de con OFFSET: guarda la clave de
+// ordenación de la última fila entregada y la siguiente página empieza justo después, así
+// la página N cuesta lo mismo que la primera. Solo TursoClient sabe qué hay dentro;
+// DataRepository y los fragments se limitan a guardarla y devolverla.
+public final class PageCursor {
+
+    // Primera página de cualquier consulta
+    public static final PageCursor FIRST = new PageCursor(0, 0, 0, false);
+
+    private final long afterRowId;
+    private final int afterPrefix;   // 1 si el título empezaba por el primer término (búsqueda FTS)
+    private final double afterRank;  // bm25 de la última fila (búsqueda FTS)
+    private final boolean hasRank;
+
+    private PageCursor(long afterRowId, int afterPrefix, double afterRank, boolean hasRank) {
+        this.afterRowId = afterRowId;
+        this.afterPrefix = afterPrefix;
+        this.afterRank = afterRank;
+        this.hasRank = hasRank;
+    }
+
+    static PageCursor afterRow(long rowId) {
+        return new PageCursor(rowId, 0, 0, false);
+    }
+
+    static PageCursor afterRanked(long rowId, int prefix, double rank) {
+        return new PageCursor(rowId, prefix, rank, true);
+    }
+
+    boolean isFirst() { return this == FIRST; }
+    long getAfterRowId() { return afterRowId; }
+    int getAfterPrefix() { return afterPrefix; }
+    double getAfterRank() { return afterRank; }
+    boolean hasRank() { return hasRank; }
+
+    // Para guardarlo junto a la página en la caché persistente
+    public String toToken() {
+        if (isFirst()) return "first";
+        return hasRank ? afterRowId + ":" + afterPrefix + ":" + afterRank : String.valueOf(afterRowId);
+    }
+
+    public static PageCursor fromToken(String token) {
+        if (token == null || token.isEmpty()) return null;
+        if (token.equals("first")) return FIRST;
+        try {
+            String[] parts = token.split(":");
+            if (parts.length == 3) {
+                return afterRanked(Long.parseLong(parts[0]), Integer.parseInt(parts[1]), Double.parseDouble(parts[2]));
+            }
+            return afterRow(Long.parseLong(parts[0]));
+        } catch (NumberFormatException e) {
+            return null;
+        }
+    }
+}
@@ -0,0 +1,43 @@
+package com.example.prueba;
+
+import android.content.Context;
+import android.graphics.drawable.Drawable;
+import com.bumptech.glide.RequestBuilder;
+import com.bumptech.glide.RequestManager;
+import com.bumptech.glide.load.DecodeFormat;
+import com.bumptech.glide.request.RequestOptions;
+
+// Peticiones de Glide para los pósters. Se pide a TMDB el tamaño que corresponde al ancho de
+// destino (PosterUrls) y se decodifica ya a ese tamaño en RGB_565: los pósters son JPEG opacos y
+// así cada bitmap ocupa la mitad. La precarga usa exactamente la misma petición que el bind,
+// que es lo que hace que luego se encuentre en la caché de memoria.
+public final class PosterImages {
+
+    private static final RequestOptions THUMBNAIL = new RequestOptions()
+            .centerCrop()
+            .format(DecodeFormat.PREFER_RGB_565)
+            .placeholder(android.R.drawable.ic_menu_gallery);
+
+    // El fondo del detalle va con alpha 0.6 detrás del contenido: con media resolución basta
+    private static final RequestOptions BACKDROP = new RequestOptions()
+            .centerCrop()
+            .format(DecodeFormat.PREFER_RGB_565);
+
+    private PosterImages() {}
+
+    public static RequestBuilder<Drawable> thumbnail(RequestManager glide, Movie movie, int widthPx, int heightPx) {
+        return glide.load(PosterUrls.forWidth(movie.getPosterUrl(), widthPx))
+                .apply(THUMBNAIL)
+                .override(widthPx, heightPx);
+    }
+
+    public static RequestBuilder<Drawable> backdrop(RequestManager glide, Movie movie, int widthPx, int heightPx) {
+        return glide.load(PosterUrls.forWidth(movie.getBackdropUrl(), widthPx / 2))
+                .apply(BACKDROP)
+                .override(widthPx / 2, heightPx / 2);
+    }
+
+    public static int dpToPx(Context context, int dp) {
+        return Math.round(dp * context.getResources().getDisplayMetrics().density);
+    }
+}
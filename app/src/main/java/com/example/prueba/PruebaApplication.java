@@ -0,0 +1,34 @@
+package com.example.prueba;
+
+import android.app.Application;
+import android.content.SharedPreferences;
+import java.util.Locale;
+
+// Arranque: antes de que exista ninguna Activity se abre la conexión con Turso, se empieza a leer
+// el estado local en segundo plano y se lanza la carga de la portada. Mientras tanto MainActivity
+// infla su layout; HomeFragment se apunta al refresco que ya está en marcha.
+public class PruebaApplication extends Application {
+
+    @Override
+    public void onCreate() {
+        super.onCreate();
+        StartupTrace.mark("app_create");
+
+        // Las consultas eligen el overview según el idioma por defecto: tiene que estar puesto ya
+        SharedPreferences prefs = getSharedPreferences("Settings", MODE_PRIVATE);
+        String language = prefs.getString("My_Lang", "");
+        if (!language.equals("")) Locale.setDefault(new Locale(language));
+
+        DataRepository repo = DataRepository.getInstance();
+        repo.prewarmConnection();
+        repo.init(this);
+        repo.refreshMovies(null);
+    }
+
+    // La interfaz ya no se ve: lo que quede en la cola de escritura va a disco ahora
+    @Override
+    public void onTrimMemory(int level) {
+        super.onTrimMemory(level);
+        if (level >= TRIM_MEMORY_UI_HIDDEN) DataRepository.getInstance().flushPendingWrites();
+    }
+}
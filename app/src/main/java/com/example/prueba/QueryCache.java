@@ -0,0 +1,70 @@
+package com.example.prueba;
+
+import android.os.Handler;
+import android.os.Looper;
+import android.util.Log;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+
+// Caché persistente (movies.db) de resultados de Turso, por consulta. Las películas se guardan
+// con sus sinopsis por idioma, así que lo guardado sigue valiendo tras cambiar de idioma.
+// Las lecturas y escrituras van al hilo de base de datos de DataRepository (en orden, detrás de la
+// carga del estado local); los resultados se entregan en el hilo principal.
+public class QueryCache {
+    public static final String KEY_HOME = "home";
+    public static final long HOME_TTL_MS = 30 * 60 * 1000L;
+    public static final long SEARCH_TTL_MS = 10 * 60 * 1000L;
+    private static final long MAX_AGE_MS = 7 * 24 * 60 * 60 * 1000L;
+
+    public interface Callback {
+        void onResult(MovieDatabaseHelper.CachedResult cached); // null si no hay nada guardado
+    }
+
+    private final MovieDatabaseHelper dbHelper;
+    private final ExecutorService executor;
+    private final Handler mainHandler;
+
+    public QueryCache(MovieDatabaseHelper dbHelper, ExecutorService executor) {
+        this.dbHelper = dbHelper;
+        this.executor = executor;
+        this.mainHandler = new Handler(Looper.getMainLooper());
+        executor.execute(() -> {
+            try {
+                dbHelper.pruneQueryCache(MAX_AGE_MS);
+            } catch (Exception e) {
+                Log.e("QueryCache", "Prune failed", e);
+            }
+        });
+    }
+
+    public static String searchKey(String query, PageCursor cursor, int limit) {
+        return "search:" + query.trim().toLowerCase() + ":" + limit + ":" + cursor.toToken();
+    }
+
+    public void get(String key, Callback callback) {
+        executor.execute(() -> {
+            MovieDatabaseHelper.CachedResult cached = null;
+            try {
+                cached = dbHelper.getQueryResult(key);
+            } catch (Exception e) {
+                Log.e("QueryCache", "Read failed: " + key, e);
+            }
+            MovieDatabaseHelper.CachedResult result = cached;
+            mainHandler.post(() -> callback.onResult(result));
+        });
+    }
+
+    public void put(String key, Collection<Movie> movies, PageCursor next) {
+        List<Movie> snapshot = new ArrayList<>(movies);
+        String nextToken = (next != null) ? next.toToken() : null;
+        executor.execute(() -> {
+            try {
+                dbHelper.saveQueryResult(key, snapshot, nextToken);
+            } catch (Exception e) {
+                Log.e("QueryCache", "Write failed: " + key, e);
+            }
+        });
+    }
+}
@@ -0,0 +1,38 @@
+package com.example.prueba;
+
+import java.util.ArrayList;
+import java.util.List;
+
+// Lo que devuelve cada consulta: permite anularla. Al cancelar se corta la llamada HTTP si sigue
+// en marcha, no se parsea lo que quede y ningún callback de esa consulta llega a ejecutarse.
+public class QueryHandle {
+    private volatile boolean cancelled;
+    private List<Runnable> cancelActions = new ArrayList<>();
+
+    public void cancel() {
+        List<Runnable> actions;
+        synchronized (this) {
+            if (cancelled) return;
+            cancelled = true;
+            actions = cancelActions;
+            cancelActions = null;
+        }
+        for (Runnable action : actions) action.run();
+    }
+
+    public boolean isCancelled() {
+        return cancelled;
+    }
+
+    // Se ejecuta al cancelar (o ya mismo si estaba cancelada): cortar un Call, cancelar una
+    // consulta hija, quitar un callback de una lista de espera...
+    void onCancel(Runnable action) {
+        synchronized (this) {
+            if (!cancelled) {
+                cancelActions.add(action);
+                return;
+            }
+        }
+        action.run();
+    }
+}
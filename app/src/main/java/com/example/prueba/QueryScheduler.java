@@ -0,0 +1,140 @@
+package com.example.prueba;
+
+import android.os.SystemClock;
+import android.util.Log;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
+// Cola de consultas de TursoClient con un número fijo de hilos y tres clases de prioridad.
+// Cada clase tiene su propio tope de hilos y las que no son interactivas nunca pueden ocupar
+// todos a la vez, así que una búsqueda siempre encuentra hueco aunque haya relleno de fondo.
+public class QueryScheduler {
+
+    public enum Priority {
+        INTERACTIVE, // lo que el usuario está esperando ahora mismo (búsqueda)
+        VISIBLE,     // filas de la portada que se están pintando
+        BACKGROUND   // precarga y relleno especulativo
+    }
+
+    private static final int MAX_THREADS = 4;
+    // Hilos máximos por clase (VISIBLE + BACKGROUND < MAX_THREADS: siempre queda uno para INTERACTIVE)
+    private static final int[] CLASS_LIMITS = {MAX_THREADS, 2, 1};
+    // Más espera en cola que esto se deja en el log
+    private static final long SLOW_QUEUE_MS = 200;
+
+    // Una consulta esperando turno; se puede subir de prioridad mientras no haya empezado
+    public class Task {
+        private final Runnable work;
+        private Priority priority;
+        private final long enqueuedAt = SystemClock.elapsedRealtime();
+        private boolean started;
+        private volatile long queueMs;
+
+        private Task(Runnable work, Priority priority) {
+            this.work = work;
+            this.priority = priority;
+        }
+
+        // Tiempo que pasó en cola antes de coger hilo (válido desde que empieza a ejecutarse)
+        public long getQueueMs() {
+            return queueMs;
+        }
+    }
+
+    private final ExecutorService workers;
+    // Una cola por clase, en el orden de Priority
+    private final List<ArrayDeque<Task>> queues = new ArrayList<>();
+    private final int[] running = new int[Priority.values().length];
+    private int totalRunning;
+
+    // Métricas de tiempo en cola por clase
+    private final long[] dispatched = new long[Priority.values().length];
+    private final long[] totalQueueMs = new long[Priority.values().length];
+    private final long[] maxQueueMs = new long[Priority.values().length];
+
+    public QueryScheduler() {
+        AtomicInteger threadCount = new AtomicInteger();
+        workers = Executors.newFixedThreadPool(MAX_THREADS,
+                r -> new Thread(r, "turso-query-" + threadCount.incrementAndGet()));
+        for (int i = 0; i < Priority.values().length; i++) queues.add(new ArrayDeque<>());
+    }
+
+    public Task submit(Priority priority, Runnable work) {
+        Task task = new Task(work, priority);
+        synchronized (this) {
+            queues.get(priority.ordinal()).addLast(task);
+        }
+        dispatch();
+        return task;
+    }
+
+    // Si alguien más urgente se apunta a una consulta que aún está en cola, la adelantamos
+    public void promote(Task task, Priority priority) {
+        synchronized (this) {
+            if (task.started || priority.ordinal() >= task.priority.ordinal()) return;
+            queues.get(task.priority.ordinal()).remove(task);
+            task.priority = priority;
+            queues.get(priority.ordinal()).addLast(task);
+        }
+        dispatch();
+    }
+
+    private void dispatch() {
+        while (true) {
+            Task next = null;
+            synchronized (this) {
+                if (totalRunning >= MAX_THREADS) return;
+                for (int p = 0; p < queues.size() && next == null; p++) {
+                    if (!queues.get(p).isEmpty() && running[p] < CLASS_LIMITS[p]) next = queues.get(p).pollFirst();
+                }
+                if (next == null) return;
+                next.started = true;
+                running[next.priority.ordinal()]++;
+                totalRunning++;
+                recordQueueTime(next);
+            }
+            Task task = next;
+            workers.execute(() -> {
+                try {
+                    task.work.run();
+                } finally {
+                    synchronized (QueryScheduler.this) {
+                        running[task.priority.ordinal()]--;
+                        totalRunning--;
+                    }
+                    dispatch();
+                }
+            });
+        }
+    }
+
+    private void recordQueueTime(Task task) {
+        int p = task.priority.ordinal();
+        long waited = SystemClock.elapsedRealtime() - task.enqueuedAt;
+        task.queueMs = waited;
+        dispatched[p]++;
+        totalQueueMs[p] += waited;
+        if (waited > maxQueueMs[p]) maxQueueMs[p] = waited;
+        if (waited > SLOW_QUEUE_MS) {
+            Log.w("QueryScheduler", task.priority + " query waited " + waited + " ms in queue");
+        }
+    }
+
+    // "INTERACTIVE n=12 avg=3ms max=40ms queued=0 | ..." para el log o la pantalla de ajustes
+    public synchronized String getQueueStats() {
+        StringBuilder sb = new StringBuilder();
+        for (Priority priority : Priority.values()) {
+            int p = priority.ordinal();
+            if (sb.length() > 0) sb.append(" | ");
+            sb.append(priority).append(" n=").append(dispatched[p])
+                    .append(" avg=").append(dispatched[p] == 0 ? 0 : totalQueueMs[p] / dispatched[p]).append("ms")
+                    .append(" max=").append(maxQueueMs[p]).append("ms")
+                    .append(" queued=").append(queues.get(p).size());
+        }
+        return sb.toString();
+    }
+}
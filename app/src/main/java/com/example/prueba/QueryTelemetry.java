@@ -0,0 +1,203 @@
+package com.example.prueba;
+
+import java.io.File;
+import java.io.FileWriter;
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.Writer;
+import java.text.SimpleDateFormat;
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.Date;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import okhttp3.Call;
+import okhttp3.EventListener;
+
+// Métricas de red de TursoClient por forma de consulta (page, genre, search_fts...): tiempo en
+// cola, hasta el primer byte, de transferencia y de parseo, filas y bytes, con percentiles sobre
+// las últimas WINDOW peticiones. Las que pasan de SLOW_QUERY_MS van además a un log acotado que
+// se puede volcar a un fichero desde Ajustes en las builds de depuración.
+public class QueryTelemetry {
+    public static final long SLOW_QUERY_MS = 800;
+    private static final int WINDOW = 128;
+    private static final int SLOW_LOG_SIZE = 50;
+
+    // Lo que se apunta de una petición al pipeline
+    public static class Sample {
+        String shape;
+        List<String> statements; // forLog() de cada sentencia, solo para el log de lentas
+        long timestamp;
+        long queueMs, ttfbMs, transferMs, parseMs, totalMs;
+        int rows;
+        long requestBytes, responseBytes;
+        String error;
+    }
+
+    // Tiempos que va dejando OkHttp durante la llamada; viaja como tag de la Request
+    static class CallMetrics {
+        long callStartNs, headersStartNs;
+        long requestBytes = -1, responseBytes = -1;
+    }
+
+    private final Map<String, ShapeStats> shapes = new LinkedHashMap<>();
+    private final ArrayDeque<Sample> slowLog = new ArrayDeque<>();
+
+    // Se engancha al OkHttpClient: anota cuándo empieza la llamada, cuándo llegan las cabeceras
+    // (primer byte) y cuántos bytes se mandan y se reciben de verdad por la red
+    EventListener.Factory eventListenerFactory() {
+        return call -> {
+            CallMetrics metrics = call.request().tag(CallMetrics.class);
+            if (metrics == null) return EventListener.NONE;
+            return new EventListener() {
+                @Override
+                public void callStart(Call call) {
+                    metrics.callStartNs = System.nanoTime();
+                }
+
+                @Override
+                public void requestBodyEnd(Call call, long byteCount) {
+                    metrics.requestBytes = byteCount;
+                }
+
+                @Override
+                public void responseHeadersStart(Call call) {
+                    metrics.headersStartNs = System.nanoTime();
+                }
+
+                @Override
+                public void responseBodyEnd(Call call, long byteCount) {
+                    metrics.responseBytes = byteCount;
+                }
+            };
+        };
+    }
+
+    // Nombre, SQL con sus ? y cuántos argumentos: los valores pueden ser lo que el usuario buscó y
+    // se quedarían en memoria y en el volcado. Solo las builds de depuración los apuntan.
+    static String forLog(Statement statement) {
+        String line = statement.getName() + ": " + statement.getSql() + " (" + statement.getArgs().size() + " args)";
+        return BuildConfig.DEBUG ? line + " " + statement.getArgs() : line;
+    }
+
+    public synchronized void record(Sample sample) {
+        ShapeStats stats = shapes.get(sample.shape);
+        if (stats == null) {
+            stats = new ShapeStats();
+            shapes.put(sample.shape, stats);
+        }
+        stats.add(sample);
+        if (sample.totalMs >= SLOW_QUERY_MS || sample.error != null) {
+            if (slowLog.size() == SLOW_LOG_SIZE) slowLog.pollFirst();
+            slowLog.addLast(sample);
+        }
+    }
+
+    // Una línea por forma: "search_fts n=40 err=0 total p50/p90/p99=120/340/900ms ttfb=... rows~14 bytes~9.2KB"
+    public synchronized String summary() {
+        StringBuilder sb = new StringBuilder();
+        for (Map.Entry<String, ShapeStats> entry : shapes.entrySet()) {
+            ShapeStats s = entry.getValue();
+            sb.append(entry.getKey()).append(" n=").append(s.count).append(" err=").append(s.errors)
+                    .append(" total=").append(s.total.percentiles())
+                    .append(" queue=").append(s.queue.percentiles())
+                    .append(" ttfb=").append(s.ttfb.percentiles())
+                    .append(" transfer=").append(s.transfer.percentiles())
+                    .append(" parse=").append(s.parse.percentiles())
+                    .append(" rows~").append(s.count == 0 ? 0 : s.rowSum / s.count)
+                    .append(" bytes~").append(s.count == 0 ? 0 : s.byteSum / s.count)
+                    .append('\n');
+        }
+        return sb.toString();
+    }
+
+    public synchronized void dumpTo(File file) throws IOException {
+        SimpleDateFormat format = new SimpleDateFormat("yyyy-MM-dd HH:mm:ss.SSS", Locale.US);
+        try (Writer out = new FileWriter(file)) {
+            out.write("# Turso query telemetry (percentiles p50/p90/p99 in ms over the last " + WINDOW + " requests)\n");
+            out.write(summary());
+            out.write("\n# Slow or failed requests (>= " + SLOW_QUERY_MS + " ms), oldest first\n");
+            for (Sample s : slowLog) {
+                out.write(format.format(new Date(s.timestamp)) + " " + s.shape + " total=" + s.totalMs
+                        + "ms queue=" + s.queueMs + " ttfb=" + s.ttfbMs + " transfer=" + s.transferMs
+                        + " parse=" + s.parseMs + " rows=" + s.rows + " req=" + s.requestBytes
+                        + "B resp=" + s.responseBytes + "B" + (s.error != null ? " error=" + s.error : "") + "\n");
+                for (String statement : s.statements) out.write("    " + statement + "\n");
+            }
+        }
+    }
+
+    private static class ShapeStats {
+        final Window total = new Window(), queue = new Window(), ttfb = new Window();
+        final Window transfer = new Window(), parse = new Window();
+        long count, errors, rowSum, byteSum;
+
+        void add(Sample s) {
+            count++;
+            if (s.error != null) errors++;
+            rowSum += s.rows;
+            byteSum += Math.max(s.responseBytes, 0);
+            total.add(s.totalMs);
+            queue.add(s.queueMs);
+            ttfb.add(s.ttfbMs);
+            transfer.add(s.transferMs);
+            parse.add(s.parseMs);
+        }
+    }
+
+    // Últimos WINDOW valores en un anillo; los percentiles se calculan al pedirlos
+    private static class Window {
+        private final long[] values = new long[WINDOW];
+        private int size, next;
+
+        void add(long value) {
+            values[next] = value;
+            next = (next + 1) % WINDOW;
+            if (size < WINDOW) size++;
+        }
+
+        String percentiles() {
+            if (size == 0) return "-";
+            long[] sorted = Arrays.copyOf(values, size);
+            Arrays.sort(sorted);
+            return at(sorted, 50) + "/" + at(sorted, 90) + "/" + at(sorted, 99) + "ms";
+        }
+
+        private static long at(long[] sorted, int percentile) {
+            int index = (int) Math.ceil(percentile / 100.0 * sorted.length) - 1;
+            return sorted[Math.max(0, Math.min(index, sorted.length - 1))];
+        }
+    }
+
+    // Cuenta los bytes del cuerpo y el tiempo que el parser pasa bloqueado esperando red; el
+    // resto del tiempo de parseo es CPU nuestra
+    static class TimedInputStream extends FilterInputStream {
+        long bytes;
+        long blockedNs;
+
+        TimedInputStream(InputStream in) {
+            super(in);
+        }
+
+        @Override
+        public int read() throws IOException {
+            long start = System.nanoTime();
+            int b = super.read();
+            blockedNs += System.nanoTime() - start;
+            if (b != -1) bytes++;
+            return b;
+        }
+
+        @Override
+        public int read(byte[] buffer, int offset, int length) throws IOException {
+            long start = System.nanoTime();
+            int n = super.read(buffer, offset, length);
+            blockedNs += System.nanoTime() - start;
+            if (n > 0) bytes += n;
+            return n;
+        }
+    }
+}
@@ -0,0 +1,172 @@
+package com.example.prueba;
+
+import android.os.Handler;
+import android.os.Looper;
+import android.util.Log;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+// Mantiene CatalogReplica al día con Turso en páginas de PAGE_SIZE filas y prioridad BACKGROUND:
+//  1. Copia inicial por rowid (se reanuda donde se quedó si la app se cierra a medias). Antes de
+//     empezar se apunta el último seq de peliculas_changes.
+//  2. Deltas: los cambios con seq mayor que el último aplicado, con la fila actual al lado.
+// Cada página se aplica en una transacción junto con su watermark. Sin la migración 002 en el
+// servidor no hay deltas y la réplica se queda desactivada.
+class ReplicaSync {
+    static final int PAGE_SIZE = 500;
+
+    private static final String MAX_SEQ_SQL = "SELECT COALESCE(MAX(seq), 0) AS seq FROM peliculas_changes";
+    private static final String SNAPSHOT_SQL = "SELECT " + CatalogReplica.REMOTE_COLUMNS
+            + " FROM peliculas WHERE rowid > ? ORDER BY rowid LIMIT ?";
+    // min_seq detecta si el servidor ha purgado cambios que aún no habíamos aplicado
+    private static final String CHANGES_SQL = "SELECT c.seq, c.movie_rowid AS rowid, c.deleted,"
+            + " p.title, p.runtime, p.overview, p.overview_es, p.poster_path, p.genres,"
+            + " (SELECT MIN(seq) FROM peliculas_changes) AS min_seq"
+            + " FROM peliculas_changes c LEFT JOIN peliculas p ON p.rowid = c.movie_rowid"
+            + " WHERE c.seq > ? ORDER BY c.seq LIMIT ?";
+
+    private final TursoClient client;
+    private final CatalogReplica replica;
+    // Único hilo que escribe en la réplica
+    private final ExecutorService writer = Executors.newSingleThreadExecutor(r -> new Thread(r, "catalog-replica"));
+    private final Handler mainHandler = new Handler(Looper.getMainLooper());
+
+    // Solo desde el hilo principal
+    private boolean running;
+    private boolean stateLoaded;
+    private volatile boolean unsupported;
+
+    ReplicaSync(TursoClient client, CatalogReplica replica) {
+        this.client = client;
+        this.replica = replica;
+    }
+
+    boolean isUnsupported() {
+        return unsupported;
+    }
+
+    // Lanza una sincronización si no hay otra en marcha
+    void sync() {
+        if (running || unsupported) return;
+        running = true;
+        if (!stateLoaded) {
+            onWriter(replica::loadState, () -> {
+                stateLoaded = true;
+                resume();
+            });
+        } else {
+            resume();
+        }
+    }
+
+    private void resume() {
+        if (replica.isComplete()) {
+            pullChanges();
+        } else if (replica.getBootstrapAfter() > 0) {
+            pullSnapshot(replica.getBootstrapAfter());
+        } else {
+            startBootstrap();
+        }
+    }
+
+    private void startBootstrap() {
+        client.executeRows(new Statement(MAX_SEQ_SQL).named("replica_seq"), QueryScheduler.Priority.BACKGROUND,
+                new TursoClient.RowsCallback() {
+                    @Override
+                    public void onRows(List<String> columns, List<String[]> rows) {
+                        long seq = rows.isEmpty() ? 0 : Long.parseLong(rows.get(0)[0]);
+                        onWriter(() -> replica.beginBootstrap(seq), () -> pullSnapshot(0));
+                    }
+
+                    @Override
+                    public void onError(Exception e) {
+                        fail(e);
+                    }
+                });
+    }
+
+    private void pullSnapshot(long afterRowId) {
+        client.executeRows(new Statement(SNAPSHOT_SQL, afterRowId, PAGE_SIZE).named("replica_snapshot"),
+                QueryScheduler.Priority.BACKGROUND, new TursoClient.RowsCallback() {
+                    @Override
+                    public void onRows(List<String> columns, List<String[]> rows) {
+                        boolean last = rows.size() < PAGE_SIZE;
+                        long lastRowId = rows.isEmpty() ? afterRowId
+                                : Long.parseLong(rows.get(rows.size() - 1)[columns.indexOf("rowid")]);
+                        onWriter(() -> replica.applySnapshotPage(columns, rows, lastRowId, last), () -> {
+                            if (last) pullChanges();
+                            else pullSnapshot(lastRowId);
+                        });
+                    }
+
+                    @Override
+                    public void onError(Exception e) {
+                        fail(e);
+                    }
+                });
+    }
+
+    private void pullChanges() {
+        long afterSeq = replica.getChangeSeq();
+        client.executeRows(new Statement(CHANGES_SQL, afterSeq, PAGE_SIZE).named("replica_changes"),
+                QueryScheduler.Priority.BACKGROUND, new TursoClient.RowsCallback() {
+                    @Override
+                    public void onRows(List<String> columns, List<String[]> rows) {
+                        if (!rows.isEmpty()) {
+                            long minSeq = Long.parseLong(rows.get(0)[columns.indexOf("min_seq")]);
+                            if (minSeq > afterSeq + 1) {
+                                // Nos faltan cambios que ya no están en el servidor: copia desde cero
+                                Log.w("ReplicaSync", "Change log purged past seq " + afterSeq + ", copying again");
+                                startBootstrap();
+                                return;
+                            }
+                        }
+                        boolean last = rows.size() < PAGE_SIZE;
+                        onWriter(() -> {
+                            replica.applyChanges(columns, rows);
+                            if (last) replica.markSynced(System.currentTimeMillis());
+                        }, () -> {
+                            if (last) finish();
+                            else pullChanges();
+                        });
+                    }
+
+                    @Override
+                    public void onError(Exception e) {
+                        fail(e);
+                    }
+                });
+    }
+
+    private void finish() {
+        running = false;
+        StartupTrace.mark("replica_synced");
+    }
+
+    private void fail(Exception e) {
+        running = false;
+        String msg = String.valueOf(e.getMessage());
+        if (msg.contains("peliculas_changes")) {
+            // La base no tiene la migración 002: sin deltas no mantenemos réplica
+            Log.w("ReplicaSync", "No change log on the server, replica disabled: " + msg);
+            unsupported = true;
+        } else {
+            Log.w("ReplicaSync", "Sync failed, will retry later: " + msg);
+        }
+    }
+
+    // Escribe en el hilo de la réplica y sigue en el principal
+    private void onWriter(Runnable write, Runnable then) {
+        writer.execute(() -> {
+            try {
+                write.run();
+            } catch (Exception e) {
+                Log.e("ReplicaSync", "Replica write failed", e);
+                mainHandler.post(() -> running = false);
+                return;
+            }
+            mainHandler.post(then);
+        });
+    }
+}
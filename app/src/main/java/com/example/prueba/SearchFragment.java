@@ -29,7 +29,7 @@ public class SearchFragment extends Fragment {
     private ProgressBar loadingIndicator;
 
     // Variables de control
-    private int currentOffset = 0;
+    private PageCursor nextCursor = null; // Dónde empieza la siguiente página (null si no hay más)
     private String currentQuery = "";
     private static final int PAGE_SIZE = 15; // Límite de 15 peliculas
 
@@ -37,6 +37,11 @@ public class SearchFragment extends Fragment {
     private Handler searchHandler = new Handler(Looper.getMainLooper());
     private Runnable searchRunnable;
 
+    // Búsqueda en curso; se cancela en cuanto hay texto nuevo o se destruye la vista
+    private QueryHandle searchHandle;
+    // Solo se pintan resultados de la última búsqueda lanzada, aunque una anterior llegue tarde
+    private int searchGeneration = 0;
+
     @Nullable
     @Override
     public View onCreateView(@NonNull LayoutInflater inflater, @Nullable ViewGroup container, @Nullable Bundle savedInstanceState) {
@@ -47,10 +52,12 @@ public class SearchFragment extends Fragment {
         btnLoadMore = view.findViewById(R.id.btn_load_more_search);
         loadingIndicator = view.findViewById(R.id.search_loading_indicator);
 
-        recyclerView.setLayoutManager(new GridLayoutManager(getContext(), 3));
+        recyclerView.setLayoutManager(new GridLayoutManager(getContext(), MovieAdapter.GRID_COLUMNS));
 
         adapter = new MovieAdapter(getContext(), currentResults);
         recyclerView.setAdapter(adapter);
+        // Tres filas por delante en el sentido del scroll
+        recyclerView.addOnScrollListener(adapter.createPreloader(3 * MovieAdapter.GRID_COLUMNS));
 
         updateList("");
 
@@ -61,6 +68,7 @@ public class SearchFragment extends Fragment {
             @Override
             public void onTextChanged(CharSequence s, int start, int before, int count) {
                 if (searchRunnable != null) searchHandler.removeCallbacks(searchRunnable);
+                cancelSearch();
             }
 
             @Override
@@ -77,9 +85,27 @@ public class SearchFragment extends Fragment {
         return view;
     }
 
+    @Override
+    public void onDestroyView() {
+        super.onDestroyView();
+        if (searchRunnable != null) searchHandler.removeCallbacks(searchRunnable);
+        cancelSearch();
+    }
+
+    private void cancelSearch() {
+        searchGeneration++;
+        if (searchHandle != null) {
+            searchHandle.cancel();
+            searchHandle = null;
+        }
+    }
+
     private void updateList(String query) {
+        cancelSearch();
         currentQuery = query.trim();
-        currentOffset = 0;
+        nextCursor = null;
+        btnLoadMore.setText("Load More Results");
+        btnLoadMore.setEnabled(true);
 
         if (currentQuery.isEmpty()) {
             btnLoadMore.setVisibility(View.GONE);
@@ -94,8 +120,8 @@ public class SearchFragment extends Fragment {
     }
 
     private void loadMore() {
-        // Avanzamos el offset en bloques de 15
-        currentOffset += PAGE_SIZE;
+        // Seguimos desde la última película recibida, en bloques de 15
+        if (nextCursor == null) return;
         performSearch(true);
     }
 
@@ -108,10 +134,14 @@ public class SearchFragment extends Fragment {
             btnLoadMore.setEnabled(false);
         }
 
-        DataRepository.getInstance().searchMovies(currentQuery, PAGE_SIZE, currentOffset, new DataRepository.SearchCallback() {
+        PageCursor cursor = isLoadMore ? nextCursor : PageCursor.FIRST;
+        int generation = searchGeneration;
+        searchHandle = DataRepository.getInstance().searchMovies(currentQuery, cursor, PAGE_SIZE, new DataRepository.SearchCallback() {
             @Override
-            public void onResults(Set<Movie> movies) {
-                if (!isAdded()) return;
+            public void onResults(Set<Movie> movies, PageCursor next) {
+                if (!isAdded() || generation != searchGeneration) return;
+                searchHandle = null;
+                nextCursor = next;
 
                 loadingIndicator.setVisibility(View.GONE);
 
@@ -133,7 +163,7 @@ public class SearchFragment extends Fragment {
                     btnLoadMore.setEnabled(true);
                 }
 
-                if (movies.size() >= PAGE_SIZE) {
+                if (nextCursor != null) {
                     btnLoadMore.setVisibility(View.VISIBLE);
                 } else {
                     btnLoadMore.setVisibility(View.GONE); // No hay más páginas
@@ -142,7 +172,8 @@ public class SearchFragment extends Fragment {
 
             @Override
             public void onError(String error) {
-                if (!isAdded()) return;
+                if (!isAdded() || generation != searchGeneration) return;
+                searchHandle = null;
                 loadingIndicator.setVisibility(View.GONE);
                 btnLoadMore.setText("Load More Results");
                 btnLoadMore.setEnabled(true);
@@ -6,10 +6,15 @@ import android.content.res.Configuration;
 import android.content.res.Resources;
 import android.os.Bundle;
 import android.util.DisplayMetrics;
+import android.view.View;
 import android.widget.Button;
 import android.widget.RadioButton;
 import android.widget.RadioGroup;
+import android.widget.TextView;
+import android.widget.Toast;
 import androidx.appcompat.app.AppCompatActivity;
+import java.io.File;
+import java.io.IOException;
 import java.util.Locale;
 
 public class SettingsActivity extends AppCompatActivity {
@@ -39,6 +44,32 @@ public class SettingsActivity extends AppCompatActivity {
             String selectedLang = radioEs.isChecked() ? "es" : "en";
             setLocale(selectedLang);
         });
+
+        if (BuildConfig.DEBUG) setupQueryDebug();
+    }
+
+    // Solo en debug: resumen de tiempos de red por consulta y volcado del log de consultas lentas
+    private void setupQueryDebug() {
+        TextView txtStats = findViewById(R.id.txtQueryStats);
+        Button btnDump = findViewById(R.id.btnDumpQueries);
+        QueryTelemetry telemetry = DataRepository.getInstance().getQueryTelemetry();
+
+        String summary = telemetry.summary();
+        txtStats.setText("Arranque: " + StartupTrace.summary() + "\n"
+                + DataRepository.getInstance().getReplicaStatus() + "\n\n"
+                + (summary.isEmpty() ? "Sin consultas todavía" : summary));
+        txtStats.setVisibility(View.VISIBLE);
+        btnDump.setVisibility(View.VISIBLE);
+        btnDump.setOnClickListener(v -> {
+            File dir = getExternalFilesDir(null);
+            File file = new File(dir != null ? dir : getFilesDir(), "turso_queries.txt");
+            try {
+                telemetry.dumpTo(file);
+                Toast.makeText(this, file.getAbsolutePath(), Toast.LENGTH_LONG).show();
+            } catch (IOException e) {
+                Toast.makeText(this, "Error: " + e.getMessage(), Toast.LENGTH_LONG).show();
+            }
+        });
     }
 
     private void setLocale(String lang) {
@@ -53,7 +84,8 @@ public class SettingsActivity extends AppCompatActivity {
         Configuration conf = res.getConfiguration();
         conf.setLocale(myLocale);
 
-        DataRepository.getInstance().clearCache();
+        // Sin vaciar el catálogo: solo se piden las sinopsis que falten en el nuevo idioma
+        DataRepository.getInstance().switchLanguage();
 
         Intent refresh = new Intent(this, MainActivity.class);
         refresh.setFlags(Intent.FLAG_ACTIVITY_NEW_TASK | Intent.FLAG_ACTIVITY_CLEAR_TASK);
@@ -0,0 +1,78 @@
+package com.example.prueba;
+
+import android.os.Handler;
+import android.os.Looper;
+import android.util.Log;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+
+// "Títulos parecidos" del detalle sin pedir nada a la red: SimilarityIndex con las películas que
+// hay guardadas en movies.db. Cada película que entra en la caché (QueryCache.put) se añade aquí y
+// su firma se guarda, así que al abrir la app el índice se carga de la base sin recalcular nada.
+// Todo corre en el hilo de BD de DataRepository, detrás de las escrituras de la caché; el índice
+// solo se toca desde ese hilo. Los resultados se entregan en el hilo principal.
+class SimilarTitles {
+
+    interface Callback {
+        void onSimilar(List<Movie> movies); // vacía si no hay ninguna parecida guardada
+    }
+
+    private final MovieDatabaseHelper dbHelper;
+    private final ExecutorService executor;
+    private final Handler mainHandler = new Handler(Looper.getMainLooper());
+    private final SimilarityIndex index = new SimilarityIndex();
+
+    SimilarTitles(MovieDatabaseHelper dbHelper, ExecutorService executor) {
+        this.dbHelper = dbHelper;
+        this.executor = executor;
+        executor.execute(() -> {
+            try {
+                for (Map.Entry<Long, int[]> entry : dbHelper.getSignatures().entrySet()) {
+                    index.put(entry.getKey(), entry.getValue());
+                }
+            } catch (Exception e) {
+                Log.e("SimilarTitles", "Signature load failed", e);
+            }
+        });
+    }
+
+    // Solo se calculan y se guardan las firmas que cambiaron
+    void add(Collection<Movie> movies) {
+        List<Movie> snapshot = new ArrayList<>(movies);
+        executor.execute(() -> {
+            Map<Long, int[]> changed = new HashMap<>();
+            for (Movie movie : snapshot) {
+                int[] signature = SimilarityIndex.signature(movie);
+                if (signature != null && index.put(movie.getId(), signature)) changed.put(movie.getId(), signature);
+            }
+            try {
+                dbHelper.saveSignatures(changed);
+            } catch (Exception e) {
+                Log.e("SimilarTitles", "Signature write failed", e);
+            }
+        });
+    }
+
+    // Hasta 'limit' películas guardadas, de más a menos parecidas
+    void find(Movie movie, int limit, Callback callback) {
+        executor.execute(() -> {
+            List<Movie> similar = new ArrayList<>();
+            try {
+                // Una película que no pasó por la caché (abierta por id) también tiene parecidas
+                if (!index.contains(movie.getId())) index.add(movie);
+                // Pedimos de más: alguna puede haberse borrado ya de la caché
+                long[] ids = index.similar(movie.getId(), limit * 2);
+                similar = dbHelper.getCachedMovies(ids);
+                if (similar.size() > limit) similar = new ArrayList<>(similar.subList(0, limit));
+            } catch (Exception e) {
+                Log.e("SimilarTitles", "Lookup failed: " + movie.getId(), e);
+            }
+            List<Movie> result = similar;
+            mainHandler.post(() -> callback.onSimilar(result));
+        });
+    }
+}
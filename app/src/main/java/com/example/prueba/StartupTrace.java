@@ -0,0 +1,33 @@
+package com.example.prueba;
+
+import android.os.Process;
+import android.os.SystemClock;
+import android.util.Log;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+// Marcas de tiempo del arranque en frío, en ms desde que el sistema creó el proceso. Cada fase se
+// apunta solo la primera vez y queda en el log ("StartupTrace"); en debug el resumen sale en Ajustes.
+public final class StartupTrace {
+
+    private static final Map<String, Long> phases = new LinkedHashMap<>();
+
+    private StartupTrace() {}
+
+    public static synchronized void mark(String phase) {
+        if (phases.containsKey(phase)) return;
+        long sinceStart = SystemClock.elapsedRealtime() - Process.getStartElapsedRealtime();
+        phases.put(phase, sinceStart);
+        Log.i("StartupTrace", phase + " +" + sinceStart + "ms");
+    }
+
+    // "app_create +85ms | local_state +120ms | ..."
+    public static synchronized String summary() {
+        StringBuilder sb = new StringBuilder();
+        for (Map.Entry<String, Long> phase : phases.entrySet()) {
+            if (sb.length() > 0) sb.append(" | ");
+            sb.append(phase.getKey()).append(" +").append(phase.getValue()).append("ms");
+        }
+        return sb.toString();
+    }
+}
@@ -0,0 +1,130 @@
+package com.example.prueba;
+
+import com.google.gson.JsonArray;
+import com.google.gson.JsonObject;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Objects;
+
+// Sentencia SQL con parámetros posicionales (?) que viajan aparte en "args" del pipeline de Hrana.
+// El texto SQL solo depende de la forma de la consulta, no de los valores: así no hay que escapar
+// comillas a mano y TursoClient puede subir cada forma una sola vez por stream (store_sql).
+public final class Statement {
+    private final String sql;
+    private final List<Object> args;
+    // Forma de la consulta para las métricas ("page", "search_fts"...); no cuenta en equals
+    private final String name;
+
+    public Statement(String sql, Object... args) {
+        this(sql, Arrays.asList(args), null);
+    }
+
+    private Statement(String sql, List<Object> args, String name) {
+        for (Object arg : args) checkType(arg);
+        this.sql = sql;
+        this.args = Collections.unmodifiableList(new ArrayList<>(args));
+        this.name = name;
+    }
+
+    public Statement named(String name) {
+        return new Statement(sql, args, name);
+    }
+
+    public String getSql() { return sql; }
+    public List<Object> getArgs() { return args; }
+    public String getName() { return name != null ? name : "sql"; }
+
+    @Override
+    public String toString() {
+        return sql + " " + args;
+    }
+
+    // Dos sentencias son iguales si mandarían exactamente lo mismo al servidor
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (o == null || getClass() != o.getClass()) return false;
+        Statement other = (Statement) o;
+        return sql.equals(other.sql) && args.equals(other.args);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(sql, args);
+    }
+
+    // {"sql": ...} o {"sql_id": n} si el texto ya está guardado en el stream, más los args
+    JsonObject toJson(Integer sqlId) {
+        JsonObject stmt = new JsonObject();
+        if (sqlId != null) {
+            stmt.addProperty("sql_id", sqlId);
+        } else {
+            stmt.addProperty("sql", sql);
+        }
+        if (!args.isEmpty()) {
+            JsonArray values = new JsonArray();
+            for (Object arg : args) values.add(toValue(arg));
+            stmt.add("args", values);
+        }
+        return stmt;
+    }
+
+    // Valores de Hrana: los enteros van como texto para no perder precisión en JSON
+    private static JsonObject toValue(Object arg) {
+        JsonObject value = new JsonObject();
+        if (arg == null) {
+            value.addProperty("type", "null");
+        } else if (arg instanceof String) {
+            value.addProperty("type", "text");
+            value.addProperty("value", (String) arg);
+        } else if (arg instanceof Double || arg instanceof Float) {
+            value.addProperty("type", "float");
+            value.addProperty("value", ((Number) arg).doubleValue());
+        } else if (arg instanceof Boolean) {
+            value.addProperty("type", "integer");
+            value.addProperty("value", ((Boolean) arg) ? "1" : "0");
+        } else {
+            value.addProperty("type", "integer");
+            value.addProperty("value", String.valueOf(((Number) arg).longValue()));
+        }
+        return value;
+    }
+
+    private static void checkType(Object arg) {
+        if (arg == null || arg instanceof String || arg instanceof Boolean || arg instanceof Long
+                || arg instanceof Integer || arg instanceof Short || arg instanceof Double || arg instanceof Float) {
+            return;
+        }
+        throw new IllegalArgumentException("Unsupported argument type: " + arg.getClass().getName());
+    }
+
+    // Para sentencias que se montan por partes (un filtro por término, condiciones opcionales...)
+    public static class Builder {
+        private final StringBuilder sql = new StringBuilder();
+        private final List<Object> args = new ArrayList<>();
+
+        public Builder append(String sqlPart) {
+            sql.append(sqlPart);
+            return this;
+        }
+
+        // 'sqlPart' debe llevar tantos ? como valores se pasan, en el mismo orden
+        public Builder append(String sqlPart, Object... values) {
+            sql.append(sqlPart);
+            args.addAll(Arrays.asList(values));
+            return this;
+        }
+
+        public Builder append(Statement part) {
+            sql.append(part.sql);
+            args.addAll(part.args);
+            return this;
+        }
+
+        public Statement build() {
+            return new Statement(sql.toString(), args, null);
+        }
+    }
+}
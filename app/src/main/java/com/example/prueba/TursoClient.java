@@ -4,17 +4,20 @@ import android.os.Handler;
 import android.os.Looper;
 import android.util.Log;
 import com.google.gson.JsonArray;
-import com.google.gson.JsonElement;
 import com.google.gson.JsonObject;
-import com.google.gson.JsonParser;
 import java.util.LinkedHashSet;
 import java.util.Set;
 import java.io.IOException;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayDeque;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Deque;
+import java.util.HashMap;
 import java.util.List;
-import java.util.Locale;
-import java.util.concurrent.ExecutorService;
-import java.util.concurrent.Executors;
+import java.util.Map;
+import okhttp3.Call;
 import okhttp3.MediaType;
 import okhttp3.OkHttpClient;
 import okhttp3.Request;
@@ -26,16 +29,19 @@ public class TursoClient {
     private static final String TURSO_TOKEN = "Bearer " + BuildConfig.TURSO_TOKEN;
 
     private final OkHttpClient client;
-    private final ExecutorService executor;
+    private final QueryScheduler scheduler;
+    private final QueryTelemetry telemetry;
     private final Handler mainHandler;
 
     public TursoClient() {
+        this.telemetry = new QueryTelemetry();
         this.client = new OkHttpClient.Builder()
                 .connectTimeout(10, java.util.concurrent.TimeUnit.SECONDS)
                 .readTimeout(10, java.util.concurrent.TimeUnit.SECONDS)
                 .writeTimeout(10, java.util.concurrent.TimeUnit.SECONDS)
+                .eventListenerFactory(telemetry.eventListenerFactory())
                 .build();
-        this.executor = Executors.newCachedThreadPool();
+        this.scheduler = new QueryScheduler();
         this.mainHandler = new Handler(Looper.getMainLooper());
     }
 
@@ -44,168 +50,780 @@ public class TursoClient {
         void onError(Exception e);
     }
 
+    // Consultas paginadas: además de las filas devuelve dónde empieza la siguiente página
+    // (null si ya no hay más)
+    public interface PageCallback {
+        void onSuccess(Set<Movie> movies, PageCursor next);
+        void onError(Exception e);
+    }
+
+    // Opcional: recibe las filas en bloques mientras se parsea la respuesta, antes de onSuccess
+    public interface ChunkCallback extends MovieCallback {
+        void onChunk(Set<Movie> movies);
+    }
+
+    // Filas sin convertir a Movie (todas las columnas, como texto); lo usa ReplicaSync
+    public interface RowsCallback {
+        void onRows(List<String> columns, List<String[]> rows);
+        void onError(Exception e);
+    }
+
+    private static final int CHUNK_SIZE = 12;
+
     private String getColumns() {
-        String lang = Locale.getDefault().getLanguage();
-        if (lang.equals("es")) {
-            //Ponemos overview_es como overview para evitar poner mas variables en la clase de movies
-            return "rowid, title, runtime, overview_es as overview, poster_path, genres";
-        } else {
-            return "rowid, title, runtime, overview, poster_path, genres";
-        }
+        return getColumns("");
     }
 
-    public void fetchMovies(int limit, int offset, MovieCallback callback) {
-        String sql = "SELECT " + getColumns() + " FROM peliculas LIMIT " + limit + " OFFSET " + offset;
-        executeSql(sql, callback);
+    // Solo la sinopsis del idioma actual; el parser sabe cuál es por el nombre de la columna
+    private String getColumns(String alias) {
+        String overview = ContentLanguage.overviewColumn(ContentLanguage.current());
+        return alias + "rowid, " + alias + "title, " + alias + "runtime, " + alias + overview + ", " + alias + "poster_path, " + alias + "genres";
     }
 
-    public void fetchRandomMovies(MovieCallback callback) {
-        String sql = "SELECT " + getColumns() + " FROM peliculas ORDER BY RANDOM() LIMIT 20";
-        executeSql(sql, callback);
+    // FTS: índice trigram peliculas_fts (db/migrations/001_peliculas_title_fts.sql).
+    // SCAN: LIKE sobre el título sin índice, para bases sin la migración aplicada.
+    public enum SearchMode { FTS, SCAN }
+
+    private volatile SearchMode searchMode = SearchMode.FTS;
+
+    // Tiempo que pasan las consultas en cola, por prioridad
+    public String getQueueStats() { return scheduler.getQueueStats(); }
+
+    public QueryTelemetry getTelemetry() { return telemetry; }
+
+    public SearchMode getSearchMode() { return searchMode; }
+    public void setSearchMode(SearchMode searchMode) { this.searchMode = searchMode; }
+
+    // Abre ya la conexión (DNS + TCP + TLS) para que la primera consulta la encuentre en el pool de
+    // OkHttp. GET /v2 es la comprobación de versión de Hrana: no toca la base y responde vacío.
+    public void prewarm() {
+        Request request = new Request.Builder()
+                .url(BuildConfig.TURSO_URL + "/v2").addHeader("Authorization", TURSO_TOKEN).get().build();
+        client.newCall(request).enqueue(new okhttp3.Callback() {
+            @Override
+            public void onResponse(Call call, Response response) {
+                response.close();
+                StartupTrace.mark("connection_warm");
+            }
+
+            @Override
+            public void onFailure(Call call, IOException e) {
+                Log.w("TursoClient", "Prewarm failed: " + e.getMessage());
+            }
+        });
     }
 
-    public void fetchMoviesByGenre(String genre, int limit, MovieCallback callback) {
-        String safeGenre = genre.replace("'", "''");
-        String sql = "SELECT " + getColumns() + " FROM peliculas WHERE genres LIKE '%" + safeGenre + "%' ORDER BY RANDOM() LIMIT " + limit;
-        executeSql(sql, callback);
+    public QueryHandle fetchMoviesPage(PageCursor cursor, int limit, PageCallback callback) {
+        return execute(buildFetchMoviesSql(cursor, limit), new PageResultCallback(callback, limit));
     }
 
-    public void searchMovies(String query, int limit, int offset, MovieCallback callback) {
-        String safeQuery = query.trim().replace("'", "''");
-        if (safeQuery.isEmpty()) {
-            mainHandler.post(() -> callback.onSuccess(new LinkedHashSet<>()));
-            return;
+    public QueryHandle fetchRandomMovies(MovieCallback callback) {
+        return execute(buildSampleSql(null, 20).named("random"), callback);
+    }
+
+    public QueryHandle fetchMoviesByGenre(String genre, int limit, MovieCallback callback) {
+        return execute(buildGenreSql(genre, limit), callback);
+    }
+
+    // Una película por id, para abrir el detalle cuando no está en memoria; el usuario la está esperando
+    public QueryHandle fetchMovieById(long id, MovieCallback callback) {
+        return execute(new Statement("SELECT " + getColumns() + " FROM peliculas WHERE rowid = ?", id).named("by_id"),
+                QueryScheduler.Priority.INTERACTIVE, callback);
+    }
+
+    public interface OverviewsCallback {
+        void onSuccess(Map<Long, String> overviews); // id -> sinopsis; faltan las que no existan
+        void onError(Exception e);
+    }
+
+    // Sinopsis en 'language' de películas que ya tenemos: una sola consulta con todos los rowids en un
+    // array JSON (un único argumento, sin límite de parámetros)
+    public QueryHandle fetchOverviews(long[] ids, String language, OverviewsCallback callback) {
+        StringBuilder idArray = new StringBuilder("[");
+        for (int i = 0; i < ids.length; i++) {
+            if (i > 0) idArray.append(',');
+            idArray.append(ids[i]);
+        }
+        idArray.append(']');
+        Statement statement = new Statement("SELECT rowid, " + ContentLanguage.overviewColumn(language)
+                + " FROM peliculas WHERE rowid IN (SELECT value FROM json_each(?))", idArray.toString()).named("overviews");
+        return executeRows(statement, QueryScheduler.Priority.VISIBLE, new RowsCallback() {
+            @Override
+            public void onRows(List<String> columns, List<String[]> rows) {
+                Map<Long, String> overviews = new HashMap<>(rows.size() * 2);
+                for (String[] row : rows) {
+                    try {
+                        overviews.put(Long.parseLong(row[0]), row[1]);
+                    } catch (NumberFormatException e) {
+                        Log.w("TursoClient", "Bad rowid in overviews: " + row[0]);
+                    }
+                }
+                callback.onSuccess(overviews);
+            }
+
+            @Override
+            public void onError(Exception e) {
+                callback.onError(e);
+            }
+        });
+    }
+
+    public QueryHandle searchMovies(String query, PageCursor cursor, int limit, PageCallback callback) {
+        String trimmed = query.trim();
+        if (trimmed.isEmpty()) {
+            QueryHandle handle = new QueryHandle();
+            post(handle, () -> callback.onSuccess(new LinkedHashSet<>(), null));
+            return handle;
         }
-        String[] terms = safeQuery.split("\\s+");
-        StringBuilder sqlBuilder = new StringBuilder();
+        String[] terms = trimmed.split("\\s+");
+        if (searchMode != SearchMode.FTS) {
+            return execute(buildScanSearchSql(terms, cursor, limit), QueryScheduler.Priority.INTERACTIVE,
+                    new PageResultCallback(callback, limit));
+        }
+        // Si hay que repetir con LIKE, cancelar la búsqueda cancela también la repetición
+        QueryHandle handle = new QueryHandle();
+        QueryHandle fts = execute(buildFtsSearchSql(terms, cursor, limit), QueryScheduler.Priority.INTERACTIVE, new PageResultCallback(new PageCallback() {
+            @Override
+            public void onSuccess(Set<Movie> movies, PageCursor next) {
+                callback.onSuccess(movies, next);
+            }
+
+            @Override
+            public void onError(Exception e) {
+                String msg = String.valueOf(e.getMessage());
+                if (msg.contains("peliculas_fts") || msg.contains("title_norm")) {
+                    // La base no tiene el índice: nos quedamos con el LIKE de siempre
+                    Log.w("TursoClient", "FTS search unavailable, falling back to scan: " + msg);
+                    searchMode = SearchMode.SCAN;
+                    QueryHandle scan = execute(buildScanSearchSql(terms, cursor, limit), QueryScheduler.Priority.INTERACTIVE,
+                            new PageResultCallback(callback, limit));
+                    handle.onCancel(scan::cancel);
+                } else {
+                    callback.onError(e);
+                }
+            }
+        }, limit));
+        handle.onCancel(fts::cancel);
+        return handle;
+    }
 
-        sqlBuilder.append("SELECT ").append(getColumns()).append(" FROM peliculas WHERE ");
+    private Statement buildScanSearchSql(String[] terms, PageCursor cursor, int limit) {
+        Statement.Builder sql = new Statement.Builder()
+                .append("SELECT " + getColumns() + " FROM peliculas WHERE ");
 
         for (int i = 0; i < terms.length; i++) {
-            if (i > 0) sqlBuilder.append(" AND ");
+            if (i > 0) sql.append(" AND ");
             String termClean = terms[i].toLowerCase().replace("-", "").replace(":", "");
-            sqlBuilder.append("(LOWER(REPLACE(REPLACE(title, '-', ''), ' ', '')) LIKE '%")
-                    .append(termClean).append("%')");
+            sql.append("(LOWER(REPLACE(REPLACE(title, '-', ''), ' ', '')) LIKE ? ESCAPE '\\')",
+                    "%" + escapeLike(termClean) + "%");
+        }
+        sql.append(" AND rowid > ? ORDER BY rowid LIMIT ?", afterRowId(cursor), limit);
+        return sql.build().named("search_scan");
+    }
+
+    // Los términos de 3 o más caracteres van al MATCH del trigram; los más cortos no generan
+    // trigramas y se filtran con LIKE sobre las filas ya encontradas (si todos son cortos no hay
+    // índice que ayude y se usa el LIKE de siempre). Orden: primero los títulos que empiezan por
+    // el primer término, después por relevancia (bm25) y por último rowid para desempatar; el
+    // cursor continúa desde esa misma clave (sort_prefix, sort_rank, rowid) de la última fila.
+    private Statement buildFtsSearchSql(String[] terms, PageCursor cursor, int limit) {
+        StringBuilder match = new StringBuilder();
+        List<String> shortTerms = new ArrayList<>();
+        String firstTerm = null;
+        for (String term : terms) {
+            String normalized = TitleNormalizer.normalize(term);
+            if (normalized.isEmpty()) continue;
+            if (firstTerm == null) firstTerm = normalized;
+            if (normalized.codePointCount(0, normalized.length()) >= 3) {
+                if (match.length() > 0) match.append(' ');
+                match.append('"').append(normalized.replace("\"", "\"\"")).append('"');
+            } else {
+                shortTerms.add(normalized);
+            }
+        }
+        if (match.length() == 0) return buildScanSearchSql(terms, cursor, limit);
+
+        String prefix = "(f.title_norm LIKE ? ESCAPE '\\')";
+        String prefixPattern = escapeLike(firstTerm) + "%";
+        Statement.Builder sql = new Statement.Builder()
+                .append("SELECT " + getColumns("p.") + ", " + prefix + " AS sort_prefix, f.rank AS sort_rank", prefixPattern)
+                .append(" FROM peliculas_fts f JOIN peliculas p ON p.rowid = f.rowid")
+                .append(" WHERE peliculas_fts MATCH ?", match.toString());
+        for (String term : shortTerms) {
+            sql.append(" AND f.title_norm LIKE ? ESCAPE '\\'", "%" + escapeLike(term) + "%");
         }
-        sqlBuilder.append(" LIMIT ").append(limit).append(" OFFSET ").append(offset);
-        executeSql(sqlBuilder.toString(), callback);
+        if (cursor.isFirst() || cursor.hasRank()) {
+            // En la primera página -2 queda por debajo de cualquier -sort_prefix (0 o -1)
+            boolean first = cursor.isFirst();
+            sql.append(" AND (-" + prefix + ", f.rank, p.rowid) > (?, ?, ?)", prefixPattern,
+                    first ? -2 : -cursor.getAfterPrefix(), first ? 0.0 : cursor.getAfterRank(), cursor.getAfterRowId());
+        } else {
+            sql.append(" AND p.rowid > ?", cursor.getAfterRowId());
+        }
+        sql.append(" ORDER BY sort_prefix DESC, f.rank, p.rowid LIMIT ?", limit);
+        return sql.build().named("search_fts");
+    }
+
+    // Los comodines de LIKE dentro del término se buscan tal cual (ESCAPE '\')
+    private static String escapeLike(String term) {
+        return term.replace("\\", "\\\\").replace("%", "\\%").replace("_", "\\_");
     }
 
-    public void fetchRecommendations(List<String> genres, List<String> titleKeywords, MovieCallback callback) {
+    private static long afterRowId(PageCursor cursor) {
+        return cursor.isFirst() ? Long.MIN_VALUE : cursor.getAfterRowId();
+    }
+
+    public QueryHandle fetchRecommendations(List<String> genres, List<String> titleKeywords, MovieCallback callback) {
         if (genres == null || genres.isEmpty()) {
-            fetchRandomMovies(callback);
-            return;
+            return fetchRandomMovies(callback);
         }
         List<String> topGenres = (genres.size() > 3) ? genres.subList(0, 3) : genres;
-        StringBuilder sb = new StringBuilder("SELECT " + getColumns() + " FROM peliculas WHERE ");
-        sb.append("(");
+        StringBuilder where = new StringBuilder();
+        Object[] patterns = new Object[topGenres.size()];
         for (int i = 0; i < topGenres.size(); i++) {
-            String g = topGenres.get(i).replace("'", "''").trim();
-            sb.append("genres LIKE '%").append(g).append("%'");
-            if (i < topGenres.size() - 1) sb.append(" OR ");
+            where.append("genres LIKE ?");
+            patterns[i] = "%" + topGenres.get(i).trim() + "%";
+            if (i < topGenres.size() - 1) where.append(" OR ");
+        }
+        return execute(buildSampleSql(new Statement(where.toString(), patterns), 20).named("recommendations"),
+                QueryScheduler.Priority.BACKGROUND, callback);
+    }
+
+    private Statement buildFetchMoviesSql(PageCursor cursor, int limit) {
+        return new Statement("SELECT " + getColumns() + " FROM peliculas WHERE rowid > ? ORDER BY rowid LIMIT ?",
+                afterRowId(cursor), limit).named("page");
+    }
+
+    private Statement buildGenreSql(String genre, int limit) {
+        return buildSampleSql(new Statement("genres LIKE ?", "%" + genre + "%"), limit).named("genre");
+    }
+
+    // Completa un género hasta 'target' películas contando en el servidor las que ya trae la
+    // primera página (LIMIT basePageSize), así no hay que esperar a esa página para pedir el resto.
+    private Statement buildGenreCoverageSql(String genre, int target, int basePageSize) {
+        String pattern = "%" + genre + "%";
+        String basePage = "SELECT rowid, genres FROM peliculas ORDER BY rowid LIMIT ?";
+        return buildSampleSql(
+                new Statement("genres LIKE ? AND rowid NOT IN (SELECT rowid FROM (" + basePage + "))", pattern, basePageSize),
+                target,
+                new Statement("MAX(0, ? - (SELECT COUNT(*) FROM (" + basePage + ") WHERE genres LIKE ?))",
+                        target, basePageSize, pattern)).named("coverage");
+    }
+
+    // Cuántos puntos aleatorios se lanzan por fila pedida: los que caen en el mismo hueco o
+    // pasada la última fila que cumple el filtro no aportan nada, así que pedimos de más.
+    private static final int SAMPLE_OVERSAMPLE = 3;
+
+    private Statement buildSampleSql(Statement where, int maxRows) {
+        return buildSampleSql(where, maxRows, new Statement("?", maxRows));
+    }
+
+    // Muestra aleatoria sin ORDER BY RANDOM() sobre toda la tabla: genera maxRows * SAMPLE_OVERSAMPLE
+    // posiciones al azar entre el rowid mínimo y el máximo, y por cada una busca en el índice de rowid
+    // la primera fila a partir de ahí que cumpla 'where'. El coste depende de cuántas filas se piden
+    // (y de lo selectivo que sea el filtro), no del tamaño de la tabla. Solo se barajan los candidatos.
+    // Las filas que siguen a un hueco de rowids tienen algo más de probabilidad de salir; para
+    // portadas y recomendaciones da igual. MIN y MAX van en subconsultas separadas para que SQLite
+    // los saque del índice en vez de recorrer la tabla.
+    private Statement buildSampleSql(Statement where, int maxRows, Statement limit) {
+        Statement.Builder sql = new Statement.Builder()
+                .append("WITH RECURSIVE probe(n, lo, span, at) AS ("
+                        + "SELECT 1, lo, span, lo + ABS(RANDOM() % span)"
+                        + " FROM (SELECT lo, hi - lo + 1 AS span FROM (SELECT (SELECT MIN(rowid) FROM peliculas) AS lo,"
+                        + " (SELECT MAX(rowid) FROM peliculas) AS hi))"
+                        + " UNION ALL SELECT n + 1, lo, span, lo + ABS(RANDOM() % span) FROM probe"
+                        + " WHERE n < ?)", maxRows * SAMPLE_OVERSAMPLE)
+                .append(" SELECT " + getColumns() + " FROM peliculas WHERE rowid IN ("
+                        + "SELECT (SELECT rowid FROM peliculas WHERE rowid >= at");
+        if (where != null) sql.append(" AND (").append(where).append(")");
+        return sql.append(" ORDER BY rowid LIMIT 1) FROM probe)")
+                .append(" ORDER BY RANDOM() LIMIT ").append(limit)
+                .build();
+    }
+
+    public Batch newBatch() {
+        return new Batch();
+    }
+
+    // Sin agrupar con consultas iguales en vuelo: cada llamada trae sus propias filas
+    public QueryHandle executeRows(Statement statement, QueryScheduler.Priority priority, RowsCallback callback) {
+        Batch batch = newBatch().priority(priority);
+        batch.rawRows = true;
+        return batch.add(statement, new RowsResultCallback(callback)).execute();
+    }
+
+    // Varias sentencias en un único array "requests" del pipeline: una sola ida y vuelta HTTP.
+    // Cada resultado vuelve a su propio callback, en el mismo orden en que se añadieron.
+    public class Batch {
+        private final List<Statement> statements = new ArrayList<>();
+        private final List<MovieCallback> callbacks = new ArrayList<>();
+        private Runnable onComplete;
+        private QueryScheduler.Priority priority = QueryScheduler.Priority.VISIBLE;
+        private volatile QueryScheduler.Task task;
+        private boolean rawRows;
+
+        private Batch() {}
+
+        // Por defecto VISIBLE; INTERACTIVE para lo que el usuario espera, BACKGROUND para precargas
+        public Batch priority(QueryScheduler.Priority priority) {
+            this.priority = priority;
+            return this;
+        }
+
+        public Batch add(Statement statement, MovieCallback callback) {
+            statements.add(statement);
+            callbacks.add(callback);
+            return this;
+        }
+
+        public Batch fetchMoviesPage(PageCursor cursor, int limit, PageCallback callback) {
+            return add(buildFetchMoviesSql(cursor, limit), new PageResultCallback(callback, limit));
+        }
+
+        public Batch fetchMoviesByGenre(String genre, int limit, MovieCallback callback) {
+            return add(buildGenreSql(genre, limit), callback);
+        }
+
+        public Batch fetchGenreCoverage(String genre, int target, int basePageSize, MovieCallback callback) {
+            return add(buildGenreCoverageSql(genre, target, basePageSize), callback);
+        }
+
+        // Se ejecuta en el hilo principal después de todos los callbacks del lote
+        public Batch onComplete(Runnable onComplete) {
+            this.onComplete = onComplete;
+            return this;
+        }
+
+        public int size() {
+            return statements.size();
+        }
+
+        // Nombre de la petición en las métricas: las formas distintas del lote, p. ej. "page+coverage"
+        private String shape() {
+            LinkedHashSet<String> names = new LinkedHashSet<>();
+            for (Statement statement : statements) names.add(statement.getName());
+            return String.join("+", names);
+        }
+
+        private boolean hasChunkCallbacks() {
+            for (MovieCallback callback : callbacks) {
+                if (callback instanceof SharedCallback) {
+                    if (((SharedCallback) callback).wantsChunks()) return true;
+                } else if (callback instanceof ChunkCallback) {
+                    return true;
+                }
+            }
+            return false;
         }
-        sb.append(") ORDER BY RANDOM() LIMIT 20");
-        executeSql(sb.toString(), callback);
+
+        public QueryHandle execute() {
+            QueryHandle handle = new QueryHandle();
+            executeBatch(this, handle);
+            return handle;
+        }
+    }
+
+    // Consultas idénticas (mismo SQL y mismos args) que ya están en vuelo: la nueva se apunta a
+    // la petición existente en vez de lanzar otra. Se quita del mapa en cuanto llega el resultado.
+    private final Map<Statement, SharedCallback> inFlight = new HashMap<>();
+
+    public QueryHandle execute(Statement statement, MovieCallback callback) {
+        return execute(statement, QueryScheduler.Priority.VISIBLE, callback);
+    }
+
+    public QueryHandle execute(Statement statement, QueryScheduler.Priority priority, MovieCallback callback) {
+        QueryHandle handle = new QueryHandle();
+        SharedCallback shared;
+        boolean first;
+        synchronized (inFlight) {
+            shared = inFlight.get(statement);
+            first = (shared == null);
+            if (first) {
+                shared = new SharedCallback(statement, newBatch().priority(priority));
+                shared.batch.add(statement, shared);
+                inFlight.put(statement, shared);
+            }
+            shared.waiters.add(new Waiter(callback, handle));
+        }
+        if (first) {
+            shared.networkHandle = shared.batch.execute();
+        } else if (shared.batch.task != null) {
+            // Una búsqueda que coincide con una precarga aún en cola no espera como si fuera precarga
+            scheduler.promote(shared.batch.task, priority);
+        }
+        handle.onCancel(shared::onWaiterCancelled);
+        return handle;
+    }
+
+    private static class Waiter {
+        final MovieCallback callback;
+        final QueryHandle handle;
+
+        Waiter(MovieCallback callback, QueryHandle handle) {
+            this.callback = callback;
+            this.handle = handle;
+        }
+    }
+
+    // Recibe el resultado en el hilo de red, antes de que se entregue en el principal
+    // (null si la petición entera falló)
+    private interface ResultListener {
+        void onResult(TursoResponseParser.StatementResult result);
+    }
+
+    // Reparte un único resultado entre todos los que pidieron la misma consulta. Cada uno recibe
+    // su propia copia del Set para que nadie modifique el de otro. Cada uno puede cancelar lo suyo;
+    // la petición de red solo se corta cuando ya no queda nadie esperándola.
+    private class SharedCallback implements ChunkCallback, ResultListener {
+        private final Statement statement;
+        private final Batch batch;
+        private final List<Waiter> waiters = new ArrayList<>();
+        private List<Waiter> delivered = new ArrayList<>();
+        private volatile QueryHandle networkHandle;
+
+        SharedCallback(Statement statement, Batch batch) {
+            this.statement = statement;
+            this.batch = batch;
+        }
+
+        boolean wantsChunks() {
+            synchronized (inFlight) {
+                return !waiters.isEmpty() && waiters.get(0).callback instanceof ChunkCallback;
+            }
+        }
+
+        void onWaiterCancelled() {
+            boolean abandoned;
+            synchronized (inFlight) {
+                for (int i = waiters.size() - 1; i >= 0; i--) {
+                    if (waiters.get(i).handle.isCancelled()) waiters.remove(i);
+                }
+                abandoned = waiters.isEmpty() && inFlight.get(statement) == this;
+                if (abandoned) inFlight.remove(statement);
+            }
+            if (abandoned && networkHandle != null) networkHandle.cancel();
+        }
+
+        @Override
+        public void onResult(TursoResponseParser.StatementResult result) {
+            synchronized (inFlight) {
+                if (inFlight.get(statement) == this) inFlight.remove(statement);
+                delivered = new ArrayList<>(waiters);
+            }
+            for (Waiter waiter : delivered) {
+                if (waiter.callback instanceof ResultListener) ((ResultListener) waiter.callback).onResult(result);
+            }
+        }
+
+        @Override
+        public void onChunk(Set<Movie> movies) {
+            List<Waiter> current;
+            synchronized (inFlight) {
+                current = new ArrayList<>(waiters);
+            }
+            for (Waiter waiter : current) {
+                if (waiter.callback instanceof ChunkCallback && !waiter.handle.isCancelled()) {
+                    ((ChunkCallback) waiter.callback).onChunk(new LinkedHashSet<>(movies));
+                }
+            }
+        }
+
+        @Override
+        public void onSuccess(Set<Movie> movies) {
+            for (Waiter waiter : delivered) {
+                if (!waiter.handle.isCancelled()) waiter.callback.onSuccess(new LinkedHashSet<>(movies));
+            }
+        }
+
+        @Override
+        public void onError(Exception e) {
+            for (Waiter waiter : delivered) {
+                if (!waiter.handle.isCancelled()) waiter.callback.onError(e);
+            }
+        }
+    }
+
+    // Stream de Hrana abierto en el servidor. Las peticiones de un stream van de una en una (el
+    // baton cambia en cada respuesta), así que se guardan unos pocos libres y cada lote coge uno.
+    // Cada stream recuerda qué formas de consulta tiene ya guardadas con store_sql.
+    private static class HranaStream {
+        String baton;
+        String url = TURSO_URL;
+        final Map<String, Integer> sqlIds = new HashMap<>();
+        // Siguiente sql_id: nunca se reutiliza uno, tampoco el de un store_sql que falló
+        int nextSqlId = 1;
+        long lastUsed;
+    }
+
+    // El servidor cierra los streams inactivos al poco tiempo; pasado esto ni lo intentamos
+    private static final long STREAM_IDLE_MS = 8_000;
+    private static final int MAX_IDLE_STREAMS = 2;
+    // Límite de sql_id por stream; a partir de ahí se manda el SQL en línea
+    private static final int MAX_STORED_SQL = 64;
+
+    private final Deque<HranaStream> idleStreams = new ArrayDeque<>();
+
+    private HranaStream acquireStream() {
+        synchronized (idleStreams) {
+            long now = System.currentTimeMillis();
+            while (!idleStreams.isEmpty()) {
+                HranaStream stream = idleStreams.pollFirst();
+                if (now - stream.lastUsed < STREAM_IDLE_MS) return stream;
+            }
+        }
+        return new HranaStream();
     }
 
+    private void releaseStream(HranaStream stream) {
+        if (stream.baton == null) return;
+        stream.lastUsed = System.currentTimeMillis();
+        synchronized (idleStreams) {
+            if (idleStreams.size() < MAX_IDLE_STREAMS) idleStreams.addFirst(stream);
+        }
+    }
 
-    private void executeSql(String sql, MovieCallback callback) {
-        executor.execute(() -> {
+    // Entrega en el hilo principal salvo que la consulta se haya cancelado entretanto
+    private void post(QueryHandle handle, Runnable action) {
+        mainHandler.post(() -> {
+            if (!handle.isCancelled()) action.run();
+        });
+    }
+
+    private void executeBatch(Batch batch, QueryHandle handle) {
+        if (batch.statements.isEmpty()) {
+            if (batch.onComplete != null) post(handle, batch.onComplete);
+            return;
+        }
+        batch.task = scheduler.submit(batch.priority, () -> {
+            if (handle.isCancelled()) return;
             try {
-                JsonObject stmt = new JsonObject();
-                stmt.addProperty("sql", sql);
-                JsonObject executeRequest = new JsonObject();
-                executeRequest.addProperty("type", "execute");
-                executeRequest.add("stmt", stmt);
-                JsonArray requests = new JsonArray();
-                requests.add(executeRequest);
-                JsonObject root = new JsonObject();
-                root.add("requests", requests);
-
-                RequestBody body = RequestBody.create(root.toString(), MediaType.get("application/json; charset=utf-8"));
-                Request request = new Request.Builder()
-                        .url(TURSO_URL).addHeader("Authorization", TURSO_TOKEN).post(body).build();
-
-                try (Response response = client.newCall(request).execute()) {
-                    if (!response.isSuccessful()) throw new IOException("Error HTTP: " + response);
-                    Set<Movie> movies = parseTursoResponse(response.body().string());
-                    mainHandler.post(() -> callback.onSuccess(movies));
+                List<TursoResponseParser.StatementResult> results;
+                HranaStream stream = acquireStream();
+                try {
+                    results = runPipeline(batch, stream, handle);
+                } catch (StaleStreamException e) {
+                    // El baton ya no vale (stream caducado en el servidor): se repite en uno nuevo
+                    Log.w("TursoClient", "Stream expired, retrying on a new one: " + e.getMessage());
+                    results = runPipeline(batch, new HranaStream(), handle);
+                }
+                for (int i = 0; i < batch.callbacks.size(); i++) {
+                    MovieCallback callback = batch.callbacks.get(i);
+                    TursoResponseParser.StatementResult result = (i < results.size()) ? results.get(i) : null;
+                    String error = (result == null) ? "Missing result" : result.error;
+                    if (callback instanceof ResultListener) ((ResultListener) callback).onResult(result);
+                    if (error != null) {
+                        Exception e = new IOException(error);
+                        Log.e("TursoClient", "Statement " + i + " failed: " + error);
+                        post(handle, () -> callback.onError(e));
+                    } else {
+                        if (result.skippedRows > 0) Log.w("TursoParsing", "Skipped " + result.skippedRows + " rows");
+                        Set<Movie> movies = result.movies;
+                        post(handle, () -> callback.onSuccess(movies));
+                    }
                 }
             } catch (Exception e) {
+                // Cancelada: el Call cortado lanza IOException y no hay nadie a quien avisar
+                if (handle.isCancelled()) return;
                 Log.e("TursoClient", "Error", e);
-                mainHandler.post(() -> callback.onError(e));
+                for (MovieCallback callback : batch.callbacks) {
+                    if (callback instanceof ResultListener) ((ResultListener) callback).onResult(null);
+                    post(handle, () -> callback.onError(e));
+                }
             }
+            if (batch.onComplete != null) post(handle, batch.onComplete);
         });
     }
 
-    private Set<Movie> parseTursoResponse(String jsonResponse) {
-        Set<Movie> movies = new LinkedHashSet<>();
-        try {
-            JsonObject root = JsonParser.parseString(jsonResponse).getAsJsonObject();
-            JsonArray results = root.getAsJsonArray("results");
-            if (results.size() > 0) {
-                JsonObject resultItem = results.get(0).getAsJsonObject();
-                if (resultItem.has("error")) return movies;
-                JsonObject responseObj = resultItem.getAsJsonObject("response");
-                if (responseObj == null) return movies;
-                JsonObject innerResult = responseObj.getAsJsonObject("result");
-                JsonArray cols = innerResult.getAsJsonArray("cols");
-                JsonArray rows = innerResult.getAsJsonArray("rows");
-
-                int colId = -1, colTitle = -1, colRuntime = -1, colOverview = -1, colPoster = -1, colGenre = -1;
-                for (int i = 0; i < cols.size(); i++) {
-                    String name = cols.get(i).getAsJsonObject().get("name").getAsString();
-                    switch (name) {
-                        case "rowid": colId = i; break;
-                        case "title": colTitle = i; break;
-                        case "runtime": colRuntime = i; break;
-                        case "overview": colOverview = i; break;
-                        case "poster_path": colPoster = i; break;
-                        case "genres": colGenre = i; break;
-                    }
+    private static class StaleStreamException extends IOException {
+        private static final long serialVersionUID = 1L;
+
+        StaleStreamException(String message) {
+            super(message);
+        }
+    }
+
+    // Manda el lote por el stream dado y devuelve un resultado por sentencia del lote. Las formas
+    // de consulta que el stream aún no conoce se suben con store_sql y, cuando el servidor lo
+    // confirma, los lotes siguientes las ejecutan por sql_id; los valores van siempre en "args".
+    private List<TursoResponseParser.StatementResult> runPipeline(Batch batch, HranaStream stream, QueryHandle handle) throws IOException {
+        JsonArray requests = new JsonArray();
+        // Posición en "results" de cada sentencia del lote (los store_sql también tienen resultado)
+        int[] resultIndex = new int[batch.statements.size()];
+        Map<String, Integer> storedNow = new HashMap<>();
+        Map<String, Integer> storeResultIndex = new HashMap<>();
+        for (int i = 0; i < batch.statements.size(); i++) {
+            Statement statement = batch.statements.get(i);
+            Integer sqlId = stream.sqlIds.get(statement.getSql());
+            if (sqlId == null && !storedNow.containsKey(statement.getSql()) && stream.nextSqlId <= MAX_STORED_SQL) {
+                int newId = stream.nextSqlId++;
+                JsonObject storeRequest = new JsonObject();
+                storeRequest.addProperty("type", "store_sql");
+                storeRequest.addProperty("sql_id", newId);
+                storeRequest.addProperty("sql", statement.getSql());
+                requests.add(storeRequest);
+                storedNow.put(statement.getSql(), newId);
+                storeResultIndex.put(statement.getSql(), requests.size() - 1);
+            }
+            // Mientras el store_sql no esté confirmado va el SQL en línea: si el servidor lo
+            // rechaza, un execute por ese sql_id fallaría o ejecutaría otra consulta
+            JsonObject executeRequest = new JsonObject();
+            executeRequest.addProperty("type", "execute");
+            executeRequest.add("stmt", statement.toJson(sqlId));
+            resultIndex[i] = requests.size();
+            requests.add(executeRequest);
+        }
+        JsonObject root = new JsonObject();
+        if (stream.baton != null) root.addProperty("baton", stream.baton);
+        root.add("requests", requests);
+
+        String json = root.toString();
+        RequestBody body = RequestBody.create(json, MediaType.get("application/json; charset=utf-8"));
+        QueryTelemetry.CallMetrics metrics = new QueryTelemetry.CallMetrics();
+        Request request = new Request.Builder()
+                .url(stream.url).addHeader("Authorization", TURSO_TOKEN).post(body)
+                .tag(QueryTelemetry.CallMetrics.class, metrics).build();
+
+        QueryTelemetry.Sample sample = new QueryTelemetry.Sample();
+        sample.shape = batch.shape();
+        sample.timestamp = System.currentTimeMillis();
+        sample.queueMs = (batch.task != null) ? batch.task.getQueueMs() : 0;
+        long startNs = System.nanoTime();
+        Call call = client.newCall(request);
+        handle.onCancel(call::cancel);
+        List<TursoResponseParser.StatementResult> results;
+        try (Response response = call.execute()) {
+            if (!response.isSuccessful()) {
+                if (stream.baton != null && response.code() >= 400 && response.code() < 500) {
+                    throw new StaleStreamException("Error HTTP: " + response);
+                }
+                throw new IOException("Error HTTP: " + response);
+            }
+            if (handle.isCancelled()) throw new IOException("Canceled");
+            int[] statementAt = new int[requests.size()];
+            Arrays.fill(statementAt, -1);
+            for (int i = 0; i < resultIndex.length; i++) statementAt[resultIndex[i]] = i;
+            TursoResponseParser parser = batch.rawRows ? TursoResponseParser.rawRows()
+                    : new TursoResponseParser(batch.hasChunkCallbacks() ? CHUNK_SIZE : 0, (index, rows) -> {
+                if (index >= statementAt.length || statementAt[index] == -1) return;
+                MovieCallback callback = batch.callbacks.get(statementAt[index]);
+                if (callback instanceof ChunkCallback) {
+                    Set<Movie> chunk = new LinkedHashSet<>(rows);
+                    post(handle, () -> ((ChunkCallback) callback).onChunk(chunk));
                 }
+            });
+            QueryTelemetry.TimedInputStream in = new QueryTelemetry.TimedInputStream(response.body().byteStream());
+            long parseStartNs = System.nanoTime();
+            List<TursoResponseParser.StatementResult> all = parser.parse(new InputStreamReader(in, StandardCharsets.UTF_8));
+            long parseNs = System.nanoTime() - parseStartNs;
+            sample.transferMs = in.blockedNs / 1_000_000;
+            sample.parseMs = Math.max(0, parseNs - in.blockedNs) / 1_000_000;
+            sample.responseBytes = in.bytes;
 
-                for (JsonElement rowElem : rows) {
-                    JsonArray row = rowElem.getAsJsonArray();
-                    try {
-                        String title = getString(row, colTitle);
-                        long id = (colId != -1) ? getLong(row, colId) : title.hashCode();
-                        int runtime = getInt(row, colRuntime);
-                        String overview = getString(row, colOverview);
-                        String rawPoster = getString(row, colPoster);
-                        String genreStr = getString(row, colGenre);
-                        List<String> genreList = new ArrayList<>();
-                        if (!genreStr.isEmpty()) {
-                            String cleanGenres = genreStr.replace("[", "").replace("]", "").replace("'", "");
-                            for (String g : cleanGenres.split(",")) genreList.add(g.trim());
-                        }
-                        int hours = runtime / 60;
-                        int minutes = runtime % 60;
-                        String durationStr = (hours > 0 ? hours + "h " : "") + minutes + "m";
-
-                        movies.add(new Movie(id, title, rawPoster, overview, durationStr, genreList));
-                    } catch (Exception e) { Log.e("TursoParsing", "Skip row", e); }
+            // Solo cuentan como guardadas las formas cuyo store_sql salió bien
+            for (Map.Entry<String, Integer> stored : storedNow.entrySet()) {
+                int storeIndex = storeResultIndex.get(stored.getKey());
+                if (storeIndex < all.size() && all.get(storeIndex).error == null) {
+                    stream.sqlIds.put(stored.getKey(), stored.getValue());
                 }
             }
-        } catch (Exception e) { Log.e("TursoParsing", "Error JSON", e); }
-        return movies;
+            stream.baton = parser.getBaton();
+            if (parser.getBaseUrl() != null) stream.url = parser.getBaseUrl() + "/v2/pipeline";
+            releaseStream(stream);
+
+            results = new ArrayList<>(resultIndex.length);
+            for (int index : resultIndex) {
+                TursoResponseParser.StatementResult result = index < all.size() ? all.get(index) : null;
+                results.add(result);
+                if (result != null) sample.rows += result.movies.size() + result.rows.size();
+                if (result != null && result.error != null && sample.error == null) sample.error = result.error;
+            }
+        } catch (IOException e) {
+            if (!handle.isCancelled()) {
+                sample.error = String.valueOf(e.getMessage());
+                recordSample(sample, batch, metrics, json, startNs);
+            }
+            throw e;
+        }
+        recordSample(sample, batch, metrics, json, startNs);
+        return results;
     }
-    private String getString(JsonArray row, int index) {
-        if (index == -1 || index >= row.size() || row.get(index).isJsonNull()) return "";
-        JsonElement el = row.get(index);
-        if (el.isJsonObject() && el.getAsJsonObject().has("value")) return el.getAsJsonObject().get("value").getAsString();
-        return el.getAsString();
+
+    // Se llama con la respuesta ya cerrada, cuando OkHttp ha contado los bytes reales de red
+    private void recordSample(QueryTelemetry.Sample sample, Batch batch, QueryTelemetry.CallMetrics metrics,
+                              String json, long startNs) {
+        sample.totalMs = (System.nanoTime() - startNs) / 1_000_000;
+        if (metrics.callStartNs != 0 && metrics.headersStartNs != 0) {
+            sample.ttfbMs = (metrics.headersStartNs - metrics.callStartNs) / 1_000_000;
+        }
+        sample.requestBytes = (metrics.requestBytes >= 0) ? metrics.requestBytes : json.length();
+        if (metrics.responseBytes >= 0) sample.responseBytes = metrics.responseBytes;
+        sample.statements = new ArrayList<>();
+        for (Statement statement : batch.statements) sample.statements.add(QueryTelemetry.forLog(statement));
+        telemetry.record(sample);
+        if (sample.totalMs >= QueryTelemetry.SLOW_QUERY_MS) {
+            Log.w("TursoClient", "Slow query " + sample.shape + ": " + sample.totalMs + " ms (ttfb " + sample.ttfbMs
+                    + ", transfer " + sample.transferMs + ", parse " + sample.parseMs + ", rows " + sample.rows + ")");
+        }
     }
-    private long getLong(JsonArray row, int index) {
-        if (index == -1 || index >= row.size() || row.get(index).isJsonNull()) return 0;
-        JsonElement el = row.get(index);
-        String val = (el.isJsonObject() && el.getAsJsonObject().has("value")) ? el.getAsJsonObject().get("value").getAsString() : el.getAsString();
-        try { return Long.parseLong(val); } catch (Exception e) { return 0; }
+
+    // Igual que PageResultCallback pero para executeRows: se queda con las filas crudas del resultado
+    private static class RowsResultCallback implements MovieCallback, ResultListener {
+        private final RowsCallback callback;
+        private TursoResponseParser.StatementResult result;
+
+        RowsResultCallback(RowsCallback callback) {
+            this.callback = callback;
+        }
+
+        @Override
+        public void onResult(TursoResponseParser.StatementResult result) {
+            this.result = result;
+        }
+
+        @Override
+        public void onSuccess(Set<Movie> movies) {
+            callback.onRows(result.columnNames, result.rows);
+        }
+
+        @Override
+        public void onError(Exception e) {
+            callback.onError(e);
+        }
     }
-    private int getInt(JsonArray row, int index) {
-        if (index == -1 || index >= row.size() || row.get(index).isJsonNull()) return 0;
-        JsonElement el = row.get(index);
-        String val = (el.isJsonObject() && el.getAsJsonObject().has("value")) ? el.getAsJsonObject().get("value").getAsString() : el.getAsString();
-        try { return Integer.parseInt(val); } catch (Exception e) { return 0; }
+
+    // Adapta un PageCallback al flujo normal de MovieCallback: executeBatch le pasa la clave de la
+    // última fila antes de entregar el resultado y aquí se convierte en el cursor siguiente.
+    private static class PageResultCallback implements MovieCallback, ResultListener {
+        private final PageCallback callback;
+        private final int limit;
+        private PageCursor next;
+
+        PageResultCallback(PageCallback callback, int limit) {
+            this.callback = callback;
+            this.limit = limit;
+        }
+
+        @Override
+        public void onResult(TursoResponseParser.StatementResult result) {
+            if (result == null || result.error != null) return;
+            if (result.movies.size() + result.skippedRows < limit) {
+                next = null; // Página incompleta: no hay más
+            } else if (!result.lastSortRank.isEmpty()) {
+                int prefix = result.lastSortPrefix.equals("1") ? 1 : 0;
+                next = PageCursor.afterRanked(result.lastRowId, prefix, Double.parseDouble(result.lastSortRank));
+            } else {
+                next = PageCursor.afterRow(result.lastRowId);
+            }
+        }
+
+        @Override
+        public void onSuccess(Set<Movie> movies) {
+            callback.onSuccess(movies, next);
+        }
+
+        @Override
+        public void onError(Exception e) {
+            callback.onError(e);
+        }
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,100 @@
+package com.example.prueba;
+
+import android.os.Handler;
+import android.os.Looper;
+import android.util.Log;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+
+// Escritura diferida de watchlist, vistas y progreso. DataRepository cambia la memoria al momento
+// y aquí solo se apunta el último estado de cada película: diez toques sobre la misma se quedan en
+// una fila. Lo pendiente se vuelca en el hilo de BD en una sola transacción, FLUSH_DELAY_MS después
+// del primer cambio o en cuanto la app pasa a segundo plano (flushNow).
+class UserDataWriter {
+    static final long FLUSH_DELAY_MS = 300;
+
+    private final MovieDatabaseHelper dbHelper;
+    private final ExecutorService executor;
+    private final Handler mainHandler = new Handler(Looper.getMainLooper());
+
+    private MovieDatabaseHelper.UserWrites pending = new MovieDatabaseHelper.UserWrites();
+    private boolean started;
+    private boolean flushScheduled;
+
+    UserDataWriter(MovieDatabaseHelper dbHelper, ExecutorService executor) {
+        this.dbHelper = dbHelper;
+        this.executor = executor;
+    }
+
+    synchronized void setInWatchlist(long movieId, boolean inWatchlist) {
+        pending.watchlist.put(movieId, inWatchlist ? System.currentTimeMillis() : MovieDatabaseHelper.UserWrites.REMOVED);
+        scheduleFlush();
+    }
+
+    synchronized void setSeen(long movieId, boolean seen) {
+        pending.seen.put(movieId, seen ? System.currentTimeMillis() : MovieDatabaseHelper.UserWrites.REMOVED);
+        scheduleFlush();
+    }
+
+    synchronized void saveProgress(long movieId, int position) {
+        pending.resume.put(movieId, position);
+        scheduleFlush();
+    }
+
+    // Pasa lo pendiente por encima de lo leído de la BD; hasta entonces no se vuelca nada para que
+    // un cambio hecho mientras se leía no se pierda ni se pise
+    synchronized void overlayAndStart(LongHashSet watchlist, LongHashSet seen, LongIntHashMap resume) {
+        overlay(pending.watchlist, watchlist);
+        overlay(pending.seen, seen);
+        for (Map.Entry<Long, Integer> entry : pending.resume.entrySet()) resume.put(entry.getKey(), entry.getValue());
+        started = true;
+        if (!pending.isEmpty()) scheduleFlush();
+    }
+
+    private static void overlay(Map<Long, Long> changes, LongHashSet ids) {
+        for (Map.Entry<Long, Long> change : changes.entrySet()) {
+            if (change.getValue() == MovieDatabaseHelper.UserWrites.REMOVED) {
+                ids.remove(change.getKey());
+            } else {
+                ids.add(change.getKey());
+            }
+        }
+    }
+
+    // Al salir de la app no esperamos al retardo: el proceso puede morir en cualquier momento
+    synchronized void flushNow() {
+        if (!started || pending.isEmpty()) return;
+        flushScheduled = true;
+        executor.execute(this::flush);
+    }
+
+    private void scheduleFlush() {
+        if (!started || flushScheduled) return;
+        flushScheduled = true;
+        mainHandler.postDelayed(() -> executor.execute(this::flush), FLUSH_DELAY_MS);
+    }
+
+    // Hilo de BD
+    private void flush() {
+        MovieDatabaseHelper.UserWrites batch;
+        synchronized (this) {
+            flushScheduled = false;
+            if (pending.isEmpty()) return;
+            batch = pending;
+            pending = new MovieDatabaseHelper.UserWrites();
+        }
+        try {
+            dbHelper.applyUserWrites(batch);
+        } catch (Exception e) {
+            Log.e("UserDataWriter", "Flush failed, retrying later", e);
+            synchronized (this) {
+                // Lo que haya cambiado desde entonces es más nuevo y manda
+                batch.watchlist.putAll(pending.watchlist);
+                batch.seen.putAll(pending.seen);
+                batch.resume.putAll(pending.resume);
+                pending = batch;
+                scheduleFlush();
+            }
+        }
+    }
+}
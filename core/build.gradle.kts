@@ -0,0 +1,33 @@
+// Lógica sin Android (parser de Turso, índice de géneros, búsqueda local...) para poder
+// medirla con JMH en la JVM: ./gradlew :core:jmh
+plugins {
+    `java-library`
+    alias(libs.plugins.jmh)
+}
+
+java {
+    sourceCompatibility = JavaVersion.VERSION_11
+    targetCompatibility = JavaVersion.VERSION_11
+}
+
+// Los fuentes llevan tildes en comentarios y datos de prueba
+tasks.withType<JavaCompile>().configureEach {
+    options.encoding = "UTF-8"
+}
+
+dependencies {
+    api(libs.gson)
+    testImplementation(libs.junit)
+}
+
+jmh {
+    jmhVersion = libs.versions.jmh.get()
+    // Bytes asignados por operación junto a cada tiempo, para ver regresiones de memoria
+    profilers = listOf("gc")
+    fork = 1
+    warmupIterations = 3
+    iterations = 5
+    resultFormat = "JSON"
+    // ./gradlew :core:jmh -Pjmh.includes=ResponseParser para lanzar solo una parte
+    project.findProperty("jmh.includes")?.let { includes = listOf(it.toString()) }
+}
@@ -0,0 +1,99 @@
+package com.example.prueba;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.infra.Blackhole;
+
+// Lo que hace DataRepository con el catálogo en memoria, para catálogos de distinto tamaño:
+// search/normalizeForSearch, getSignificantGenres, getMoviesForGenre, syncWithLocalData y
+// reconstruir el índice de géneros tras un clearCache
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class CatalogBenchmark {
+
+    @Param({"1000", "10000", "100000"})
+    public int size;
+
+    private List<Movie> movies;
+    private GenreIndex genreIndex;
+    private LocalLibrary library;
+    private User user;
+    private List<List<Movie>> pages;
+
+    @Setup
+    public void setup() {
+        movies = Catalogs.movies(size, 42);
+        genreIndex = GenreIndex.of(movies);
+
+        // Un 2% en la watchlist, un 3% vistas y un 1% a medias
+        LongHashSet watchlist = new LongHashSet();
+        LongHashSet seen = new LongHashSet();
+        LongIntHashMap resume = new LongIntHashMap();
+        for (Movie m : movies) {
+            if (m.getId() % 50 == 0) watchlist.add(m.getId());
+            if (m.getId() % 33 == 0) seen.add(m.getId());
+            if (m.getId() % 100 == 0) resume.put(m.getId(), 42);
+        }
+        library = new LocalLibrary(watchlist, seen, resume);
+        user = new User();
+
+        // El catálogo en páginas de "cargar más"
+        pages = new ArrayList<>();
+        for (int from = 0; from < size; from += 20) pages.add(movies.subList(from, Math.min(from + 20, size)));
+    }
+
+    @Benchmark
+    public Set<Movie> search() {
+        return MovieSearch.search(movies, "Corazón");
+    }
+
+    @Benchmark
+    public void normalizeForSearch(Blackhole blackhole) {
+        for (Movie m : movies) blackhole.consume(MovieSearch.normalizeForSearch(m.getTitle()));
+    }
+
+    @Benchmark
+    public List<String> significantGenres() {
+        return genreIndex.topGenres(5);
+    }
+
+    @Benchmark
+    public Set<Movie> moviesForGenre() {
+        return genreIndex.sample("Drama", 10);
+    }
+
+    @Benchmark
+    public Set<Movie> moviesForRareGenre() {
+        return genreIndex.sample("Western", 10);
+    }
+
+    @Benchmark
+    public GenreIndex buildGenreIndex() {
+        return GenreIndex.of(movies);
+    }
+
+    // Una sesión de "cargar más" entera: el catálogo llega de 20 en 20 y cada página publica una
+    // versión nueva. Debe crecer con el catálogo, no con su cuadrado
+    @Benchmark
+    public CatalogSnapshot loadCatalogInPages() {
+        CatalogSnapshot catalog = CatalogSnapshot.EMPTY;
+        for (List<Movie> page : pages) catalog = catalog.withAdded(page);
+        return catalog;
+    }
+
+    @Benchmark
+    public void syncWithLocalData() {
+        library.sync(user, movies);
+    }
+}
@@ -0,0 +1,127 @@
+package com.example.prueba;
+
+import com.google.gson.stream.JsonWriter;
+import java.io.IOException;
+import java.io.StringWriter;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+// Catálogos y respuestas de /v2/pipeline sintéticos con la forma de los reales: las columnas de
+// TursoClient.getColumns, géneros escritos como en filtered_movies.csv, títulos con tildes y
+// guiones y sinopsis de longitud parecida. Misma semilla, mismos datos en cada ejecución.
+final class Catalogs {
+
+    // De más a menos frecuente, como en el catálogo real (Drama y Comedy dominan)
+    static final String[] GENRES = {
+            "Drama", "Comedy", "Thriller", "Action", "Romance", "Horror", "Crime", "Adventure",
+            "Science Fiction", "Family", "Fantasy", "Mystery", "Animation", "History", "Music",
+            "War", "Documentary", "Western", "TV Movie"
+    };
+
+    private static final String[] WORDS = {
+            "amor", "noche", "última", "canción", "río", "ciudad", "guerra", "sombra", "Spider-Man",
+            "the", "dark", "night", "return", "king", "lost", "camión", "corazón", "star", "man",
+            "día", "X-Men", "historia", "verano", "mar", "fuego", "dragon", "city", "love", "island"
+    };
+
+    private Catalogs() {}
+
+    static List<Movie> movies(int count, long seed) {
+        Random random = new Random(seed);
+        List<Movie> movies = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            movies.add(new Movie(i + 1, title(random), posterPath(random), overview(random),
+                    TursoResponseParser.formatDuration(runtime(random)), genres(random)));
+        }
+        return movies;
+    }
+
+    // {"baton":..., "results":[{"type":"ok","response":{"type":"execute","result":{cols, rows}}}]}
+    static String pipelinePayload(int rows, long seed) {
+        Random random = new Random(seed);
+        StringWriter out = new StringWriter();
+        try (JsonWriter json = new JsonWriter(out)) {
+            json.beginObject();
+            json.name("baton").value("b" + Long.toHexString(random.nextLong()));
+            json.name("base_url").nullValue();
+            json.name("results").beginArray();
+            json.beginObject().name("type").value("ok").name("response").beginObject()
+                    .name("type").value("execute").name("result").beginObject();
+            json.name("cols").beginArray();
+            for (String col : new String[] {"rowid", "title", "runtime", "overview", "poster_path", "genres"}) {
+                json.beginObject().name("name").value(col).name("decltype").nullValue().endObject();
+            }
+            json.endArray();
+            json.name("rows").beginArray();
+            for (int i = 0; i < rows; i++) {
+                json.beginArray();
+                cell(json, "integer", String.valueOf(1 + random.nextInt(1_000_000)));
+                cell(json, "text", title(random));
+                cell(json, "integer", String.valueOf(runtime(random)));
+                cell(json, "text", overview(random));
+                cell(json, "text", posterPath(random));
+                cell(json, "text", String.join(", ", genres(random)));
+                json.endArray();
+            }
+            json.endArray();
+            json.name("affected_row_count").value(0);
+            json.name("last_insert_rowid").nullValue();
+            json.endObject().endObject().endObject();
+            json.endArray();
+            json.endObject();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return out.toString();
+    }
+
+    private static void cell(JsonWriter json, String type, String value) throws IOException {
+        json.beginObject().name("type").value(type).name("value").value(value).endObject();
+    }
+
+    private static String title(Random random) {
+        int words = 1 + random.nextInt(4);
+        StringBuilder sb = new StringBuilder();
+        for (int i = 0; i < words; i++) {
+            if (i > 0) sb.append(' ');
+            String word = WORDS[random.nextInt(WORDS.length)];
+            sb.append(Character.toUpperCase(word.charAt(0))).append(word, 1, word.length());
+        }
+        if (random.nextInt(8) == 0) sb.append(": ").append(2 + random.nextInt(3));
+        return sb.toString();
+    }
+
+    private static String overview(Random random) {
+        int words = 25 + random.nextInt(40);
+        StringBuilder sb = new StringBuilder();
+        for (int i = 0; i < words; i++) {
+            if (i > 0) sb.append(' ');
+            sb.append(WORDS[random.nextInt(WORDS.length)]);
+        }
+        return sb.append('.').toString();
+    }
+
+    private static String posterPath(Random random) {
+        String alphabet = "abcdefghijklmnopqrstuvwxyzABCDEFGHIJKLMNOPQRSTUVWXYZ0123456789";
+        StringBuilder sb = new StringBuilder("/");
+        for (int i = 0; i < 27; i++) sb.append(alphabet.charAt(random.nextInt(alphabet.length())));
+        return sb.append(".jpg").toString();
+    }
+
+    private static int runtime(Random random) {
+        return 70 + random.nextInt(110);
+    }
+
+    // 1 a 3 géneros, sesgados hacia los primeros de GENRES
+    private static List<String> genres(Random random) {
+        int count = 1 + random.nextInt(3);
+        List<String> genres = new ArrayList<>(count);
+        while (genres.size() < count) {
+            String genre = GENRES[(int) (GENRES.length * random.nextDouble() * random.nextDouble())];
+            if (!genres.contains(genre)) genres.add(genre);
+        }
+        return genres;
+    }
+}
@@ -0,0 +1,121 @@
+package com.example.prueba;
+
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+// Biblioteca del usuario con HashSet<Long>/HashMap<Long,Integer> frente a LongHashSet/LongIntHashMap.
+// build*: cargarla desde la BD con el tamaño ya conocido; con -prof gc, gc.alloc.rate.norm es
+// prácticamente lo que ocupa. lookup*: las tres consultas de LocalLibrary.sync para una página
+// de 1000 películas, la mitad en la biblioteca.
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class LibraryCollectionsBenchmark {
+
+    @Param({"1000", "10000"})
+    public int entries;
+
+    private long[] watchlistIds, seenIds, resumeIds;
+    private long[] pageIds;
+
+    private Set<Long> boxedWatchlist, boxedSeen;
+    private Map<Long, Integer> boxedResume;
+    private LongHashSet watchlist, seen;
+    private LongIntHashMap resume;
+
+    @Setup
+    public void setup() {
+        Random random = new Random(42);
+        // Ids de TMDB: hasta siete cifras, sin orden
+        watchlistIds = randomIds(random, entries);
+        seenIds = randomIds(random, entries);
+        resumeIds = randomIds(random, entries / 4);
+        pageIds = new long[1000];
+        for (int i = 0; i < pageIds.length; i++) {
+            pageIds[i] = (i % 2 == 0) ? watchlistIds[random.nextInt(entries)] : 1 + random.nextInt(2_000_000);
+        }
+
+        boxedWatchlist = buildBoxedSet(watchlistIds);
+        boxedSeen = buildBoxedSet(seenIds);
+        boxedResume = buildBoxedMap(resumeIds);
+        watchlist = buildSet(watchlistIds);
+        seen = buildSet(seenIds);
+        resume = buildMap(resumeIds);
+    }
+
+    @Benchmark
+    public Object[] buildBoxed() {
+        return new Object[] {buildBoxedSet(watchlistIds), buildBoxedSet(seenIds), buildBoxedMap(resumeIds)};
+    }
+
+    @Benchmark
+    public Object[] buildPrimitive() {
+        return new Object[] {buildSet(watchlistIds), buildSet(seenIds), buildMap(resumeIds)};
+    }
+
+    @Benchmark
+    public int lookupBoxed() {
+        int hits = 0;
+        for (long id : pageIds) {
+            if (boxedWatchlist.contains(id)) hits++;
+            if (boxedSeen.contains(id)) hits++;
+            Integer minute = boxedResume.get(id);
+            if (minute != null) hits += minute;
+        }
+        return hits;
+    }
+
+    @Benchmark
+    public int lookupPrimitive() {
+        int hits = 0;
+        for (long id : pageIds) {
+            if (watchlist.contains(id)) hits++;
+            if (seen.contains(id)) hits++;
+            int minute = resume.get(id, -1);
+            if (minute >= 0) hits += minute;
+        }
+        return hits;
+    }
+
+    private static long[] randomIds(Random random, int count) {
+        long[] ids = new long[count];
+        for (int i = 0; i < count; i++) ids[i] = 1 + random.nextInt(2_000_000);
+        return ids;
+    }
+
+    private static Set<Long> buildBoxedSet(long[] ids) {
+        Set<Long> set = new HashSet<>((int) (ids.length / 0.75f) + 1);
+        for (long id : ids) set.add(id);
+        return set;
+    }
+
+    private static Map<Long, Integer> buildBoxedMap(long[] ids) {
+        Map<Long, Integer> map = new HashMap<>((int) (ids.length / 0.75f) + 1);
+        for (long id : ids) map.put(id, (int) (id % 120));
+        return map;
+    }
+
+    private static LongHashSet buildSet(long[] ids) {
+        LongHashSet set = new LongHashSet(ids.length);
+        for (long id : ids) set.add(id);
+        return set;
+    }
+
+    private static LongIntHashMap buildMap(long[] ids) {
+        LongIntHashMap map = new LongIntHashMap(ids.length);
+        for (long id : ids) map.put(id, (int) (id % 120));
+        return map;
+    }
+}
@@ -0,0 +1,74 @@
+package com.example.prueba;
+
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+// Recomendaciones sobre catálogos grandes con una biblioteca de 300 películas.
+// recommend: puntuar todo el catálogo y quedarse con 20. candidates: aplanar el catálogo, una vez
+// por versión. sample: lo que había antes (20 al azar), como referencia de lo mínimo que cuesta.
+// toggle: añadir y quitar una película de la watchlist, que solo toca el perfil, y snapshot: la
+// copia del perfil que se lleva el hilo de recomendaciones.
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class RecommenderBenchmark {
+
+    @Param({"10000", "50000"})
+    public int size;
+
+    private CatalogSnapshot catalog;
+    private Recommender recommender;
+    private Recommender.Profile profile;
+    private Recommender.Candidates candidates;
+    private Movie toggled;
+
+    @Setup
+    public void setup() {
+        List<Movie> movies = Catalogs.movies(size, 42);
+        catalog = CatalogSnapshot.EMPTY.replacedBy(movies);
+        recommender = new Recommender();
+        for (int i = 0; i < 300; i++) {
+            Movie m = movies.get(i * (size / 300));
+            recommender.update(m, i % 3 == 0 ? Recommender.SEEN : Recommender.WATCHLIST);
+        }
+        profile = recommender.snapshot();
+        candidates = Recommender.Candidates.of(catalog);
+        toggled = movies.get(1);
+    }
+
+    @Benchmark
+    public List<Movie> recommend() {
+        return profile.recommend(candidates, 20, null);
+    }
+
+    @Benchmark
+    public Recommender.Candidates candidates() {
+        return Recommender.Candidates.of(catalog);
+    }
+
+    @Benchmark
+    public Set<Movie> sample() {
+        return catalog.getGenres().sample((String) null, 20);
+    }
+
+    @Benchmark
+    public long toggle() {
+        recommender.update(toggled, Recommender.WATCHLIST);
+        recommender.update(toggled, 0);
+        return recommender.getVersion();
+    }
+
+    @Benchmark
+    public Recommender.Profile snapshot() {
+        return recommender.snapshot();
+    }
+}
@@ -0,0 +1,43 @@
+package com.example.prueba;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.infra.Blackhole;
+
+// Parseo de una respuesta de /v2/pipeline de 50 filas (una página), 1k y 10k (volcado grande)
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class ResponseParserBenchmark {
+
+    @Param({"50", "1000", "10000"})
+    public int rows;
+
+    private String payload;
+
+    @Setup
+    public void setup() {
+        payload = Catalogs.pipelinePayload(rows, 42);
+    }
+
+    @Benchmark
+    public List<TursoResponseParser.StatementResult> parse() throws IOException {
+        return new TursoResponseParser().parse(new StringReader(payload));
+    }
+
+    // Como en la portada: las filas salen en trozos de 12 mientras se parsea
+    @Benchmark
+    public List<TursoResponseParser.StatementResult> parseChunked(Blackhole blackhole) throws IOException {
+        return new TursoResponseParser(12, (index, chunk) -> blackhole.consume(chunk)).parse(new StringReader(payload));
+    }
+}
@@ -0,0 +1,65 @@
+package com.example.prueba;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+// "Títulos parecidos" con el índice ya cargado. similar: las 24 más parecidas a una película (lo
+// que se hace al abrir el detalle). add: recalcular la firma de una película que vuelve a llegar
+// sin cambios, que es el caso normal al refrescar la portada. replace: la misma película con otra
+// sinopsis, que saca su firma de los cubos y la vuelve a meter. decode: leer una firma de la base.
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class SimilarityIndexBenchmark {
+
+    @Param({"2000", "20000"})
+    public int size;
+
+    private SimilarityIndex index;
+    private Movie movie;
+    private int[][] versions;
+    private int version;
+    private byte[] blob;
+
+    @Setup
+    public void setup() {
+        List<Movie> movies = Catalogs.movies(size, 42);
+        index = new SimilarityIndex();
+        for (Movie m : movies) index.add(m);
+        movie = movies.get(size / 2);
+        Movie other = movies.get(size / 3);
+        Movie edited = new Movie(movie.getId(), movie.getTitle(), movie.getPosterUrl(),
+                other.getDescription(), movie.getDuration(), movie.getGenres());
+        versions = new int[][]{SimilarityIndex.signature(movie), SimilarityIndex.signature(edited)};
+        blob = SimilarityIndex.encode(versions[0]);
+    }
+
+    @Benchmark
+    public long[] similar() {
+        return index.similar(movie.getId(), 24);
+    }
+
+    @Benchmark
+    public boolean add() {
+        return index.add(movie);
+    }
+
+    @Benchmark
+    public boolean replace() {
+        version ^= 1;
+        return index.put(movie.getId(), versions[version]);
+    }
+
+    @Benchmark
+    public int[] decode() {
+        return SimilarityIndex.decode(blob);
+    }
+}
@@ -0,0 +1,56 @@
+package com.example.prueba;
+
+import java.util.Collection;
+import java.util.Set;
+
+// Una versión del catálogo en memoria: películas en orden de llegada más su índice de géneros.
+// No cambia nunca después de construirse, así que se puede leer desde cualquier hilo sin locks ni
+// copias. DataRepository publica una nueva (withAdded / replacedBy / emptied) en cada cambio y la
+// cambia de golpe; quien tenga la anterior sigue viendo un catálogo coherente. Las películas son las
+// del índice (GenreIndex), que comparte sus arrays con la versión anterior en vez de copiarlos.
+public final class CatalogSnapshot {
+
+    // Solo como valor inicial; para vaciar un catálogo ya publicado está emptied()
+    public static final CatalogSnapshot EMPTY = new CatalogSnapshot(0, GenreIndex.EMPTY);
+
+    private final long version;
+    private final GenreIndex genres;
+
+    private CatalogSnapshot(long version, GenreIndex genres) {
+        this.version = version;
+        this.genres = genres;
+    }
+
+    // Sube con cada cambio publicado: sirve para saber si algo calculado sobre el catálogo caducó
+    public long getVersion() { return version; }
+
+    // De solo lectura; contains() busca por id en el índice
+    public Set<Movie> getMovies() { return genres.movies(); }
+
+    public int size() { return genres.size(); }
+
+    public boolean isEmpty() { return genres.size() == 0; }
+
+    // La instancia del catálogo con ese id (null si no está)
+    public Movie get(long id) { return genres.get(id); }
+
+    public GenreIndex getGenres() { return genres; }
+
+    // Catálogo nuevo con 'added' al final; las que ya estaban conservan su instancia y posición.
+    // Solo se indexan las nuevas, sin copiar el catálogo. Si no entra ninguna devuelve esta versión.
+    public CatalogSnapshot withAdded(Iterable<Movie> added) {
+        GenreIndex next = genres.withAdded(added);
+        return next == genres ? this : new CatalogSnapshot(version + 1, next);
+    }
+
+    // Catálogo nuevo con exactamente estas películas (portada recién descargada)
+    public CatalogSnapshot replacedBy(Collection<Movie> replacement) {
+        return new CatalogSnapshot(version + 1, GenreIndex.of(replacement));
+    }
+
+    // Catálogo vacío que sigue a este: la versión no vuelve atrás, así que lo calculado sobre el
+    // catálogo anterior se da por caducado
+    public CatalogSnapshot emptied() {
+        return new CatalogSnapshot(version + 1, GenreIndex.EMPTY);
+    }
+}
@@ -0,0 +1,22 @@
+package com.example.prueba;
+
+import java.util.Locale;
+
+// Idioma de las sinopsis. En peliculas solo hay dos: inglés (overview) y español (overview_es);
+// todo lo demás del catálogo (título, póster, géneros, duración) es igual en los dos.
+public final class ContentLanguage {
+    public static final String EN = "en";
+    public static final String ES = "es";
+
+    private ContentLanguage() {}
+
+    // El de la app (SettingsActivity fija Locale.getDefault()); cualquier otro idioma ve el inglés
+    public static String current() {
+        return ES.equals(Locale.getDefault().getLanguage()) ? ES : EN;
+    }
+
+    // Columna de peliculas con la sinopsis en ese idioma
+    public static String overviewColumn(String language) {
+        return ES.equals(language) ? "overview_es" : "overview";
+    }
+}
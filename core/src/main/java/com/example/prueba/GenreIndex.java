@@ -0,0 +1,426 @@
+package com.example.prueba;
+
+import java.util.AbstractSet;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.PriorityQueue;
+import java.util.Random;
+import java.util.Set;
+
+// Índice de géneros del catálogo en memoria. Cada género distinto se guarda una sola vez
+// (diccionario) y recibe un número; cada película tiene un BitSet con sus géneros y cada género
+// una lista de posiciones (posting list). Así las filas por género, los contadores y los filtros
+// combinados no recorren todo el catálogo.
+// Un GenreIndex no cambia después de construirse (of / withAdded), así que se lee desde cualquier
+// hilo sin locks. Las versiones que salen unas de otras comparten los arrays del Builder: la nueva
+// solo escribe detrás de lo que ve la anterior y guarda sus propias longitudes, de modo que añadir
+// una página cuesta lo que la página y no lo que el catálogo.
+public final class GenreIndex {
+
+    public static final GenreIndex EMPTY = new Builder().build();
+
+    // El builder del que sale; solo lo usa withAdded
+    private final Builder owner;
+    // Por posición (slot), en orden de llegada: película, id, géneros y duración en minutos
+    private final int size;
+    private final Movie[] movies;
+    private final long[] ids;
+    private final BitSet[] movieGenres;
+    private final int[] runtimes;
+    private final int[] slotTable;
+
+    // Diccionario: ids de 0 a genreCount - 1, con el nombre tal como llegó la primera vez
+    private final int genreCount;
+    private final String[] genreNames;
+    private final int[][] postings;
+    private final int[] postingSizes;
+
+    private final Set<Movie> movieSet = new Movies();
+    private final Random random = new Random();
+
+    private GenreIndex(Builder builder) {
+        owner = builder;
+        size = builder.size;
+        movies = builder.movies;
+        ids = builder.ids;
+        movieGenres = builder.movieGenres;
+        runtimes = builder.runtimes;
+        slotTable = builder.slotTable;
+        genreCount = builder.genreCount;
+        genreNames = builder.genreNames;
+        // Las posting lists siguen creciendo en el builder: de cada una, la referencia y el tamaño de ahora
+        postings = Arrays.copyOf(builder.postings, genreCount);
+        postingSizes = Arrays.copyOf(builder.postingSizes, genreCount);
+    }
+
+    public static GenreIndex of(Iterable<Movie> movies) {
+        Builder builder = new Builder();
+        for (Movie m : movies) builder.add(m);
+        return builder.build();
+    }
+
+    // Índice con 'added' al final; las que ya estaban conservan su instancia y posición. Si esta es
+    // la última versión de su builder se añade en sus arrays; si no (otra versión ya siguió desde
+    // aquí) se copia lo que ve esta antes de añadir. Devuelve esta misma si no entra ninguna.
+    public GenreIndex withAdded(Iterable<Movie> added) {
+        synchronized (owner) {
+            Builder builder = null;
+            for (Movie m : added) {
+                if (builder == null) {
+                    if (contains(m.getId())) continue;
+                    // El EMPTY compartido nunca se queda con los arrays de un catálogo
+                    builder = (size > 0 && owner.size == size) ? owner : new Builder(this);
+                }
+                builder.add(m);
+            }
+            return builder == null ? this : builder.build();
+        }
+    }
+
+    // La instancia indexada con ese id (null si no está en el catálogo)
+    public Movie get(long id) {
+        int slot = find(slotTable, ids, size, id);
+        return (slot >= 0) ? movies[slot] : null;
+    }
+
+    public boolean contains(long id) {
+        return find(slotTable, ids, size, id) >= 0;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    // Las películas en orden de llegada, como Set de solo lectura (contains por id)
+    public Set<Movie> movies() {
+        return movieSet;
+    }
+
+    public int count(String genre) {
+        BitSet ids = resolve(genre);
+        if (ids.cardinality() == 1) return postingSizes[ids.nextSetBit(0)];
+        int count = 0;
+        for (int slot = 0; slot < size; slot++) if (movieGenres[slot].intersects(ids)) count++;
+        return count;
+    }
+
+    // Los k géneros con más películas, de mayor a menor, con un montículo de tamaño k. A igual
+    // número va antes el que se vio primero, para que las filas no bailen de una carga a otra
+    public List<String> topGenres(int k) {
+        PriorityQueue<Integer> heap = new PriorityQueue<>(k + 1, (a, b) -> {
+            int bySize = postingSizes[a] - postingSizes[b];
+            return bySize != 0 ? bySize : b - a;
+        });
+        for (int g = 0; g < genreCount; g++) {
+            if (postingSizes[g] == 0) continue;
+            heap.add(g);
+            if (heap.size() > k) heap.poll();
+        }
+        String[] top = new String[heap.size()];
+        for (int i = top.length - 1; i >= 0; i--) top[i] = genreNames[heap.poll()];
+        return Arrays.asList(top);
+    }
+
+    // Hasta k películas al azar de un género, por muestreo de reservorio sobre su posting list
+    // (sin copiar ni barajar todas las coincidencias)
+    public Set<Movie> sample(String genre, int k) {
+        if (genre == null) return sample(null, 0, Integer.MAX_VALUE, k);
+        return sample(new String[] {genre}, 0, Integer.MAX_VALUE, k);
+    }
+
+    // Hasta k películas al azar que tengan TODOS los géneros pedidos y una duración en
+    // [minRuntime, maxRuntime]. Recorre solo la posting list más corta y comprueba el resto
+    // con el BitSet de cada película. Sin géneros, muestrea el catálogo entero.
+    public Set<Movie> sample(String[] genres, int minRuntime, int maxRuntime, int k) {
+        int[] reservoir = new int[Math.max(k, 0)];
+        int seen = 0;
+        int stored = 0;
+        if (genres == null || genres.length == 0) {
+            for (int slot = 0; slot < size; slot++) {
+                if (runtimes[slot] < minRuntime || runtimes[slot] > maxRuntime) continue;
+                stored = offer(reservoir, stored, seen++, slot);
+            }
+            return toMovies(reservoir, stored);
+        }
+
+        BitSet[] required = new BitSet[genres.length];
+        int driver = -1;
+        for (int i = 0; i < genres.length; i++) {
+            required[i] = resolve(genres[i]);
+            if (required[i].isEmpty()) return new LinkedHashSet<>();
+            if (required[i].cardinality() == 1
+                    && (driver == -1 || postingSizes[required[i].nextSetBit(0)] < postingSizes[driver])) {
+                driver = required[i].nextSetBit(0);
+            }
+        }
+
+        if (driver != -1) {
+            int[] posting = postings[driver];
+            for (int i = 0; i < postingSizes[driver]; i++) {
+                int slot = posting[i];
+                if (matches(slot, required, minRuntime, maxRuntime)) stored = offer(reservoir, stored, seen++, slot);
+            }
+        } else {
+            // Todos los géneros pedidos son fragmentos que encajan con varios nombres: toca recorrer
+            for (int slot = 0; slot < size; slot++) {
+                if (matches(slot, required, minRuntime, maxRuntime)) stored = offer(reservoir, stored, seen++, slot);
+            }
+        }
+        return toMovies(reservoir, stored);
+    }
+
+    private boolean matches(int slot, BitSet[] required, int minRuntime, int maxRuntime) {
+        if (runtimes[slot] < minRuntime || runtimes[slot] > maxRuntime) return false;
+        BitSet genres = movieGenres[slot];
+        for (BitSet ids : required) if (!genres.intersects(ids)) return false;
+        return true;
+    }
+
+    // Algoritmo R: el elemento número 'seen' entra con probabilidad k / (seen + 1)
+    private int offer(int[] reservoir, int stored, int seen, int slot) {
+        if (stored < reservoir.length) {
+            reservoir[stored] = slot;
+            return stored + 1;
+        }
+        int j = random.nextInt(seen + 1);
+        if (j < reservoir.length) reservoir[j] = slot;
+        return stored;
+    }
+
+    private Set<Movie> toMovies(int[] reservoir, int stored) {
+        // Solo se barajan los k elegidos
+        for (int i = stored - 1; i > 0; i--) {
+            int j = random.nextInt(i + 1);
+            int tmp = reservoir[i];
+            reservoir[i] = reservoir[j];
+            reservoir[j] = tmp;
+        }
+        Set<Movie> result = new LinkedHashSet<>();
+        for (int i = 0; i < stored; i++) result.add(movies[reservoir[i]]);
+        return result;
+    }
+
+    // Para Recommender: recorre el catálogo con los géneros de cada película ya como ids
+    public interface MovieVisitor {
+        void visit(Movie movie, BitSet genres);
+    }
+
+    public void forEachMovie(MovieVisitor visitor) {
+        for (int slot = 0; slot < size; slot++) visitor.visit(movies[slot], movieGenres[slot]);
+    }
+
+    // Número de géneros del diccionario; los ids van de 0 a genreCount() - 1
+    public int genreCount() {
+        return genreCount;
+    }
+
+    // Nombre en minúsculas (la misma clave que usa el diccionario)
+    public String genreKey(int genreId) {
+        return genreNames[genreId].toLowerCase(Locale.ROOT);
+    }
+
+    public int moviesWithGenre(int genreId) {
+        return postingSizes[genreId];
+    }
+
+    // Como el antiguo hasGenre: "action" encaja con "Action" y con "Action & Adventure".
+    // Se resuelve una vez contra el diccionario, no por cada película.
+    private BitSet resolve(String genre) {
+        BitSet ids = new BitSet();
+        String key = genre.trim().toLowerCase(Locale.ROOT);
+        for (int g = 0; g < genreCount; g++) {
+            if (genreNames[g].toLowerCase(Locale.ROOT).contains(key)) ids.set(g);
+        }
+        return ids;
+    }
+
+    // Slot de 'id' en la tabla (posición + 1 por casilla, 0 = libre), o -1. El builder puede estar
+    // añadiendo en la misma tabla desde otro hilo: una casilla con slot >= size es de una versión
+    // posterior, o se está escribiendo ahora, y se salta sin mirar más
+    private static int find(int[] table, long[] ids, int size, long id) {
+        int mask = table.length - 1;
+        for (int i = LongHashing.mix(id) & mask; ; i = (i + 1) & mask) {
+            int entry = table[i];
+            if (entry == 0) return -1;
+            int slot = entry - 1;
+            if (slot < size && ids[slot] == id) return slot;
+        }
+    }
+
+    private static void insert(int[] table, long id, int slot) {
+        int mask = table.length - 1;
+        int i = LongHashing.mix(id) & mask;
+        while (table[i] != 0) i = (i + 1) & mask;
+        table[i] = slot + 1;
+    }
+
+    // "1h 45m" -> 105 (el formato de TursoResponseParser.formatDuration)
+    static int parseMinutes(String duration) {
+        if (duration == null) return 0;
+        int minutes = 0, value = 0;
+        for (int i = 0; i < duration.length(); i++) {
+            char c = duration.charAt(i);
+            if (c >= '0' && c <= '9') {
+                value = value * 10 + (c - '0');
+            } else if (c == 'h') {
+                minutes += value * 60;
+                value = 0;
+            } else if (c == 'm') {
+                minutes += value;
+                value = 0;
+            }
+        }
+        return minutes;
+    }
+
+    private final class Movies extends AbstractSet<Movie> {
+        @Override
+        public int size() {
+            return size;
+        }
+
+        @Override
+        public boolean contains(Object o) {
+            return o instanceof Movie && GenreIndex.this.contains(((Movie) o).getId());
+        }
+
+        @Override
+        public Iterator<Movie> iterator() {
+            return new Iterator<Movie>() {
+                private int next;
+
+                @Override
+                public boolean hasNext() {
+                    return next < size;
+                }
+
+                @Override
+                public Movie next() {
+                    if (next >= size) throw new NoSuchElementException();
+                    return movies[next++];
+                }
+            };
+        }
+    }
+
+    // Lo único que escribe. Sus arrays solo se amplían por el final: lo que ya ve un GenreIndex no
+    // se toca nunca, y al crecer se copian a otros nuevos y las versiones anteriores se quedan con
+    // los suyos. Los BitSet de cada película tampoco cambian una vez guardados.
+    private static final class Builder {
+        Movie[] movies;
+        long[] ids;
+        BitSet[] movieGenres;
+        int[] runtimes;
+        int size;
+        // Direccionamiento abierto sin borrados, a medio llenar como mucho
+        int[] slotTable;
+
+        final Map<String, Integer> genreIds = new HashMap<>();
+        String[] genreNames;
+        int genreCount;
+        int[][] postings;
+        int[] postingSizes;
+
+        Builder() {
+            movies = new Movie[64];
+            ids = new long[64];
+            movieGenres = new BitSet[64];
+            runtimes = new int[64];
+            slotTable = new int[128];
+            genreNames = new String[16];
+            postings = new int[16][];
+            postingSizes = new int[16];
+        }
+
+        // Copia de lo que ve 'from', para seguir desde una versión que ya no es la última
+        Builder(GenreIndex from) {
+            int capacity = Math.max(64, from.size * 2);
+            movies = Arrays.copyOf(from.movies, capacity);
+            ids = Arrays.copyOf(from.ids, capacity);
+            movieGenres = Arrays.copyOf(from.movieGenres, capacity);
+            runtimes = Arrays.copyOf(from.runtimes, capacity);
+            size = from.size;
+            slotTable = new int[LongHashing.capacityFor(capacity, 0.5f)];
+            for (int slot = 0; slot < size; slot++) insert(slotTable, ids[slot], slot);
+
+            int genres = Math.max(16, from.genreCount * 2);
+            genreNames = Arrays.copyOf(from.genreNames, genres);
+            genreCount = from.genreCount;
+            postings = new int[genres][];
+            postingSizes = Arrays.copyOf(from.postingSizes, genres);
+            for (int g = 0; g < genreCount; g++) {
+                genreIds.put(genreNames[g].toLowerCase(Locale.ROOT), g);
+                postings[g] = Arrays.copyOf(from.postings[g], Math.max(16, postingSizes[g] * 2));
+            }
+        }
+
+        // Las repetidas (mismo id) se ignoran: se queda la primera, como en un LinkedHashSet
+        void add(Movie movie) {
+            long id = movie.getId();
+            if (find(slotTable, ids, size, id) >= 0) return;
+            int slot = size;
+            if (slot == movies.length) {
+                movies = Arrays.copyOf(movies, slot * 2);
+                ids = Arrays.copyOf(ids, slot * 2);
+                movieGenres = Arrays.copyOf(movieGenres, slot * 2);
+                runtimes = Arrays.copyOf(runtimes, slot * 2);
+            }
+            BitSet genres = toGenreBits(movie.getGenres());
+            movies[slot] = movie;
+            ids[slot] = id;
+            movieGenres[slot] = genres;
+            runtimes[slot] = parseMinutes(movie.getDuration());
+            for (int g = genres.nextSetBit(0); g >= 0; g = genres.nextSetBit(g + 1)) addPosting(g, slot);
+            size++;
+            if (size * 2 > slotTable.length) {
+                int[] table = new int[slotTable.length * 2];
+                for (int s = 0; s < size; s++) insert(table, ids[s], s);
+                slotTable = table;
+            } else {
+                insert(slotTable, id, slot);
+            }
+        }
+
+        GenreIndex build() {
+            return new GenreIndex(this);
+        }
+
+        private void addPosting(int genre, int slot) {
+            int[] posting = postings[genre];
+            if (postingSizes[genre] == posting.length) postings[genre] = posting = Arrays.copyOf(posting, posting.length * 2);
+            posting[postingSizes[genre]++] = slot;
+        }
+
+        private BitSet toGenreBits(List<String> genres) {
+            BitSet bits = new BitSet();
+            if (genres == null) return bits;
+            for (String genre : genres) bits.set(intern(genre));
+            return bits;
+        }
+
+        private int intern(String genre) {
+            String key = genre.trim().toLowerCase(Locale.ROOT);
+            Integer id = genreIds.get(key);
+            if (id == null) {
+                id = genreCount;
+                if (id == genreNames.length) {
+                    genreNames = Arrays.copyOf(genreNames, id * 2);
+                    postings = Arrays.copyOf(postings, id * 2);
+                    postingSizes = Arrays.copyOf(postingSizes, id * 2);
+                }
+                genreIds.put(key, id);
+                genreNames[id] = genre.trim();
+                postings[id] = new int[16];
+                genreCount++;
+            }
+            return id;
+        }
+    }
+}
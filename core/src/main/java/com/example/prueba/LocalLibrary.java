@@ -0,0 +1,35 @@
+package com.example.prueba;
+
+import java.util.Collection;
+
+// Lo que el usuario tiene guardado en el móvil (watchlist, vistas y minuto por el que va), por id.
+// Comparte los conjuntos con DataRepository, que los actualiza al guardar en la base local.
+// Colecciones de long sin cajas: sync() hace tres búsquedas por película en cada página.
+public class LocalLibrary {
+    private final LongHashSet watchlistIds;
+    private final LongHashSet seenIds;
+    private final LongIntHashMap resumePositions;
+
+    public LocalLibrary(LongHashSet watchlistIds, LongHashSet seenIds, LongIntHashMap resumePositions) {
+        this.watchlistIds = watchlistIds;
+        this.seenIds = seenIds;
+        this.resumePositions = resumePositions;
+    }
+
+    // Marca las películas que llegan de Internet con lo que tenemos guardado y las mete en el User
+    // (DataRepository lo cambia por uno nuevo en cada portada, por eso no se guarda aquí)
+    public void sync(User user, Collection<Movie> movies) {
+        for (Movie m : movies) {
+            if (watchlistIds.contains(m.getId())) {
+                m.setInWatchlist(true);
+                user.addToWatchlist(m);
+            }
+            if (seenIds.contains(m.getId())) {
+                m.setWatched(true);
+                user.addToSeen(m);
+            }
+            int min = resumePositions.get(m.getId(), -1);
+            if (min >= 0) user.setResumePosition(m, min);
+        }
+    }
+}
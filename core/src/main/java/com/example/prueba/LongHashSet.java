@@ -0,0 +1,122 @@
+package com.example.prueba;
+
+import java.util.Arrays;
+import java.util.function.LongConsumer;
+
+// Conjunto de long sin cajas: direccionamiento abierto con sondeo lineal sobre un long[].
+// Para los ids de la biblioteca del usuario (watchlist, vistas), que se consultan por cada película
+// de cada página: ni un Long por entrada ni un nodo de HashMap detrás de cada una.
+// El 0 marca hueco libre; si se guarda el id 0 va aparte en hasZero. No es thread-safe.
+public class LongHashSet {
+    private static final float LOAD_FACTOR = 0.5f;
+
+    private long[] keys;
+    private boolean hasZero;
+    private int size;      // sin contar el 0
+    private int resizeAt;
+
+    public LongHashSet() {
+        this(16);
+    }
+
+    public LongHashSet(int expectedSize) {
+        allocate(LongHashing.capacityFor(expectedSize, LOAD_FACTOR));
+    }
+
+    public boolean contains(long key) {
+        if (key == 0) return hasZero;
+        int mask = keys.length - 1;
+        for (int i = LongHashing.mix(key) & mask; ; i = (i + 1) & mask) {
+            long k = keys[i];
+            if (k == key) return true;
+            if (k == 0) return false;
+        }
+    }
+
+    public boolean add(long key) {
+        if (key == 0) {
+            if (hasZero) return false;
+            hasZero = true;
+            return true;
+        }
+        int mask = keys.length - 1;
+        int i = LongHashing.mix(key) & mask;
+        for (long k; (k = keys[i]) != 0; i = (i + 1) & mask) {
+            if (k == key) return false;
+        }
+        keys[i] = key;
+        if (++size >= resizeAt) rehash(keys.length * 2);
+        return true;
+    }
+
+    public boolean remove(long key) {
+        if (key == 0) {
+            boolean had = hasZero;
+            hasZero = false;
+            return had;
+        }
+        int mask = keys.length - 1;
+        for (int i = LongHashing.mix(key) & mask; ; i = (i + 1) & mask) {
+            long k = keys[i];
+            if (k == 0) return false;
+            if (k == key) {
+                shiftBack(i);
+                size--;
+                return true;
+            }
+        }
+    }
+
+    public void addAll(LongHashSet other) {
+        other.forEach(this::add);
+    }
+
+    public int size() {
+        return size + (hasZero ? 1 : 0);
+    }
+
+    public boolean isEmpty() {
+        return size() == 0;
+    }
+
+    public void clear() {
+        Arrays.fill(keys, 0);
+        hasZero = false;
+        size = 0;
+    }
+
+    public void forEach(LongConsumer action) {
+        if (hasZero) action.accept(0);
+        for (long k : keys) if (k != 0) action.accept(k);
+    }
+
+    // Borrado sin lápidas: se adelantan las claves siguientes del grupo que ya no encontrarían su sitio
+    private void shiftBack(int hole) {
+        int mask = keys.length - 1;
+        for (int i = (hole + 1) & mask; keys[i] != 0; i = (i + 1) & mask) {
+            int home = LongHashing.mix(keys[i]) & mask;
+            if (((i - home) & mask) >= ((i - hole) & mask)) {
+                keys[hole] = keys[i];
+                hole = i;
+            }
+        }
+        keys[hole] = 0;
+    }
+
+    private void rehash(int capacity) {
+        long[] old = keys;
+        allocate(capacity);
+        int mask = capacity - 1;
+        for (long key : old) {
+            if (key == 0) continue;
+            int i = LongHashing.mix(key) & mask;
+            while (keys[i] != 0) i = (i + 1) & mask;
+            keys[i] = key;
+        }
+    }
+
+    private void allocate(int capacity) {
+        keys = new long[capacity];
+        resizeAt = (int) (capacity * LOAD_FACTOR);
+    }
+}
@@ -0,0 +1,24 @@
+package com.example.prueba;
+
+// Lo común a LongHashSet y LongIntHashMap: tamaño de tabla y dispersión de las claves
+final class LongHashing {
+
+    private LongHashing() {}
+
+    // Potencia de dos con sitio para 'expected' claves sin pasar del factor de carga
+    static int capacityFor(int expected, float loadFactor) {
+        int needed = (int) Math.ceil(Math.max(expected, 4) / loadFactor) + 1;
+        return Integer.highestOneBit(needed - 1) << 1;
+    }
+
+    // Los ids de TMDB son consecutivos por tramos: se mezclan los bits (finalizador de MurmurHash3)
+    // para que no caigan todos en el mismo grupo de la tabla
+    static int mix(long key) {
+        key ^= key >>> 33;
+        key *= 0xff51afd7ed558ccdL;
+        key ^= key >>> 33;
+        key *= 0xc4ceb9fe1a85ec53L;
+        key ^= key >>> 33;
+        return (int) key;
+    }
+}
@@ -0,0 +1,144 @@
+package com.example.prueba;
+
+import java.util.Arrays;
+
+// Mapa long -> int sin cajas, con la misma tabla que LongHashSet más un int[] de valores en
+// paralelo. Para el minuto por el que va cada película (id -> minuto). No es thread-safe.
+public class LongIntHashMap {
+    private static final float LOAD_FACTOR = 0.5f;
+
+    public interface EntryConsumer {
+        void accept(long key, int value);
+    }
+
+    private long[] keys;
+    private int[] values;
+    private boolean hasZero;
+    private int zeroValue;
+    private int size;      // sin contar el 0
+    private int resizeAt;
+
+    public LongIntHashMap() {
+        this(16);
+    }
+
+    public LongIntHashMap(int expectedSize) {
+        allocate(LongHashing.capacityFor(expectedSize, LOAD_FACTOR));
+    }
+
+    // El valor guardado, o 'missing' si la clave no está
+    public int get(long key, int missing) {
+        if (key == 0) return hasZero ? zeroValue : missing;
+        int mask = keys.length - 1;
+        for (int i = LongHashing.mix(key) & mask; ; i = (i + 1) & mask) {
+            long k = keys[i];
+            if (k == key) return values[i];
+            if (k == 0) return missing;
+        }
+    }
+
+    public boolean containsKey(long key) {
+        if (key == 0) return hasZero;
+        int mask = keys.length - 1;
+        for (int i = LongHashing.mix(key) & mask; ; i = (i + 1) & mask) {
+            long k = keys[i];
+            if (k == key) return true;
+            if (k == 0) return false;
+        }
+    }
+
+    public void put(long key, int value) {
+        if (key == 0) {
+            hasZero = true;
+            zeroValue = value;
+            return;
+        }
+        int mask = keys.length - 1;
+        int i = LongHashing.mix(key) & mask;
+        for (long k; (k = keys[i]) != 0; i = (i + 1) & mask) {
+            if (k == key) {
+                values[i] = value;
+                return;
+            }
+        }
+        keys[i] = key;
+        values[i] = value;
+        if (++size >= resizeAt) rehash(keys.length * 2);
+    }
+
+    public boolean remove(long key) {
+        if (key == 0) {
+            boolean had = hasZero;
+            hasZero = false;
+            return had;
+        }
+        int mask = keys.length - 1;
+        for (int i = LongHashing.mix(key) & mask; ; i = (i + 1) & mask) {
+            long k = keys[i];
+            if (k == 0) return false;
+            if (k == key) {
+                shiftBack(i);
+                size--;
+                return true;
+            }
+        }
+    }
+
+    public void putAll(LongIntHashMap other) {
+        other.forEach(this::put);
+    }
+
+    public int size() {
+        return size + (hasZero ? 1 : 0);
+    }
+
+    public boolean isEmpty() {
+        return size() == 0;
+    }
+
+    public void clear() {
+        Arrays.fill(keys, 0);
+        hasZero = false;
+        size = 0;
+    }
+
+    public void forEach(EntryConsumer action) {
+        if (hasZero) action.accept(0, zeroValue);
+        for (int i = 0; i < keys.length; i++) if (keys[i] != 0) action.accept(keys[i], values[i]);
+    }
+
+    // Igual que en LongHashSet, moviendo también el valor
+    private void shiftBack(int hole) {
+        int mask = keys.length - 1;
+        for (int i = (hole + 1) & mask; keys[i] != 0; i = (i + 1) & mask) {
+            int home = LongHashing.mix(keys[i]) & mask;
+            if (((i - home) & mask) >= ((i - hole) & mask)) {
+                keys[hole] = keys[i];
+                values[hole] = values[i];
+                hole = i;
+            }
+        }
+        keys[hole] = 0;
+    }
+
+    private void rehash(int capacity) {
+        long[] oldKeys = keys;
+        int[] oldValues = values;
+        allocate(capacity);
+        int mask = capacity - 1;
+        for (int j = 0; j < oldKeys.length; j++) {
+            long key = oldKeys[j];
+            if (key == 0) continue;
+            int i = LongHashing.mix(key) & mask;
+            while (keys[i] != 0) i = (i + 1) & mask;
+            keys[i] = key;
+            values[i] = oldValues[j];
+        }
+    }
+
+    private void allocate(int capacity) {
+        keys = new long[capacity];
+        values = new int[capacity];
+        resizeAt = (int) (capacity * LOAD_FACTOR);
+    }
+}
@@ -0,0 +1,141 @@
+package com.example.prueba;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+
+public class Movie {
+
+    private long id;
+    private String title;
+
+    private String posterUrl;
+    // Sinopsis por idioma. Inmutable: putOverview publica otra entera y los hilos de fondo
+    // (índices, caché) la leen sin lock, nunca con el idioma de una y el texto de otra
+    private volatile Overviews overviews;
+
+    private String duration;
+    private List<String> genres;
+
+    private boolean isWatched = false;
+    private boolean isInWatchlist = false;
+    private boolean isLoading = false;
+
+    public Movie(long id, String title, String posterUrl, String description, String duration, List<String> genres) {
+        this(id, title, posterUrl, description, duration, genres, null);
+    }
+
+    public Movie(long id, String title, String posterUrl, String description, String duration, List<String> genres,
+                 String language) {
+        this.id = id;
+        this.title = title;
+
+        this.posterUrl = posterUrl;
+        this.overviews = new Overviews(language, description, Collections.emptyMap());
+        this.duration = duration;
+        this.genres = genres != null ? genres : new ArrayList<>();
+    }
+
+    public static Movie createLoadingMovie() {
+        long randomId = -(long)(Math.random() * 1000000);
+        Movie m = new Movie(randomId, "", "", "", "", new ArrayList<>());
+        m.isLoading = true;
+        return m;
+    }
+
+    public long getId() { return id; }
+    public String getTitle() { return title; }
+
+
+    public String getPosterUrl() { return posterUrl; }
+    // La sinopsis en el idioma de la app si la tenemos; si no, la que haya
+    public String getDescription() {
+        Overviews current = overviews;
+        String language = ContentLanguage.current();
+        if (language.equals(current.language)) return current.description;
+        String overview = current.others.get(language);
+        return overview != null ? overview : current.description;
+    }
+
+    public boolean hasOverview(String language) {
+        Overviews current = overviews;
+        return language.equals(current.language) || current.others.containsKey(language);
+    }
+
+    // Mientras se construye, desde cualquier hilo; ya publicada, solo desde el principal
+    public void putOverview(String language, String overview) {
+        overviews = overviews.with(language, overview);
+    }
+
+    // Todas las sinopsis conocidas por idioma (las de idioma desconocido no salen)
+    public Map<String, String> getOverviews() {
+        Overviews current = overviews;
+        if (current.language == null && current.others.isEmpty()) return Collections.emptyMap();
+        Map<String, String> all = new HashMap<>(current.others);
+        if (current.language != null) all.put(current.language, current.description);
+        return all;
+    }
+
+    public String getDuration() { return duration; }
+    public List<String> getGenres() { return genres; }
+
+
+    public String getBackdropUrl() { return posterUrl; }
+
+
+
+    public boolean isLoading() { return isLoading; }
+    public boolean isWatched() { return isWatched; }
+    public void setWatched(boolean watched) { isWatched = watched; }
+    public boolean isInWatchlist() { return isInWatchlist; }
+    public void setInWatchlist(boolean inWatchlist) { isInWatchlist = inWatchlist; }
+
+    // equals() solo compara el id; esto compara lo que se pinta en pantalla
+    public boolean hasSameContent(Movie other) {
+        return id == other.id
+                && Objects.equals(title, other.title)
+                && Objects.equals(posterUrl, other.posterUrl)
+                && Objects.equals(getDescription(), other.getDescription())
+                && Objects.equals(duration, other.duration)
+                && Objects.equals(genres, other.genres);
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (o == null || getClass() != o.getClass()) return false;
+        Movie movie = (Movie) o;
+        return id == movie.id;
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(id);
+    }
+
+    // La sinopsis principal con su idioma y las de otros idiomas; no cambia después de construirse
+    private static final class Overviews {
+        final String language;    // ContentLanguage.EN / ES, o null si no se sabe
+        final String description; // overview en 'language'
+        final Map<String, String> others;
+
+        Overviews(String language, String description, Map<String, String> others) {
+            this.language = language;
+            this.description = description;
+            this.others = others;
+        }
+
+        // Copia con 'overview' puesta: la principal si es su idioma (o aún no tenía), si no una más
+        Overviews with(String language, String overview) {
+            if (this.language == null || this.language.equals(language)) {
+                return new Overviews(language, overview, others);
+            }
+            Map<String, String> next = new HashMap<>(others);
+            next.put(language, overview);
+            return new Overviews(this.language, description, Collections.unmodifiableMap(next));
+        }
+    }
+}
\ No newline at end of file
@@ -0,0 +1,25 @@
+package com.example.prueba;
+
+import java.util.LinkedHashSet;
+import java.util.Set;
+
+// Búsqueda sin red sobre las películas que ya hay en memoria (DataRepository.search).
+// No depende de Android para poder medirla en el módulo de benchmarks.
+public final class MovieSearch {
+
+    private MovieSearch() {}
+
+    public static Set<Movie> search(Iterable<Movie> movies, String query) {
+        String normalizedQuery = normalizeForSearch(query);
+        Set<Movie> results = new LinkedHashSet<>();
+        for (Movie m : movies) {
+            String normalizedTitle = normalizeForSearch(m.getTitle());
+            if (normalizedTitle.contains(normalizedQuery)) results.add(m);
+        }
+        return results;
+    }
+
+    public static String normalizeForSearch(String s) {
+        return s.toLowerCase().replace("-", "").replace(" ", "").replace("á", "a").replace("é", "e").replace("í", "i").replace("ó", "o").replace("ú", "u");
+    }
+}
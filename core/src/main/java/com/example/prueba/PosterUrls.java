@@ -0,0 +1,38 @@
+package com.example.prueba;
+
+// Elige el tamaño de imagen de TMDB según el ancho en píxeles con el que se va a pintar el póster.
+// poster_path llega como "/abc.jpg" (el formato de la API de TMDB) o como URL completa de
+// image.tmdb.org con cualquier tamaño; otras URLs se devuelven tal cual.
+public final class PosterUrls {
+
+    static final String TMDB_IMAGE_BASE = "https://image.tmdb.org/t/p/";
+    private static final String TMDB_IMAGE_HOST_PATH = "image.tmdb.org/t/p/";
+    // Anchos de póster que sirve TMDB, de menor a mayor
+    private static final int[] POSTER_WIDTHS = {92, 154, 185, 342, 500, 780};
+
+    private PosterUrls() {}
+
+    public static String forWidth(String posterPath, int widthPx) {
+        if (posterPath == null || posterPath.isEmpty()) return posterPath;
+        String file;
+        if (posterPath.startsWith("/")) {
+            file = posterPath;
+        } else {
+            int base = posterPath.indexOf(TMDB_IMAGE_HOST_PATH);
+            if (base == -1) return posterPath;
+            // Quitamos el tamaño que traiga ("w500/", "original/"...) y nos quedamos con "/abc.jpg"
+            int slash = posterPath.indexOf('/', base + TMDB_IMAGE_HOST_PATH.length());
+            if (slash == -1) return posterPath;
+            file = posterPath.substring(slash);
+        }
+        return TMDB_IMAGE_BASE + sizeFor(widthPx) + file;
+    }
+
+    // El tamaño más pequeño que no obliga a ampliar la imagen; por encima de 780 px, el original
+    static String sizeFor(int widthPx) {
+        for (int width : POSTER_WIDTHS) {
+            if (width >= widthPx) return "w" + width;
+        }
+        return "original";
+    }
+}
@@ -0,0 +1,323 @@
+package com.example.prueba;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+// Recomendaciones por contenido. El perfil del usuario es un peso por género y por palabra del
+// título, sumado sobre las películas de su biblioteca según lo que haya hecho con cada una (vista
+// pesa más que en la watchlist y empezada menos). Cada cambio suma o resta solo lo de esa película
+// (update), sin volver a recorrer la biblioteca.
+// Para puntuar se copia el perfil (snapshot) y se recorre una sola vez el catálogo ya aplanado
+// (Candidates), fuera del hilo principal, guardando solo las k mejores en un montículo de tamaño k.
+// El perfil en sí solo se toca desde el hilo principal.
+public class Recommender {
+
+    public static final int WATCHLIST = 1;
+    public static final int SEEN = 2;
+    public static final int IN_PROGRESS = 4;
+
+    private static final int WATCHLIST_WEIGHT = 2;
+    private static final int SEEN_WEIGHT = 3;
+    private static final int IN_PROGRESS_WEIGHT = 1;
+
+    // Las palabras del título desempatan entre películas de géneros parecidos, no mandan
+    private static final float KEYWORD_SHARE = 0.5f;
+
+    // Lo que aportó cada película, para poder restarlo tal cual aunque llegue otra instancia
+    private static final class Entry {
+        final Movie movie;
+        final int weight;
+
+        Entry(Movie movie, int weight) {
+            this.movie = movie;
+            this.weight = weight;
+        }
+    }
+
+    private final Map<Long, Entry> entries = new HashMap<>();
+    private final Map<String, Integer> genreWeights = new HashMap<>();
+    private final LongIntHashMap keywordWeights = new LongIntHashMap();
+    private int genreTotal;
+    private int keywordTotal;
+    private long version;
+
+    // Sube con cada cambio del perfil: sirve para saber si unas recomendaciones ya calculadas caducaron
+    public long getVersion() { return version; }
+
+    public boolean isEmpty() { return entries.isEmpty(); }
+
+    // signals: WATCHLIST, SEEN e IN_PROGRESS combinadas con |; 0 si ya no está en la biblioteca.
+    // Devuelve false si el perfil no cambia.
+    public boolean update(Movie movie, int signals) {
+        int weight = weightOf(signals);
+        Entry old = entries.get(movie.getId());
+        if (old == null && weight == 0) return false;
+        if (old != null && old.weight == weight && old.movie.hasSameContent(movie)) return false;
+        if (old != null) apply(old.movie, -old.weight);
+        if (weight == 0) {
+            entries.remove(movie.getId());
+        } else {
+            apply(movie, weight);
+            entries.put(movie.getId(), new Entry(movie, weight));
+        }
+        version++;
+        return true;
+    }
+
+    private static int weightOf(int signals) {
+        int weight = 0;
+        if ((signals & WATCHLIST) != 0) weight += WATCHLIST_WEIGHT;
+        if ((signals & SEEN) != 0) weight += SEEN_WEIGHT;
+        if ((signals & IN_PROGRESS) != 0) weight += IN_PROGRESS_WEIGHT;
+        return weight;
+    }
+
+    private void apply(Movie movie, int delta) {
+        for (String genre : movie.getGenres()) {
+            String key = genre.trim().toLowerCase(Locale.ROOT);
+            int weight = genreWeights.getOrDefault(key, 0) + delta;
+            if (weight == 0) genreWeights.remove(key);
+            else genreWeights.put(key, weight);
+            genreTotal += delta;
+        }
+        LongHashSet keywords = new LongHashSet();
+        WordHashes.scan(movie.getTitle(), keywords::add);
+        keywords.forEach(keyword -> {
+            int weight = keywordWeights.get(keyword, 0) + delta;
+            if (weight == 0) keywordWeights.remove(keyword);
+            else keywordWeights.put(keyword, weight);
+            keywordTotal += delta;
+        });
+    }
+
+    // Para los tests: los pesos tal cual, por clave de género y por hash de palabra
+    Map<String, Integer> genreWeights() { return new HashMap<>(genreWeights); }
+
+    Map<Long, Integer> keywordWeights() {
+        Map<Long, Integer> copy = new HashMap<>();
+        keywordWeights.forEach(copy::put);
+        return copy;
+    }
+
+    int genreTotal() { return genreTotal; }
+
+    int keywordTotal() { return keywordTotal; }
+
+    // Copia del perfil que se puede usar desde otro hilo mientras este sigue cambiando
+    public Profile snapshot() {
+        return new Profile(this);
+    }
+
+    public static final class Profile {
+        private final long version;
+        private final Map<String, Integer> genreWeights;
+        private final LongIntHashMap keywordWeights;
+        private final int genreTotal;
+        private final int keywordTotal;
+        private final LongHashSet library;
+
+        private Profile(Recommender source) {
+            version = source.version;
+            genreWeights = new HashMap<>(source.genreWeights);
+            keywordWeights = new LongIntHashMap(source.keywordWeights.size());
+            keywordWeights.putAll(source.keywordWeights);
+            genreTotal = source.genreTotal;
+            keywordTotal = source.keywordTotal;
+            library = new LongHashSet(source.entries.size());
+            for (Long id : source.entries.keySet()) library.add(id);
+        }
+
+        public long getVersion() { return version; }
+
+        public boolean isEmpty() { return library.isEmpty(); }
+
+        // Las películas de la biblioteca nunca se recomiendan
+        public boolean inLibrary(long id) { return library.contains(id); }
+
+        // Los k géneros con más peso, de mayor a menor
+        public List<String> topGenres(int k) {
+            List<Map.Entry<String, Integer>> sorted = new ArrayList<>(genreWeights.entrySet());
+            sorted.sort((a, b) -> b.getValue() - a.getValue());
+            List<String> top = new ArrayList<>(Math.min(k, sorted.size()));
+            for (int i = 0; i < sorted.size() && i < k; i++) top.add(sorted.get(i).getKey());
+            return top;
+        }
+
+        // Hasta k películas del catálogo, de más a menos afines, sin las de la biblioteca ni las de
+        // 'skip' (puede ser null). Solo salen las que tienen algo en común con el perfil.
+        public List<Movie> recommend(Candidates candidates, int k, LongHashSet skip) {
+            if (k <= 0 || genreTotal + keywordTotal <= 0) return Collections.emptyList();
+
+            // Peso de cada id de género del catálogo: su parte del perfil por lo raro que es en el
+            // catálogo, para que Drama, que está en media colección, no lo decida todo
+            int size = Math.max(candidates.movies.length, 1);
+            float[] genreScores = new float[candidates.genreKeys.length];
+            for (int g = 0; g < genreScores.length; g++) {
+                Integer weight = genreWeights.get(candidates.genreKeys[g]);
+                if (weight == null || genreTotal <= 0) continue;
+                double rarity = Math.log(1 + size / (1.0 + candidates.genreMovies[g]));
+                genreScores[g] = (float) (weight / (double) genreTotal * rarity);
+            }
+            float keywordScale = keywordTotal > 0 ? KEYWORD_SHARE / keywordTotal : 0;
+
+            TopK top = new TopK(k);
+            int[] genreStart = candidates.genreStart;
+            int[] genreIds = candidates.genreIds;
+            int[] keywordStart = candidates.keywordStart;
+            long[] keywords = candidates.keywords;
+            long[] ids = candidates.ids;
+            for (int slot = 0; slot < ids.length; slot++) {
+                if (library.contains(ids[slot]) || (skip != null && skip.contains(ids[slot]))) continue;
+                float score = 0;
+                int count = genreStart[slot + 1] - genreStart[slot];
+                for (int i = genreStart[slot]; i < genreStart[slot + 1]; i++) score += genreScores[genreIds[i]];
+                // Una película con muchos géneros no gana solo por tener más
+                if (count > 1) score /= (float) Math.sqrt(count);
+                if (keywordScale > 0) {
+                    int matched = 0;
+                    for (int i = keywordStart[slot]; i < keywordStart[slot + 1]; i++) matched += keywordWeights.get(keywords[i], 0);
+                    score += keywordScale * matched;
+                }
+                if (score > 0) top.offer(score, slot);
+            }
+            int[] best = top.sorted();
+            List<Movie> result = new ArrayList<>(best.length);
+            for (int slot : best) result.add(candidates.movies[slot]);
+            return result;
+        }
+    }
+
+    // Lo que se puntúa de cada película del catálogo, en arrays planos: recorrer 50.000 Movie con
+    // sus List, BitSet y String es sobre todo esperar a la memoria. Depende solo del catálogo, así
+    // que se construye una vez por versión y sirve para todos los cambios de perfil.
+    public static final class Candidates {
+        private final long catalogVersion;
+        private final Movie[] movies;
+        private final long[] ids;
+        // Géneros de la película 'slot': genreIds[genreStart[slot] .. genreStart[slot + 1])
+        private final int[] genreStart;
+        private final int[] genreIds;
+        private final String[] genreKeys;
+        private final int[] genreMovies;
+        // Igual con las palabras del título, sin repetidas ni palabras vacías
+        private final int[] keywordStart;
+        private final long[] keywords;
+
+        private Candidates(CatalogSnapshot catalog) {
+            GenreIndex index = catalog.getGenres();
+            catalogVersion = catalog.getVersion();
+            int size = index.size();
+            movies = new Movie[size];
+            ids = new long[size];
+            genreStart = new int[size + 1];
+            keywordStart = new int[size + 1];
+            int[][] genreBuffer = {new int[size * 2 + 1]};
+            long[][] keywordBuffer = {new long[size * 3 + 1]};
+            int[] cursor = {0, 0, 0};
+            index.forEachMovie((movie, genres) -> {
+                int slot = cursor[0]++;
+                movies[slot] = movie;
+                ids[slot] = movie.getId();
+                for (int g = genres.nextSetBit(0); g >= 0; g = genres.nextSetBit(g + 1)) {
+                    if (cursor[1] == genreBuffer[0].length) genreBuffer[0] = Arrays.copyOf(genreBuffer[0], cursor[1] * 2);
+                    genreBuffer[0][cursor[1]++] = g;
+                }
+                genreStart[slot + 1] = cursor[1];
+                int first = cursor[2];
+                WordHashes.scan(movie.getTitle(), keyword -> {
+                    for (int i = first; i < cursor[2]; i++) if (keywordBuffer[0][i] == keyword) return;
+                    if (cursor[2] == keywordBuffer[0].length) keywordBuffer[0] = Arrays.copyOf(keywordBuffer[0], cursor[2] * 2);
+                    keywordBuffer[0][cursor[2]++] = keyword;
+                });
+                keywordStart[slot + 1] = cursor[2];
+            });
+            genreIds = Arrays.copyOf(genreBuffer[0], cursor[1]);
+            keywords = Arrays.copyOf(keywordBuffer[0], cursor[2]);
+            genreKeys = new String[index.genreCount()];
+            genreMovies = new int[genreKeys.length];
+            for (int g = 0; g < genreKeys.length; g++) {
+                genreKeys[g] = index.genreKey(g);
+                genreMovies[g] = index.moviesWithGenre(g);
+            }
+        }
+
+        public static Candidates of(CatalogSnapshot catalog) {
+            return new Candidates(catalog);
+        }
+
+        public long getCatalogVersion() { return catalogVersion; }
+    }
+
+    // Montículo de mínimos con las k mejores puntuaciones vistas (posiciones en Candidates): cada
+    // candidata cuesta O(log k) y no se guarda ninguna lista con todo el catálogo
+    static final class TopK {
+        private final float[] scores;
+        private final int[] slots;
+        private int size;
+
+        TopK(int k) {
+            scores = new float[k];
+            slots = new int[k];
+        }
+
+        void offer(float score, int slot) {
+            if (size < scores.length) {
+                scores[size] = score;
+                slots[size] = slot;
+                siftUp(size++);
+            } else if (score > scores[0]) {
+                // A igual puntuación se queda la que llegó antes
+                scores[0] = score;
+                slots[0] = slot;
+                siftDown(0);
+            }
+        }
+
+        // De mayor a menor; vacía el montículo
+        int[] sorted() {
+            int[] out = new int[size];
+            for (int i = size - 1; i >= 0; i--) {
+                out[i] = slots[0];
+                size--;
+                scores[0] = scores[size];
+                slots[0] = slots[size];
+                siftDown(0);
+            }
+            return out;
+        }
+
+        private void siftUp(int i) {
+            while (i > 0) {
+                int parent = (i - 1) / 2;
+                if (scores[parent] <= scores[i]) return;
+                swap(i, parent);
+                i = parent;
+            }
+        }
+
+        private void siftDown(int i) {
+            while (true) {
+                int left = 2 * i + 1;
+                if (left >= size) return;
+                int smallest = (left + 1 < size && scores[left + 1] < scores[left]) ? left + 1 : left;
+                if (scores[i] <= scores[smallest]) return;
+                swap(i, smallest);
+                i = smallest;
+            }
+        }
+
+        private void swap(int a, int b) {
+            float score = scores[a];
+            scores[a] = scores[b];
+            scores[b] = score;
+            int slot = slots[a];
+            slots[a] = slots[b];
+            slots[b] = slot;
+        }
+    }
+}
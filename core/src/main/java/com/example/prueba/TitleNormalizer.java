@@ -0,0 +1,25 @@
+package com.example.prueba;
+
+// Normaliza títulos y términos de búsqueda igual que la columna title_norm de peliculas_fts
+// (db/migrations/001_peliculas_title_fts.sql): minúsculas, sin tildes y sin espacios, guiones ni ':'.
+// Si se toca la tabla de tildes hay que regenerar también la migración.
+public final class TitleNormalizer {
+
+    static final String ACCENTED = "áàäâãåéèëêíìïîóòöôõúùüûñçýÿÁÀÄÂÃÅÉÈËÊÍÌÏÎÓÒÖÔÕÚÙÜÛÑÇÝ";
+    static final String FOLDED   = "aaaaaaeeeeiiiiooooouuuuncyyaaaaaaeeeeiiiiooooouuuuncy";
+
+    private TitleNormalizer() {}
+
+    public static String normalize(String s) {
+        StringBuilder sb = new StringBuilder(s.length());
+        for (int i = 0; i < s.length(); i++) {
+            char c = s.charAt(i);
+            if (c == ' ' || c == '-' || c == ':') continue;
+            int accent = ACCENTED.indexOf(c);
+            if (accent >= 0) c = FOLDED.charAt(accent);
+            else if (c >= 'A' && c <= 'Z') c = (char) (c + ('a' - 'A')); // como LOWER() de SQLite, solo ASCII
+            sb.append(c);
+        }
+        return sb.toString();
+    }
+}
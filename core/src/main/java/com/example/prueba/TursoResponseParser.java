@@ -0,0 +1,344 @@
+package com.example.prueba;
+
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
+import java.io.IOException;
+import java.io.Reader;
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+
+// Parser en streaming de la respuesta de /v2/pipeline: lee token a token del cuerpo HTTP y crea
+// las Movie directamente desde cols/rows, sin pasar por un String completo ni un árbol de Gson.
+public class TursoResponseParser {
+
+    public interface ChunkListener {
+        void onChunk(int statementIndex, List<Movie> rows);
+    }
+
+    public static class StatementResult {
+        public final Set<Movie> movies = new LinkedHashSet<>();
+        public String error;
+        public int skippedRows;
+        // Clave de ordenación de la última fila, para construir el PageCursor de la siguiente página
+        public long lastRowId;
+        public String lastSortPrefix = "";
+        public String lastSortRank = "";
+        // Solo con rawRows(): nombres de columna y filas tal cual, sin convertir a Movie
+        public List<String> columnNames = new ArrayList<>();
+        public final List<String[]> rows = new ArrayList<>();
+    }
+
+    private final int chunkSize;
+    private final ChunkListener chunkListener;
+    private boolean raw;
+
+    // Stream de Hrana que el servidor deja abierto tras la petición (null si lo ha cerrado)
+    private String baton;
+    private String baseUrl;
+
+    public TursoResponseParser() {
+        this(0, null);
+    }
+
+    public TursoResponseParser(int chunkSize, ChunkListener chunkListener) {
+        this.chunkSize = chunkSize;
+        this.chunkListener = chunkListener;
+    }
+
+    // Para la réplica local (ReplicaSync): guarda todas las columnas de cada fila en vez de crear Movie
+    public static TursoResponseParser rawRows() {
+        TursoResponseParser parser = new TursoResponseParser();
+        parser.raw = true;
+        return parser;
+    }
+
+    public List<StatementResult> parse(Reader body) throws IOException {
+        List<StatementResult> results = new ArrayList<>();
+        try (JsonReader reader = new JsonReader(body)) {
+            reader.beginObject();
+            while (reader.hasNext()) {
+                String name = reader.nextName();
+                if (name.equals("results") && reader.peek() == JsonToken.BEGIN_ARRAY) {
+                    reader.beginArray();
+                    while (reader.hasNext()) results.add(readResult(reader, results.size()));
+                    reader.endArray();
+                } else if (name.equals("baton") && reader.peek() == JsonToken.STRING) {
+                    baton = reader.nextString();
+                } else if (name.equals("base_url") && reader.peek() == JsonToken.STRING) {
+                    baseUrl = reader.nextString();
+                } else {
+                    reader.skipValue();
+                }
+            }
+            reader.endObject();
+        }
+        return results;
+    }
+
+    public String getBaton() { return baton; }
+    public String getBaseUrl() { return baseUrl; }
+
+    // {"type":"ok","response":{"type":"execute","result":{...}}} o {"type":"error","error":{"message":...}}
+    private StatementResult readResult(JsonReader reader, int index) throws IOException {
+        StatementResult result = new StatementResult();
+        if (reader.peek() != JsonToken.BEGIN_OBJECT) {
+            reader.skipValue();
+            result.error = "Missing result";
+            return result;
+        }
+        reader.beginObject();
+        while (reader.hasNext()) {
+            String name = reader.nextName();
+            if (name.equals("error") && reader.peek() == JsonToken.BEGIN_OBJECT) {
+                result.error = readErrorMessage(reader);
+            } else if (name.equals("response") && reader.peek() == JsonToken.BEGIN_OBJECT) {
+                reader.beginObject();
+                while (reader.hasNext()) {
+                    if (reader.nextName().equals("result") && reader.peek() == JsonToken.BEGIN_OBJECT) {
+                        readRowSet(reader, index, result);
+                    } else {
+                        reader.skipValue();
+                    }
+                }
+                reader.endObject();
+            } else {
+                reader.skipValue();
+            }
+        }
+        reader.endObject();
+        return result;
+    }
+
+    private String readErrorMessage(JsonReader reader) throws IOException {
+        String message = "Unknown error";
+        reader.beginObject();
+        while (reader.hasNext()) {
+            if (reader.nextName().equals("message") && reader.peek() == JsonToken.STRING) {
+                message = reader.nextString();
+            } else {
+                reader.skipValue();
+            }
+        }
+        reader.endObject();
+        return message;
+    }
+
+    private void readRowSet(JsonReader reader, int index, StatementResult result) throws IOException {
+        Columns columns = null;
+        // Hrana manda "cols" antes que "rows", pero si no fuese así guardamos las filas hasta tener columnas
+        List<String[]> pendingRows = null;
+        List<Movie> chunk = new ArrayList<>();
+
+        reader.beginObject();
+        while (reader.hasNext()) {
+            String name = reader.nextName();
+            if (name.equals("cols")) {
+                columns = readColumns(reader, result);
+            } else if (name.equals("rows")) {
+                reader.beginArray();
+                while (reader.hasNext()) {
+                    String[] row = readRow(reader, columns);
+                    if (columns == null) {
+                        if (pendingRows == null) pendingRows = new ArrayList<>();
+                        pendingRows.add(row);
+                    } else {
+                        addRow(row, columns, index, result, chunk);
+                    }
+                }
+                reader.endArray();
+            } else {
+                reader.skipValue();
+            }
+        }
+        reader.endObject();
+
+        if (pendingRows != null) {
+            if (columns == null) columns = new Columns(0, raw);
+            for (String[] row : pendingRows) addRow(row, columns, index, result, chunk);
+        }
+        if (chunkListener != null && !chunk.isEmpty()) chunkListener.onChunk(index, chunk);
+    }
+
+    private Columns readColumns(JsonReader reader, StatementResult result) throws IOException {
+        List<String> names = new ArrayList<>();
+        reader.beginArray();
+        while (reader.hasNext()) {
+            String colName = "";
+            reader.beginObject();
+            while (reader.hasNext()) {
+                if (reader.nextName().equals("name") && reader.peek() == JsonToken.STRING) {
+                    colName = reader.nextString();
+                } else {
+                    reader.skipValue();
+                }
+            }
+            reader.endObject();
+            names.add(colName);
+        }
+        reader.endArray();
+
+        result.columnNames = names;
+        Columns columns = new Columns(names.size(), raw);
+        for (int i = 0; i < names.size(); i++) {
+            switch (names.get(i)) {
+                case "rowid": columns.id = i; break;
+                case "title": columns.title = i; break;
+                case "runtime": columns.runtime = i; break;
+                case "overview": columns.overview = i; columns.language = ContentLanguage.EN; break;
+                case "overview_es": columns.overview = i; columns.language = ContentLanguage.ES; break;
+                case "poster_path": columns.poster = i; break;
+                case "genres": columns.genres = i; break;
+                case "sort_prefix": columns.sortPrefix = i; break;
+                case "sort_rank": columns.sortRank = i; break;
+            }
+        }
+        return columns;
+    }
+
+    // Solo nos quedamos con las celdas que usamos; el resto se salta sin crear Strings
+    private String[] readRow(JsonReader reader, Columns columns) throws IOException {
+        List<String> buffered = (columns == null) ? new ArrayList<>() : null;
+        String[] row = (columns != null) ? new String[columns.count] : null;
+        int i = 0;
+        reader.beginArray();
+        while (reader.hasNext()) {
+            if (columns != null && !columns.isUsed(i)) {
+                reader.skipValue();
+            } else {
+                String value = readCell(reader);
+                if (row != null) {
+                    if (i < row.length) row[i] = value;
+                } else {
+                    buffered.add(value);
+                }
+            }
+            i++;
+        }
+        reader.endArray();
+        return (row != null) ? row : buffered.toArray(new String[0]);
+    }
+
+    // Celda Hrana: {"type":"integer","value":"12"}, {"type":"null"}... o un valor plano en versiones viejas
+    private String readCell(JsonReader reader) throws IOException {
+        JsonToken token = reader.peek();
+        if (token == JsonToken.NULL) {
+            reader.nextNull();
+            return null;
+        }
+        if (token != JsonToken.BEGIN_OBJECT) {
+            if (token == JsonToken.BOOLEAN) return String.valueOf(reader.nextBoolean());
+            if (token == JsonToken.STRING || token == JsonToken.NUMBER) return reader.nextString();
+            reader.skipValue();
+            return null;
+        }
+        String value = null;
+        reader.beginObject();
+        while (reader.hasNext()) {
+            if (reader.nextName().equals("value")) {
+                JsonToken valueToken = reader.peek();
+                if (valueToken == JsonToken.STRING || valueToken == JsonToken.NUMBER) {
+                    value = reader.nextString();
+                } else {
+                    reader.skipValue();
+                }
+            } else {
+                reader.skipValue();
+            }
+        }
+        reader.endObject();
+        return value;
+    }
+
+    private void addRow(String[] row, Columns columns, int index, StatementResult result, List<Movie> chunk) {
+        if (raw) {
+            result.rows.add(row);
+            if (columns.id != -1) result.lastRowId = parseLong(cell(row, columns.id));
+            return;
+        }
+        Movie movie;
+        try {
+            movie = toMovie(row, columns);
+        } catch (RuntimeException e) {
+            result.skippedRows++;
+            return;
+        }
+        result.movies.add(movie);
+        result.lastRowId = movie.getId();
+        result.lastSortPrefix = cell(row, columns.sortPrefix);
+        result.lastSortRank = cell(row, columns.sortRank);
+        if (chunkListener != null && chunkSize > 0) {
+            chunk.add(movie);
+            if (chunk.size() >= chunkSize) {
+                chunkListener.onChunk(index, new ArrayList<>(chunk));
+                chunk.clear();
+            }
+        }
+    }
+
+    private Movie toMovie(String[] row, Columns columns) {
+        String title = cell(row, columns.title);
+        long id = (columns.id != -1) ? parseLong(cell(row, columns.id)) : title.hashCode();
+        int runtime = (int) parseLong(cell(row, columns.runtime));
+        String overview = cell(row, columns.overview);
+        String rawPoster = cell(row, columns.poster);
+        List<String> genreList = parseGenres(cell(row, columns.genres));
+        return new Movie(id, title, rawPoster, overview, formatDuration(runtime), genreList, columns.language);
+    }
+
+    // "['Action', 'Drama']" o "Action, Drama" -> [Action, Drama] en una sola pasada
+    static List<String> parseGenres(String genreStr) {
+        List<String> genres = new ArrayList<>();
+        int start = -1, end = -1;
+        for (int i = 0, n = genreStr.length(); i <= n; i++) {
+            char c = (i < n) ? genreStr.charAt(i) : ',';
+            if (c == ',') {
+                if (start != -1) genres.add(genreStr.substring(start, end + 1));
+                start = -1;
+            } else if (c != '[' && c != ']' && c != '\'' && c != '"' && !Character.isWhitespace(c)) {
+                if (start == -1) start = i;
+                end = i;
+            }
+        }
+        return genres;
+    }
+
+    static String formatDuration(int runtime) {
+        int hours = runtime / 60;
+        int minutes = runtime % 60;
+        return (hours > 0 ? hours + "h " : "") + minutes + "m";
+    }
+
+    private static String cell(String[] row, int index) {
+        if (index == -1 || index >= row.length || row[index] == null) return "";
+        return row[index];
+    }
+
+    private static long parseLong(String value) {
+        if (value.isEmpty()) return 0;
+        try {
+            return Long.parseLong(value);
+        } catch (NumberFormatException e) {
+            try { return (long) Double.parseDouble(value); } catch (NumberFormatException ignored) { return 0; }
+        }
+    }
+
+    private static class Columns {
+        final int count;
+        final boolean all; // modo raw: se leen todas las celdas
+        int id = -1, title = -1, runtime = -1, overview = -1, poster = -1, genres = -1;
+        int sortPrefix = -1, sortRank = -1;
+        String language; // de la columna de la sinopsis: overview u overview_es
+
+        Columns(int count, boolean all) {
+            this.count = count;
+            this.all = all;
+        }
+
+        boolean isUsed(int i) {
+            return all || i == id || i == title || i == runtime || i == overview || i == poster || i == genres
+                    || i == sortPrefix || i == sortRank;
+        }
+    }
+}
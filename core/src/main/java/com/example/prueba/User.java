@@ -6,13 +6,13 @@ import java.util.Set;
 public class User {
     private Set<Movie> watchlist;
     private Set<Movie> seenList;
-    private java.util.Map<Long, Integer> resumePositions;
+    private LongIntHashMap resumePositions; // id -> minuto
     private Set<Movie> resumeMovies;
 
     public User() {
         this.watchlist = new LinkedHashSet<>();
         this.seenList = new LinkedHashSet<>();
-        this.resumePositions = new java.util.HashMap<>();
+        this.resumePositions = new LongIntHashMap();
         this.resumeMovies = new LinkedHashSet<>();
     }
 
@@ -61,9 +61,6 @@ public class User {
     }
 
     public int getResumePosition(Movie movie) {
-        if (resumePositions.containsKey(movie.getId())) {
-            return resumePositions.get(movie.getId());
-        }
-        return 0; // Default to 0
+        return resumePositions.get(movie.getId(), 0); // Default to 0
     }
 }
@@ -0,0 +1,68 @@
+package com.example.prueba;
+
+import java.util.function.LongConsumer;
+
+// Palabras de un título o una sinopsis como hash de 64 bits (FNV-1a sobre letras y números en
+// minúsculas y sin tildes, con la tabla de TitleNormalizer), sin crear un String por palabra.
+// Solo cuentan las de MIN_LENGTH caracteres o más que no sean palabras vacías ni números sueltos.
+// Lo usan Recommender y SimilarityIndex.
+final class WordHashes {
+    static final int MIN_LENGTH = 4;
+
+    private static final String[] STOP_WORDS = {
+            "with", "from", "that", "this", "your", "what", "when", "where", "into", "over", "part", "their",
+            "they", "them", "then", "than", "have", "been", "will", "after", "while", "about", "which", "there",
+            "these", "those", "must", "only", "also", "more", "most", "being", "other", "just", "each",
+            "para", "como", "pero", "sobre", "entre", "desde", "hasta", "todo", "todos", "cuando", "donde",
+            "este", "esta", "estos", "tiene", "porque", "tras", "durante", "hace", "ella", "ellos"};
+    private static final LongHashSet STOP_WORD_HASHES = new LongHashSet(STOP_WORDS.length);
+
+    static {
+        for (String word : STOP_WORDS) STOP_WORD_HASHES.add(hash(word));
+    }
+
+    private static final long FNV_OFFSET = 0xcbf29ce484222325L;
+    private static final long FNV_PRIME = 0x100000001b3L;
+
+    private WordHashes() {}
+
+    static void scan(String text, LongConsumer out) {
+        if (text == null) return;
+        long hash = FNV_OFFSET;
+        int length = 0;
+        boolean hasLetter = false;
+        for (int i = 0; i <= text.length(); i++) {
+            char c = i < text.length() ? text.charAt(i) : ' ';
+            if (isWordChar(c)) {
+                c = fold(c);
+                hash = (hash ^ c) * FNV_PRIME;
+                length++;
+                if (c < '0' || c > '9') hasLetter = true;
+                continue;
+            }
+            // Los números sueltos ("2", "1984") no dicen nada del contenido
+            if (length >= MIN_LENGTH && hasLetter && !STOP_WORD_HASHES.contains(hash)) out.accept(hash);
+            hash = FNV_OFFSET;
+            length = 0;
+            hasLetter = false;
+        }
+    }
+
+    static long hash(String word) {
+        long hash = FNV_OFFSET;
+        for (int i = 0; i < word.length(); i++) hash = (hash ^ fold(word.charAt(i))) * FNV_PRIME;
+        return hash;
+    }
+
+    private static boolean isWordChar(char c) {
+        if (c < 128) return (c >= 'a' && c <= 'z') || (c >= 'A' && c <= 'Z') || (c >= '0' && c <= '9');
+        return Character.isLetterOrDigit(c);
+    }
+
+    // Minúsculas y sin tildes
+    private static char fold(char c) {
+        if (c < 128) return (c >= 'A' && c <= 'Z') ? (char) (c + ('a' - 'A')) : c;
+        int accent = TitleNormalizer.ACCENTED.indexOf(c);
+        return accent >= 0 ? TitleNormalizer.FOLDED.charAt(accent) : Character.toLowerCase(c);
+    }
+}
@@ -0,0 +1,139 @@
+package com.example.prueba;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.Assert.*;
+
+public class CatalogSnapshotTest {
+
+    private static Movie movie(long id, String genre) {
+        return new Movie(id, "Movie " + id, null, "", "1h 30m", Collections.singletonList(genre));
+    }
+
+    private static List<Movie> page(long firstId, int count, String genre) {
+        List<Movie> page = new ArrayList<>();
+        for (long id = firstId; id < firstId + count; id++) page.add(movie(id, genre));
+        return page;
+    }
+
+    private static List<Long> ids(CatalogSnapshot catalog) {
+        List<Long> ids = new ArrayList<>();
+        for (Movie m : catalog.getMovies()) ids.add(m.getId());
+        return ids;
+    }
+
+    @Test
+    public void olderVersionsDoNotSeeLaterPages() {
+        CatalogSnapshot first = CatalogSnapshot.EMPTY.replacedBy(page(1, 3, "Drama"));
+        CatalogSnapshot second = first.withAdded(page(4, 2, "Western"));
+        CatalogSnapshot third = second.withAdded(page(6, 200, "Drama"));
+
+        assertEquals(Arrays.asList(1L, 2L, 3L), ids(first));
+        assertEquals(3, first.size());
+        assertNull(first.get(4));
+        assertFalse(first.getMovies().contains(movie(4, "Western")));
+        assertEquals(3, first.getGenres().count("Drama"));
+        assertEquals(Collections.singletonList("Drama"), first.getGenres().topGenres(5));
+        assertTrue(first.getGenres().sample("Western", 5).isEmpty());
+
+        assertEquals(Arrays.asList(1L, 2L, 3L, 4L, 5L), ids(second));
+        assertEquals(2, second.getGenres().count("western"));
+        assertEquals(3, second.getGenres().sample("Drama", 10).size());
+
+        assertEquals(205, third.size());
+        assertEquals(203, third.getGenres().count("Drama"));
+        assertNotNull(third.get(205));
+        assertTrue(third.getMovies().contains(movie(1, "Drama")));
+    }
+
+    @Test
+    public void withAddedKeepsInstancesAndSkipsKnownIds() {
+        CatalogSnapshot catalog = CatalogSnapshot.EMPTY.replacedBy(page(1, 3, "Drama"));
+        Movie original = catalog.get(2);
+
+        assertSame(catalog, catalog.withAdded(page(1, 3, "Comedy")));
+        CatalogSnapshot next = catalog.withAdded(Arrays.asList(movie(2, "Comedy"), movie(9, "Comedy"), movie(9, "Horror")));
+        assertEquals(catalog.getVersion() + 1, next.getVersion());
+        assertSame(original, next.get(2));
+        assertEquals(Arrays.asList(1L, 2L, 3L, 9L), ids(next));
+        assertEquals(1, next.getGenres().count("Comedy"));
+        assertEquals(0, next.getGenres().count("Horror"));
+    }
+
+    @Test
+    public void branchingFromAnOlderVersionCopiesInsteadOfOverwriting() {
+        CatalogSnapshot base = CatalogSnapshot.EMPTY.replacedBy(page(1, 10, "Drama"));
+        CatalogSnapshot left = base.withAdded(page(100, 5, "Comedy"));
+        CatalogSnapshot right = base.withAdded(page(200, 7, "Horror"));
+
+        assertEquals(15, left.size());
+        assertEquals(5, left.getGenres().count("Comedy"));
+        assertEquals(0, left.getGenres().count("Horror"));
+        assertNotNull(left.get(104));
+        assertNull(left.get(200));
+
+        assertEquals(17, right.size());
+        assertEquals(7, right.getGenres().count("Horror"));
+        assertEquals(0, right.getGenres().count("Comedy"));
+        assertNull(right.get(100));
+
+        // Cada rama sigue creciendo por su cuenta
+        CatalogSnapshot leftMore = left.withAdded(page(300, 3, "Drama"));
+        assertEquals(13, leftMore.getGenres().count("Drama"));
+        assertEquals(10, right.getGenres().count("Drama"));
+        assertEquals(10, base.size());
+    }
+
+    @Test
+    public void emptiedKeepsTheVersionGoingUp() {
+        CatalogSnapshot catalog = CatalogSnapshot.EMPTY.replacedBy(page(1, 3, "Drama"));
+        CatalogSnapshot empty = catalog.emptied();
+        assertTrue(empty.isEmpty());
+        assertEquals(catalog.getVersion() + 1, empty.getVersion());
+
+        // Volver a llenar desde vacío no toca al catálogo que ya había
+        CatalogSnapshot refilled = empty.withAdded(page(50, 2, "Horror"));
+        assertEquals(Arrays.asList(50L, 51L), ids(refilled));
+        assertEquals(Arrays.asList(1L, 2L, 3L), ids(catalog));
+        assertTrue(CatalogSnapshot.EMPTY.isEmpty());
+    }
+
+    @Test(expected = UnsupportedOperationException.class)
+    public void moviesAreReadOnly() {
+        CatalogSnapshot.EMPTY.replacedBy(page(1, 3, "Drama")).getMovies().add(movie(9, "Drama"));
+    }
+
+    @Test
+    public void readersOfAnOlderVersionWhileAPageIsAdded() throws InterruptedException {
+        CatalogSnapshot base = CatalogSnapshot.EMPTY.replacedBy(page(1, 500, "Drama"));
+        AtomicReference<Throwable> failure = new AtomicReference<>();
+        Thread reader = new Thread(() -> {
+            try {
+                for (int round = 0; round < 200; round++) {
+                    assertEquals(500, base.size());
+                    for (long id = 1; id <= 500; id += 7) assertNotNull(base.get(id));
+                    assertNull(base.get(501));
+                    assertEquals(500, base.getGenres().count("Drama"));
+                    assertTrue(base.getGenres().sample("Comedy", 3).isEmpty());
+                }
+            } catch (Throwable t) {
+                failure.set(t);
+            }
+        });
+        reader.start();
+        CatalogSnapshot catalog = base;
+        for (long first = 501; first < 20_000; first += 20) catalog = catalog.withAdded(page(first, 20, "Comedy"));
+        reader.join();
+
+        assertNull(failure.get());
+        assertEquals(20_000, catalog.size());
+        assertEquals(500, catalog.getGenres().count("Drama"));
+        assertEquals(catalog.size() - 500, catalog.getGenres().count("Comedy"));
+    }
+}
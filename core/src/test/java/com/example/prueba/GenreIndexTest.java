@@ -0,0 +1,137 @@
+package com.example.prueba;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.Assert.*;
+
+public class GenreIndexTest {
+
+    private static Movie movie(long id, String duration, String... genres) {
+        return new Movie(id, "Movie " + id, null, "", duration, Arrays.asList(genres));
+    }
+
+    private static GenreIndex index(List<Movie> movies) {
+        return GenreIndex.of(movies);
+    }
+
+    private static boolean hasGenre(Movie movie, String genre) {
+        for (String g : movie.getGenres()) if (g.trim().equalsIgnoreCase(genre)) return true;
+        return false;
+    }
+
+    @Test
+    public void sampleIsDistinctAndOnlyFromTheGenre() {
+        List<Movie> movies = new ArrayList<>();
+        for (int id = 1; id <= 40; id++) movies.add(movie(id, "1h 30m", id % 4 == 0 ? "Action" : "Drama"));
+        GenreIndex index = index(movies);
+
+        for (int round = 0; round < 20; round++) {
+            Set<Movie> sample = index.sample("Action", 4);
+            assertEquals(4, sample.size());
+            for (Movie m : sample) assertTrue(hasGenre(m, "Action"));
+        }
+        // Más de las que hay: salen todas, una vez cada una
+        Set<Movie> all = index.sample("Action", 50);
+        assertEquals(10, all.size());
+        assertEquals(10, new HashSet<>(all).size());
+        assertTrue(index.sample("Western", 5).isEmpty());
+        assertEquals(40, index.sample((String) null, 100).size());
+        assertTrue(index.sample("Action", 0).isEmpty());
+    }
+
+    @Test
+    public void sampleCoversEveryMatch() {
+        List<Movie> movies = new ArrayList<>();
+        for (int id = 1; id <= 10; id++) movies.add(movie(id, "2h 0m", "Comedy"));
+        GenreIndex index = index(movies);
+
+        // El reservorio no se queda siempre con las primeras
+        Set<Long> picked = new HashSet<>();
+        for (int round = 0; round < 200; round++) for (Movie m : index.sample("Comedy", 2)) picked.add(m.getId());
+        assertEquals(10, picked.size());
+    }
+
+    @Test
+    public void genreNamesFoldCaseAndSpaces() {
+        GenreIndex index = index(Arrays.asList(
+                movie(1, "1h 0m", "Action"),
+                movie(2, "1h 0m", " action"),
+                movie(3, "1h 0m", "ACTION "),
+                movie(4, "1h 0m", "Drama")));
+
+        assertEquals(2, index.genreCount());
+        assertEquals("action", index.genreKey(0));
+        assertEquals(3, index.count("Action"));
+        assertEquals(3, index.count(" aCtIoN "));
+        assertEquals(3, index.sample(" ACTION", 10).size());
+        // Se muestra como llegó la primera vez
+        assertEquals(Arrays.asList("Action", "Drama"), index.topGenres(5));
+    }
+
+    @Test
+    public void fragmentMatchesEveryGenreThatContainsIt() {
+        GenreIndex index = index(Arrays.asList(
+                movie(1, "1h 0m", "Action"),
+                movie(2, "1h 0m", "Action & Adventure"),
+                movie(3, "1h 0m", "Drama")));
+
+        assertEquals(2, index.count("action"));
+        Set<Long> ids = new HashSet<>();
+        for (Movie m : index.sample(new String[] {"action"}, 0, Integer.MAX_VALUE, 10)) ids.add(m.getId());
+        assertEquals(new HashSet<>(Arrays.asList(1L, 2L)), ids);
+    }
+
+    @Test
+    public void topGenresByCountThenFirstSeen() {
+        List<Movie> movies = new ArrayList<>();
+        long id = 1;
+        movies.add(movie(id++, "1h 0m", "Western"));
+        for (int i = 0; i < 3; i++) movies.add(movie(id++, "1h 0m", "Comedy"));
+        for (int i = 0; i < 5; i++) movies.add(movie(id++, "1h 0m", "Drama"));
+        for (int i = 0; i < 3; i++) movies.add(movie(id++, "1h 0m", "Horror"));
+        GenreIndex index = index(movies);
+
+        assertEquals(Arrays.asList("Drama", "Comedy", "Horror", "Western"), index.topGenres(10));
+        assertEquals(Arrays.asList("Drama", "Comedy", "Horror"), index.topGenres(3));
+        assertEquals(Arrays.asList("Drama", "Comedy"), index.topGenres(2));
+        assertEquals(Collections.emptyList(), index(Collections.emptyList()).topGenres(5));
+    }
+
+    @Test
+    public void allGenresAndRuntimeBounds() {
+        GenreIndex index = index(Arrays.asList(
+                movie(1, "1h 29m", "Drama", "Comedy"),
+                movie(2, "1h 30m", "Drama", "Comedy"),
+                movie(3, "1h 45m", "Drama", "Comedy"),
+                movie(4, "2h 0m", "Comedy", "Drama"),
+                movie(5, "2h 1m", "Drama", "Comedy"),
+                movie(6, "1h 45m", "Drama"),
+                movie(7, "1h 45m", "Comedy")));
+
+        Set<Long> ids = new HashSet<>();
+        for (Movie m : index.sample(new String[] {"Drama", "comedy"}, 90, 120, 10)) ids.add(m.getId());
+        assertEquals(new HashSet<>(Arrays.asList(2L, 3L, 4L)), ids);
+
+        ids.clear();
+        for (Movie m : index.sample(new String[0], 100, 110, 10)) ids.add(m.getId());
+        assertEquals(new HashSet<>(Arrays.asList(3L, 6L, 7L)), ids);
+
+        assertTrue(index.sample(new String[] {"Drama", "Western"}, 0, Integer.MAX_VALUE, 10).isEmpty());
+    }
+
+    @Test
+    public void parseMinutes() {
+        assertEquals(105, GenreIndex.parseMinutes("1h 45m"));
+        assertEquals(45, GenreIndex.parseMinutes("45m"));
+        assertEquals(120, GenreIndex.parseMinutes("2h 0m"));
+        assertEquals(0, GenreIndex.parseMinutes(""));
+        assertEquals(0, GenreIndex.parseMinutes(null));
+    }
+}
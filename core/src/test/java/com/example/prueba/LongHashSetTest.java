@@ -0,0 +1,33 @@
+package com.example.prueba;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+public class LongHashSetTest {
+
+    @Test
+    public void addRemoveAndReAddAcrossResize() {
+        LongHashSet set = new LongHashSet(4);
+        // Ids seguidos, como los de TMDB: muchos acaban en el mismo tramo de la tabla
+        for (long id = 0; id < 1000; id++) assertTrue(set.add(id));
+        assertEquals(1000, set.size());
+        for (long id = 0; id < 1000; id += 2) assertTrue(set.remove(id));
+        assertEquals(500, set.size());
+        for (long id = 0; id < 1000; id++) assertEquals(id % 2 == 1, set.contains(id));
+
+        for (long id = 0; id < 3000; id += 2) assertTrue(set.add(id));
+        for (long id = 0; id < 1000; id++) assertTrue(set.contains(id));
+        for (long id = 1000; id < 3000; id++) assertEquals(id % 2 == 0, set.contains(id));
+        assertEquals(2000, set.size());
+    }
+
+    @Test
+    public void removeKeepsTheRestOfTheProbeChain() {
+        LongHashSet set = new LongHashSet();
+        for (long id = 1; id <= 100; id++) set.add(id * 1024);
+        for (long id = 1; id <= 100; id += 3) assertTrue(set.remove(id * 1024));
+        for (long id = 1; id <= 100; id++) assertEquals((id - 1) % 3 != 0, set.contains(id * 1024));
+        assertFalse(set.remove(1024));
+    }
+}
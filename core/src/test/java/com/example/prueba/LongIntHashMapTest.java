@@ -0,0 +1,41 @@
+package com.example.prueba;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+public class LongIntHashMapTest {
+
+    @Test
+    public void putRemoveAndReAddAcrossResize() {
+        LongIntHashMap map = new LongIntHashMap(4);
+        for (long id = 0; id < 1000; id++) map.put(id, (int) id * 10);
+        assertEquals(1000, map.size());
+        for (long id = 0; id < 1000; id += 2) assertTrue(map.remove(id));
+        assertEquals(500, map.size());
+
+        for (long id = 0; id < 3000; id += 2) map.put(id, -(int) id);
+        assertEquals(2000, map.size());
+        for (long id = 1; id < 1000; id += 2) assertEquals((int) id * 10, map.get(id, -1));
+        for (long id = 0; id < 3000; id += 2) assertEquals(-(int) id, map.get(id, 1));
+    }
+
+    @Test
+    public void containsKeyAfterRemove() {
+        LongIntHashMap map = new LongIntHashMap();
+        for (long id = 1; id <= 100; id++) map.put(id * 1024, (int) id);
+        for (long id = 1; id <= 100; id += 3) assertTrue(map.remove(id * 1024));
+        for (long id = 1; id <= 100; id++) {
+            boolean kept = (id - 1) % 3 != 0;
+            assertEquals(kept, map.containsKey(id * 1024));
+            assertEquals(kept ? (int) id : -1, map.get(id * 1024, -1));
+        }
+        assertFalse(map.remove(1024));
+
+        map.put(0, 7);
+        assertTrue(map.containsKey(0));
+        assertTrue(map.remove(0));
+        assertFalse(map.containsKey(0));
+        assertEquals(-1, map.get(0, -1));
+    }
+}
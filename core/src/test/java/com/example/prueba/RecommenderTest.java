@@ -0,0 +1,168 @@
+package com.example.prueba;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+
+import static org.junit.Assert.*;
+
+public class RecommenderTest {
+
+    private static Movie movie(long id, String title, String... genres) {
+        return new Movie(id, title, null, "", "1h 40m", Arrays.asList(genres));
+    }
+
+    private static void assertSameWeights(Recommender expected, Recommender actual) {
+        assertEquals(expected.genreWeights(), actual.genreWeights());
+        assertEquals(expected.keywordWeights(), actual.keywordWeights());
+        assertEquals(expected.genreTotal(), actual.genreTotal());
+        assertEquals(expected.keywordTotal(), actual.keywordTotal());
+    }
+
+    private static Set<Long> ids(List<Movie> movies) {
+        Set<Long> ids = new HashSet<>();
+        for (Movie m : movies) ids.add(m.getId());
+        return ids;
+    }
+
+    @Test
+    public void addThenRemoveRestoresTheExactWeights() {
+        Movie heat = movie(1, "Heat", "Action", "Crime");
+        Movie alien = movie(2, "Alien", "Horror", "Science Fiction");
+        Movie aliens = movie(3, "Aliens", "Action", "Horror");
+
+        Recommender expected = new Recommender();
+        expected.update(heat, Recommender.WATCHLIST);
+        expected.update(alien, Recommender.SEEN);
+
+        Recommender profile = new Recommender();
+        profile.update(heat, Recommender.WATCHLIST);
+        profile.update(alien, Recommender.SEEN);
+        assertSameWeights(expected, profile);
+
+        assertTrue(profile.update(aliens, Recommender.SEEN | Recommender.IN_PROGRESS));
+        assertNotEquals(expected.genreWeights(), profile.genreWeights());
+        assertTrue(profile.update(aliens, 0));
+        assertSameWeights(expected, profile);
+
+        // Cambia la señal y vuelve
+        assertTrue(profile.update(heat, Recommender.WATCHLIST | Recommender.SEEN));
+        assertTrue(profile.update(heat, Recommender.WATCHLIST));
+        assertSameWeights(expected, profile);
+
+        // Otra instancia con otros géneros: se resta lo que sumó la anterior, no lo de esta
+        assertTrue(profile.update(movie(2, "Alien", "Horror"), Recommender.SEEN));
+        assertTrue(profile.update(alien, Recommender.SEEN));
+        assertSameWeights(expected, profile);
+
+        // Watchlist pesa 2 y vista 3, por género en minúsculas
+        Map<String, Integer> weights = profile.genreWeights();
+        assertEquals(Integer.valueOf(2), weights.get("action"));
+        assertEquals(Integer.valueOf(2), weights.get("crime"));
+        assertEquals(Integer.valueOf(3), weights.get("horror"));
+        assertEquals(Integer.valueOf(3), weights.get("science fiction"));
+        assertEquals(10, profile.genreTotal());
+    }
+
+    @Test
+    public void unchangedUpdatesKeepTheVersion() {
+        Recommender profile = new Recommender();
+        Movie heat = movie(1, "Heat", "Action");
+        assertFalse(profile.update(heat, 0));
+        assertTrue(profile.update(heat, Recommender.SEEN));
+        long version = profile.getVersion();
+        assertFalse(profile.update(movie(1, "Heat", "Action"), Recommender.SEEN));
+        assertEquals(version, profile.getVersion());
+
+        assertTrue(profile.update(heat, 0));
+        assertTrue(profile.isEmpty());
+        assertTrue(profile.genreWeights().isEmpty());
+        assertTrue(profile.keywordWeights().isEmpty());
+        assertEquals(0, profile.genreTotal());
+        assertEquals(0, profile.keywordTotal());
+    }
+
+    @Test
+    public void libraryAndSkippedMoviesAreNeverRecommended() {
+        List<Movie> catalog = new ArrayList<>();
+        for (long id = 1; id <= 10; id++) catalog.add(movie(id, "Western " + id, "Western"));
+        for (long id = 11; id <= 20; id++) catalog.add(movie(id, "Comedy " + id, "Comedy"));
+        Recommender.Candidates candidates = Recommender.Candidates.of(CatalogSnapshot.EMPTY.replacedBy(catalog));
+
+        Recommender recommender = new Recommender();
+        recommender.update(catalog.get(0), Recommender.SEEN);
+        recommender.update(catalog.get(1), Recommender.WATCHLIST);
+        Recommender.Profile profile = recommender.snapshot();
+        assertTrue(profile.inLibrary(1));
+        assertFalse(profile.inLibrary(3));
+
+        LongHashSet skip = new LongHashSet();
+        skip.add(3);
+        Set<Long> recommended = ids(profile.recommend(candidates, 20, skip));
+        // Solo las que tienen algo en común con el perfil, sin las de la biblioteca ni las saltadas
+        Set<Long> expected = new HashSet<>();
+        for (long id = 4; id <= 10; id++) expected.add(id);
+        assertEquals(expected, recommended);
+
+        assertEquals(3, profile.recommend(candidates, 3, null).size());
+        assertTrue(new Recommender().snapshot().recommend(candidates, 5, null).isEmpty());
+    }
+
+    @Test
+    public void closerMoviesRankFirst() {
+        List<Movie> catalog = Arrays.asList(
+                movie(1, "Space Pirates", "Comedy"),
+                movie(2, "Space Station", "Science Fiction", "Horror"),
+                movie(3, "Deep Space Nightmare", "Science Fiction", "Horror"),
+                movie(4, "Quiet Farm", "Drama"));
+        Recommender.Candidates candidates = Recommender.Candidates.of(CatalogSnapshot.EMPTY.replacedBy(catalog));
+
+        Recommender recommender = new Recommender();
+        recommender.update(movie(100, "Space Nightmare", "Science Fiction", "Horror"), Recommender.SEEN);
+        List<Movie> recommended = recommender.snapshot().recommend(candidates, 10, null);
+
+        // La 3 comparte géneros y dos palabras; la 2 géneros y una; la 1 solo una palabra; la 4 nada
+        assertEquals(Arrays.asList(3L, 2L, 1L), Arrays.asList(recommended.get(0).getId(),
+                recommended.get(1).getId(), recommended.get(2).getId()));
+        assertEquals(3, recommended.size());
+    }
+
+    @Test
+    public void topKKeepsTheBestInOrder() {
+        Random random = new Random(7);
+        float[] scores = new float[500];
+        for (int i = 0; i < scores.length; i++) scores[i] = random.nextFloat();
+        Recommender.TopK top = new Recommender.TopK(10);
+        for (int i = 0; i < scores.length; i++) top.offer(scores[i], i);
+
+        Integer[] expected = new Integer[scores.length];
+        for (int i = 0; i < expected.length; i++) expected[i] = i;
+        Arrays.sort(expected, (a, b) -> Float.compare(scores[b], scores[a]));
+        int[] best = top.sorted();
+        assertEquals(10, best.length);
+        for (int i = 0; i < best.length; i++) assertEquals((int) expected[i], best[i]);
+    }
+
+    @Test
+    public void topKTiesKeepTheFirstArrivals() {
+        Recommender.TopK top = new Recommender.TopK(2);
+        top.offer(1f, 0);
+        top.offer(1f, 1);
+        top.offer(1f, 2);
+        top.offer(0.5f, 3);
+        Set<Integer> kept = new HashSet<>();
+        for (int slot : top.sorted()) kept.add(slot);
+        assertEquals(new HashSet<>(Arrays.asList(0, 1)), kept);
+
+        Recommender.TopK few = new Recommender.TopK(5);
+        few.offer(0.2f, 7);
+        few.offer(0.9f, 8);
+        assertArrayEquals(new int[] {8, 7}, few.sorted());
+    }
+}
@@ -0,0 +1,50 @@
+package com.example.prueba;
+
+import org.junit.Test;
+
+import java.util.Arrays;
+
+import static org.junit.Assert.*;
+
+public class SimilarityIndexTest {
+
+    private static Movie movie(long id, String... genres) {
+        return new Movie(id, "The long voyage home", null, "A freighter crew drifts across the ocean during wartime",
+                "1h 45min", Arrays.asList(genres));
+    }
+
+    @Test
+    public void putThenRemoveLeavesNoBucketEntries() {
+        SimilarityIndex index = new SimilarityIndex();
+        assertTrue(index.add(movie(1, "Drama")));
+        assertTrue(index.add(movie(2, "Drama")));
+        assertArrayEquals(new long[] {2}, index.similar(1, 5));
+
+        index.remove(2);
+        assertEquals(SimilarityIndex.BANDS, index.bucketEntries());
+        assertEquals(0, index.similar(1, 5).length);
+
+        index.remove(1);
+        assertEquals(0, index.size());
+        assertEquals(0, index.bucketEntries());
+        assertEquals(0, index.similar(1, 5).length);
+    }
+
+    @Test
+    public void replacingASignatureUnlinksTheOldOne() {
+        SimilarityIndex index = new SimilarityIndex();
+        index.add(movie(1, "Drama"));
+        index.add(movie(2, "Drama"));
+        assertTrue(index.put(2, SimilarityIndex.signature(new Movie(2, "Cartoon capers", null,
+                "Talking rabbits outwit a hungry hunter", "7min", Arrays.asList("Animation")))));
+        assertEquals(2 * SimilarityIndex.BANDS, index.bucketEntries());
+        assertEquals(0, index.similar(1, 5).length);
+    }
+
+    @Test
+    public void genreCaseAndSpacingDoNotMatter() {
+        int[] a = SimilarityIndex.signature(movie(1, "Action", "Science Fiction"));
+        int[] b = SimilarityIndex.signature(movie(2, " action", "science fiction "));
+        assertArrayEquals(a, b);
+    }
+}
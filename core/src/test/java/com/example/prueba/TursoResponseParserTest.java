@@ -0,0 +1,211 @@
+package com.example.prueba;
+
+import org.junit.Test;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.Assert.*;
+
+public class TursoResponseParserTest {
+
+    private static final String MOVIE_COLS = cols("rowid", "title", "runtime", "vote_average", "overview",
+            "poster_path", "genres", "sort_prefix", "sort_rank");
+
+    // Celdas y resultados como los manda /v2/pipeline
+    private static String text(String value) {
+        return "{\"type\":\"text\",\"value\":\"" + value.replace("\"", "\\\"") + "\"}";
+    }
+
+    private static String integer(long value) {
+        return "{\"type\":\"integer\",\"value\":\"" + value + "\"}";
+    }
+
+    private static String real(double value) {
+        return "{\"type\":\"float\",\"value\":" + value + "}";
+    }
+
+    private static String nul() {
+        return "{\"type\":\"null\"}";
+    }
+
+    private static String cols(String... names) {
+        List<String> cols = new ArrayList<>();
+        for (String name : names) cols.add("{\"name\":\"" + name + "\",\"decltype\":null}");
+        return "\"cols\":[" + String.join(",", cols) + "]";
+    }
+
+    private static String row(String... cells) {
+        return "[" + String.join(",", cells) + "]";
+    }
+
+    private static String movieRow(long id, String title, int runtime, String genres) {
+        return row(integer(id), text(title), integer(runtime), real(7.5), text("Overview of " + title),
+                text("/" + id + ".jpg"), text(genres), text(title.toLowerCase()), integer(id * 10));
+    }
+
+    private static String execute(String cols, String... rows) {
+        return "{\"type\":\"ok\",\"response\":{\"type\":\"execute\",\"result\":{" + cols + ",\"rows\":["
+                + String.join(",", rows) + "],\"affected_row_count\":0,\"last_insert_rowid\":null}}}";
+    }
+
+    private static String error(String message) {
+        return "{\"type\":\"error\",\"error\":{\"message\":\"" + message + "\",\"code\":\"SQLITE_ERROR\"}}";
+    }
+
+    private static String pipeline(String baton, String baseUrl, String... results) {
+        return "{\"baton\":" + (baton == null ? "null" : "\"" + baton + "\"")
+                + ",\"base_url\":" + (baseUrl == null ? "null" : "\"" + baseUrl + "\"")
+                + ",\"results\":[" + String.join(",", results) + "]}";
+    }
+
+    private static List<TursoResponseParser.StatementResult> parse(TursoResponseParser parser, String json)
+            throws IOException {
+        return parser.parse(new StringReader(json));
+    }
+
+    @Test
+    public void moviesFromExecuteResult() throws IOException {
+        List<TursoResponseParser.StatementResult> results = parse(new TursoResponseParser(), pipeline(null, null,
+                execute(MOVIE_COLS, movieRow(949, "Heat", 170, "['Action', 'Crime']"),
+                        movieRow(11, "Star Wars", 45, "Adventure, Science Fiction"))));
+
+        assertEquals(1, results.size());
+        TursoResponseParser.StatementResult result = results.get(0);
+        assertNull(result.error);
+        assertEquals(0, result.skippedRows);
+        List<Movie> movies = new ArrayList<>(result.movies);
+        assertEquals(2, movies.size());
+
+        Movie heat = movies.get(0);
+        assertEquals(949, heat.getId());
+        assertEquals("Heat", heat.getTitle());
+        assertEquals("/949.jpg", heat.getPosterUrl());
+        assertEquals("2h 50m", heat.getDuration());
+        assertEquals(Arrays.asList("Action", "Crime"), heat.getGenres());
+        assertEquals(Collections.singletonMap(ContentLanguage.EN, "Overview of Heat"), heat.getOverviews());
+
+        assertEquals("45m", movies.get(1).getDuration());
+        assertEquals(Arrays.asList("Adventure", "Science Fiction"), movies.get(1).getGenres());
+        // La clave de la última fila, para la página siguiente
+        assertEquals(11, result.lastRowId);
+        assertEquals("star wars", result.lastSortPrefix);
+        assertEquals("110", result.lastSortRank);
+    }
+
+    @Test
+    public void overviewEsIsTheSpanishOverview() throws IOException {
+        List<TursoResponseParser.StatementResult> results = parse(new TursoResponseParser(), pipeline(null, null,
+                execute(cols("rowid", "title", "overview_es"), row(integer(1), text("Heat"), text("Un atraco")))));
+
+        Movie movie = results.get(0).movies.iterator().next();
+        assertTrue(movie.hasOverview(ContentLanguage.ES));
+        assertFalse(movie.hasOverview(ContentLanguage.EN));
+        assertEquals(Collections.singletonMap(ContentLanguage.ES, "Un atraco"), movie.getOverviews());
+    }
+
+    @Test
+    public void colsAfterRows() throws IOException {
+        String json = "{\"results\":[{\"type\":\"ok\",\"response\":{\"type\":\"execute\",\"result\":{\"rows\":["
+                + movieRow(949, "Heat", 170, "['Action', 'Crime']") + "]," + MOVIE_COLS + "}}}]}";
+        TursoResponseParser.StatementResult result = parse(new TursoResponseParser(), json).get(0);
+
+        Movie heat = result.movies.iterator().next();
+        assertEquals(949, heat.getId());
+        assertEquals("Heat", heat.getTitle());
+        assertEquals("2h 50m", heat.getDuration());
+        assertEquals(Arrays.asList("Action", "Crime"), heat.getGenres());
+        assertEquals("heat", result.lastSortPrefix);
+    }
+
+    @Test
+    public void errorOnlyFailsItsOwnStatement() throws IOException {
+        List<TursoResponseParser.StatementResult> results = parse(new TursoResponseParser(), pipeline(null, null,
+                execute(MOVIE_COLS, movieRow(1, "Heat", 170, "Action")),
+                error("no such column: overview_fr"),
+                execute(MOVIE_COLS, movieRow(2, "Alien", 117, "Horror")),
+                "{\"type\":\"ok\",\"response\":{\"type\":\"close\"}}"));
+
+        assertEquals(4, results.size());
+        assertEquals(1, results.get(0).movies.size());
+        assertEquals("no such column: overview_fr", results.get(1).error);
+        assertTrue(results.get(1).movies.isEmpty());
+        assertNull(results.get(2).error);
+        assertEquals(2, results.get(2).movies.iterator().next().getId());
+        assertNull(results.get(3).error);
+        assertTrue(results.get(3).movies.isEmpty());
+    }
+
+    @Test
+    public void batonAndBaseUrl() throws IOException {
+        TursoResponseParser parser = new TursoResponseParser();
+        parse(parser, pipeline("b4t0n", "https://db-eu.turso.io", execute(MOVIE_COLS)));
+        assertEquals("b4t0n", parser.getBaton());
+        assertEquals("https://db-eu.turso.io", parser.getBaseUrl());
+
+        // Stream cerrado por el servidor
+        TursoResponseParser closed = new TursoResponseParser();
+        parse(closed, pipeline(null, null, execute(MOVIE_COLS)));
+        assertNull(closed.getBaton());
+        assertNull(closed.getBaseUrl());
+    }
+
+    @Test
+    public void chunksPerStatement() throws IOException {
+        List<String> chunks = new ArrayList<>();
+        TursoResponseParser parser = new TursoResponseParser(2, (statement, rows) -> {
+            List<Long> ids = new ArrayList<>();
+            for (Movie m : rows) ids.add(m.getId());
+            chunks.add(statement + ":" + ids);
+        });
+        List<String> rows = new ArrayList<>();
+        for (int id = 1; id <= 5; id++) rows.add(movieRow(id, "Movie " + id, 90, "Drama"));
+
+        List<TursoResponseParser.StatementResult> results = parse(parser, pipeline(null, null,
+                execute(MOVIE_COLS, rows.toArray(new String[0])),
+                execute(MOVIE_COLS, movieRow(6, "Movie 6", 90, "Drama"))));
+
+        assertEquals(Arrays.asList("0:[1, 2]", "0:[3, 4]", "0:[5]", "1:[6]"), chunks);
+        assertEquals(5, results.get(0).movies.size());
+        assertEquals(1, results.get(1).movies.size());
+    }
+
+    @Test
+    public void rawRowsKeepEveryColumn() throws IOException {
+        TursoResponseParser.StatementResult result = parse(TursoResponseParser.rawRows(), pipeline(null, null,
+                execute(cols("rowid", "title", "vote_average", "overview_es"),
+                        row(integer(3), text("Heat"), real(8.5), nul()),
+                        row(integer(7), text("Alien"), real(8.1), text("En el espacio")))))
+                .get(0);
+
+        assertTrue(result.movies.isEmpty());
+        assertEquals(Arrays.asList("rowid", "title", "vote_average", "overview_es"), result.columnNames);
+        assertEquals(2, result.rows.size());
+        assertArrayEquals(new String[] {"3", "Heat", "8.5", null}, result.rows.get(0));
+        assertArrayEquals(new String[] {"7", "Alien", "8.1", "En el espacio"}, result.rows.get(1));
+        assertEquals(7, result.lastRowId);
+    }
+
+    @Test
+    public void parseGenresInOnePass() {
+        assertEquals(Arrays.asList("Action", "Science Fiction"),
+                TursoResponseParser.parseGenres("['Action', 'Science Fiction']"));
+        assertEquals(Arrays.asList("Action", "Drama"), TursoResponseParser.parseGenres("[\"Action\",\"Drama\"]"));
+        assertEquals(Arrays.asList("Comedy", "Drama"), TursoResponseParser.parseGenres(" Comedy ,Drama, "));
+        assertEquals(Collections.emptyList(), TursoResponseParser.parseGenres("[]"));
+        assertEquals(Collections.emptyList(), TursoResponseParser.parseGenres(""));
+    }
+
+    @Test
+    public void overviewsMapHasOnlyKnownLanguages() throws IOException {
+        Movie movie = parse(new TursoResponseParser(), pipeline(null, null,
+                execute(cols("rowid", "title"), row(integer(1), text("Heat"))))).get(0).movies.iterator().next();
+        Map<String, String> overviews = movie.getOverviews();
+        assertTrue(overviews.isEmpty());
+    }
+}
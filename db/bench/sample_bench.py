@@ -0,0 +1,114 @@
+#!/usr/bin/env python3
+"""Compara ORDER BY RANDOM() LIMIT k con el muestreo por rowid de TursoClient.buildSampleSql
+sobre un catálogo sintético en un SQLite local que hace de sustituto de Turso.
+
+Lanza las consultas de portada (fetchRandomMovies), por género (fetchMoviesByGenre),
+recomendaciones (fetchRecommendations) y relleno de géneros de la portada
+(buildGenreCoverageSql) con las dos estrategias, para varios tamaños de tabla.
+
+    python3 db/bench/sample_bench.py --rows 100000 200000 --runs 20
+"""
+import argparse
+import os
+import random
+import sqlite3
+import statistics
+import tempfile
+import time
+
+COLUMNS = "rowid, title, runtime, overview, poster_path, genres"
+GENRES = ["Action", "Drama", "Comedy", "Romance", "Documentary", "Adventure", "Horror", "Thriller",
+          "Animation", "Western"]
+# Probabilidad de cada género en una película: los primeros son comunes, Western es raro
+GENRE_WEIGHTS = [0.30, 0.45, 0.30, 0.15, 0.08, 0.15, 0.10, 0.15, 0.05, 0.01]
+OVERSAMPLE = 3  # TursoClient.SAMPLE_OVERSAMPLE
+
+
+def build_catalog(path, rows, seed):
+    rnd = random.Random(seed)
+    db = sqlite3.connect(path)
+    db.execute("CREATE TABLE peliculas (id INTEGER, title TEXT, runtime INTEGER, overview TEXT, "
+               "overview_es TEXT, poster_path TEXT, genres TEXT)")
+    batch = []
+    for i in range(rows):
+        genres = [g for g, w in zip(GENRES, GENRE_WEIGHTS) if rnd.random() < w] or ["Drama"]
+        batch.append((i, "Movie %d" % i, rnd.randint(70, 190), "Overview %d" % i, "Sinopsis %d" % i,
+                      "/p%d.jpg" % i, str(genres)))
+        if len(batch) == 10000:
+            db.executemany("INSERT INTO peliculas VALUES (?, ?, ?, ?, ?, ?, ?)", batch)
+            batch = []
+    db.executemany("INSERT INTO peliculas VALUES (?, ?, ?, ?, ?, ?, ?)", batch)
+    # Huecos en los rowid, como tras borrar películas
+    db.execute("DELETE FROM peliculas WHERE rowid %% 97 = 0 OR rowid BETWEEN %d AND %d" % (rows // 3, rows // 3 + rows // 50))
+    db.commit()
+    return db
+
+
+def random_sql(where, limit_expr):
+    where = " WHERE " + where if where else ""
+    return "SELECT %s FROM peliculas%s ORDER BY RANDOM() LIMIT %s" % (COLUMNS, where, limit_expr)
+
+
+def sample_sql(where, max_rows, limit_expr):
+    # Igual que TursoClient.buildSampleSql(). MIN y MAX van en subconsultas separadas: juntos en
+    # el mismo SELECT SQLite no usa el atajo del índice y recorre la tabla entera.
+    flt = " AND (%s)" % where if where else ""
+    return ("WITH RECURSIVE probe(n, lo, span, at) AS ("
+            "SELECT 1, lo, span, lo + ABS(RANDOM() %% span)"
+            " FROM (SELECT lo, hi - lo + 1 AS span FROM (SELECT (SELECT MIN(rowid) FROM peliculas) AS lo,"
+            " (SELECT MAX(rowid) FROM peliculas) AS hi))"
+            " UNION ALL SELECT n + 1, lo, span, lo + ABS(RANDOM() %% span) FROM probe"
+            " WHERE n < %d)"
+            " SELECT %s FROM peliculas WHERE rowid IN ("
+            "SELECT (SELECT rowid FROM peliculas WHERE rowid >= at%s ORDER BY rowid LIMIT 1) FROM probe)"
+            " ORDER BY RANDOM() LIMIT %s") % (max_rows * OVERSAMPLE, COLUMNS, flt, limit_expr)
+
+
+def cases():
+    base_page = "SELECT rowid, genres FROM peliculas ORDER BY rowid LIMIT 50"
+    coverage_where = "genres LIKE '%%Western%%' AND rowid NOT IN (SELECT rowid FROM (%s))" % base_page
+    coverage_limit = "MAX(0, 10 - (SELECT COUNT(*) FROM (%s) WHERE genres LIKE '%%Western%%'))" % base_page
+    recs = "genres LIKE '%Action%' OR genres LIKE '%Comedy%' OR genres LIKE '%Horror%'"
+    return [
+        ("random (20)", None, 20, "20"),
+        ("genre Drama (10)", "genres LIKE '%Drama%'", 10, "10"),
+        ("genre Western (10)", "genres LIKE '%Western%'", 10, "10"),
+        ("recommendations (20)", recs, 20, "20"),
+        ("coverage Western", coverage_where, 10, coverage_limit),
+    ]
+
+
+def time_query(db, sql, runs):
+    samples = []
+    rows = []
+    for _ in range(runs):
+        start = time.perf_counter()
+        rows = db.execute(sql).fetchall()
+        samples.append((time.perf_counter() - start) * 1000)
+    return statistics.median(samples), rows
+
+
+def main():
+    parser = argparse.ArgumentParser()
+    parser.add_argument("--rows", type=int, nargs="+", default=[100000, 200000])
+    parser.add_argument("--runs", type=int, default=20)
+    parser.add_argument("--seed", type=int, default=42)
+    args = parser.parse_args()
+
+    with tempfile.TemporaryDirectory() as tmp:
+        for rows in args.rows:
+            db = build_catalog(os.path.join(tmp, "catalog_%d.db" % rows), rows, args.seed)
+            print("catalog: %d rows" % db.execute("SELECT COUNT(*) FROM peliculas").fetchone()[0])
+            print("%-22s %12s %12s %8s %8s" % ("query", "random() ms", "sample ms", "speedup", "rows"))
+            for name, where, max_rows, limit_expr in cases():
+                random_ms, random_rows = time_query(db, random_sql(where, limit_expr), args.runs)
+                sample_ms, sample_rows = time_query(db, sample_sql(where, max_rows, limit_expr), args.runs)
+                print("%-22s %12.2f %12.2f %7.1fx %4d/%-4d" % (name, random_ms, sample_ms,
+                                                             random_ms / max(sample_ms, 1e-6),
+                                                             len(random_rows), len(sample_rows)))
+            db.close()
+            print()
+
+
+if __name__ == "__main__":
+    main()
@@ -0,0 +1,129 @@
+#!/usr/bin/env python3
+"""Compara la búsqueda por título con LIKE (SearchMode.SCAN) y con FTS5 trigram (SearchMode.FTS)
+sobre un catálogo sintético en un SQLite local que hace de sustituto de Turso.
+
+Crea una tabla peliculas con el mismo esquema que la de Turso, aplica
+db/migrations/001_peliculas_title_fts.sql y lanza las mismas consultas que genera
+TursoClient.searchMovies en cada modo.
+
+    python3 db/bench/search_bench.py --rows 200000 --runs 20
+
+Necesita un sqlite3 con FTS5 y el tokenizer trigram (SQLite >= 3.34).
+"""
+import argparse
+import itertools
+import os
+import random
+import sqlite3
+import statistics
+import tempfile
+import time
+
+MIGRATION = os.path.join(os.path.dirname(__file__), "..", "migrations", "001_peliculas_title_fts.sql")
+
+# Palabras reales que aparecen de vez en cuando; el resto del vocabulario son palabras inventadas
+# con reparto tipo Zipf, para que la selectividad se parezca a la de un catálogo de verdad.
+WORDS = ["star", "wars", "love", "night", "dark", "knight", "return", "city", "lost", "house",
+         "dream", "space", "river", "king", "queen", "ghost", "summer", "winter", "secret", "blood",
+         "spider", "man", "iron", "game", "story", "last", "first", "home", "road", "fire",
+         "niño", "corazón", "película", "amélie", "mañana", "perdón", "ciudad", "mar", "sol", "luna"]
+SYLLABLES = ["ka", "lo", "mi", "ra", "te", "zu", "bel", "dor", "fin", "gar", "hel", "jon", "ver", "sto", "qua", "pri"]
+GENRES = ["Action", "Drama", "Comedy", "Romance", "Documentary", "Adventure", "Horror", "Thriller"]
+QUERIES = ["spider man", "dark knight", "lost city", "ghost", "corazon", "star wars return", "xyzzy", "up"]
+
+ACCENTED = "áàäâãåéèëêíìïîóòöôõúùüûñçýÿÁÀÄÂÃÅÉÈËÊÍÌÏÎÓÒÖÔÕÚÙÜÛÑÇÝ"
+FOLDED = "aaaaaaeeeeiiiiooooouuuuncyyaaaaaaeeeeiiiiooooouuuuncy"
+
+
+def normalize(term):
+    # Igual que TitleNormalizer.normalize()
+    out = []
+    for c in term:
+        if c in " -:":
+            continue
+        i = ACCENTED.find(c)
+        out.append(FOLDED[i] if i >= 0 else (c.lower() if "A" <= c <= "Z" else c))
+    return "".join(out)
+
+
+def build_catalog(path, rows, seed):
+    rnd = random.Random(seed)
+    vocab = ["".join(rnd.choice(SYLLABLES) for _ in range(rnd.randint(2, 4))) for _ in range(20000)]
+    cum_weights = list(itertools.accumulate(1.0 / (rank + 1) for rank in range(len(vocab))))
+    db = sqlite3.connect(path)
+    db.execute("CREATE TABLE peliculas (id INTEGER, title TEXT, runtime INTEGER, overview TEXT, "
+               "overview_es TEXT, poster_path TEXT, genres TEXT)")
+    batch = []
+    for i in range(rows):
+        words = rnd.choices(vocab, cum_weights=cum_weights, k=rnd.randint(1, 4))
+        if rnd.random() < 0.05:
+            words[rnd.randrange(len(words))] = rnd.choice(WORDS)
+        title = " ".join(words).title()
+        if rnd.random() < 0.2:
+            title = title.replace(" ", "-", 1)
+        genres = ", ".join(rnd.sample(GENRES, rnd.randint(1, 3)))
+        batch.append((i, title, rnd.randint(70, 190), "Overview %d" % i, "Sinopsis %d" % i, "/p%d.jpg" % i, genres))
+        if len(batch) == 10000:
+            db.executemany("INSERT INTO peliculas VALUES (?, ?, ?, ?, ?, ?, ?)", batch)
+            batch = []
+    db.executemany("INSERT INTO peliculas VALUES (?, ?, ?, ?, ?, ?, ?)", batch)
+    db.commit()
+    return db
+
+
+def scan_sql(terms, limit):
+    where = " AND ".join("(LOWER(REPLACE(REPLACE(title, '-', ''), ' ', '')) LIKE '%%%s%%')"
+                         % t.lower().replace("-", "").replace(":", "").replace("'", "''") for t in terms)
+    return "SELECT rowid, title, runtime, overview, poster_path, genres FROM peliculas WHERE %s LIMIT %d" % (where, limit)
+
+
+def fts_sql(terms, limit):
+    normalized = [n for n in (normalize(t) for t in terms) if n]
+    match = " ".join('"%s"' % n.replace('"', '""') for n in normalized if len(n) >= 3)
+    if not match:
+        return scan_sql(terms, limit)
+    shorts = [n for n in normalized if len(n) < 3]
+    sql = ("SELECT p.rowid, p.title, p.runtime, p.overview, p.poster_path, p.genres "
+           "FROM peliculas_fts f JOIN peliculas p ON p.rowid = f.rowid WHERE peliculas_fts MATCH '%s'"
+           % match.replace("'", "''"))
+    for s in shorts:
+        sql += " AND f.title_norm LIKE '%%%s%%'" % s
+    sql += " ORDER BY (f.title_norm LIKE '%s%%') DESC, f.rank" % normalized[0]
+    return sql + " LIMIT %d" % limit
+
+
+def time_query(db, sql, runs):
+    samples = []
+    rows = []
+    for _ in range(runs):
+        start = time.perf_counter()
+        rows = db.execute(sql).fetchall()
+        samples.append((time.perf_counter() - start) * 1000)
+    return statistics.median(samples), rows
+
+
+def main():
+    parser = argparse.ArgumentParser()
+    parser.add_argument("--rows", type=int, default=200000)
+    parser.add_argument("--runs", type=int, default=20)
+    parser.add_argument("--limit", type=int, default=15)
+    parser.add_argument("--seed", type=int, default=42)
+    args = parser.parse_args()
+
+    with tempfile.TemporaryDirectory() as tmp:
+        db = build_catalog(os.path.join(tmp, "catalog.db"), args.rows, args.seed)
+        start = time.perf_counter()
+        with open(MIGRATION, encoding="utf-8") as f:
+            db.executescript(f.read())
+        print("catalog: %d rows, migration applied in %.0f ms" % (args.rows, (time.perf_counter() - start) * 1000))
+        print("%-20s %10s %10s %8s %8s" % ("query", "scan ms", "fts ms", "speedup", "rows"))
+        for query in QUERIES:
+            terms = query.split()
+            scan_ms, scan_rows = time_query(db, scan_sql(terms, args.limit), args.runs)
+            fts_ms, fts_rows = time_query(db, fts_sql(terms, args.limit), args.runs)
+            print("%-20s %10.2f %10.2f %7.1fx %4d/%-4d" % (query, scan_ms, fts_ms, scan_ms / max(fts_ms, 1e-6),
+                                                         len(scan_rows), len(fts_rows)))
+
+
+if __name__ == "__main__":
+    main()
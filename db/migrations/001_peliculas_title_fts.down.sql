@@ -0,0 +1,8 @@
+-- Deshace 001_peliculas_title_fts.sql. La app vuelve sola a la búsqueda con LIKE
+-- cuando peliculas_fts no existe (TursoClient.SearchMode.SCAN).
+DROP TRIGGER IF EXISTS peliculas_fts_au;
+DROP TRIGGER IF EXISTS peliculas_fts_ad;
+DROP TRIGGER IF EXISTS peliculas_fts_ai;
+DROP TABLE IF EXISTS peliculas_fts;
+ALTER TABLE peliculas DROP COLUMN title_norm;
+ALTER TABLE peliculas DROP COLUMN title_fold;
@@ -0,0 +1,49 @@
+-- 001: búsqueda por título con FTS5 (tokenizer trigram) en lugar de
+-- LOWER(REPLACE(REPLACE(title, '-', ''), ' ', '')) LIKE '%term%', que obliga a recorrer toda la tabla.
+--
+-- title_norm es el título en minúsculas, sin tildes y sin espacios, guiones ni ':'. Tiene que
+-- coincidir con TitleNormalizer.normalize() en la app, que aplica lo mismo a los términos buscados.
+-- Se calcula en dos columnas generadas porque SQLite no acepta más de ~28 REPLACE anidados
+-- en una sola expresión (parser stack overflow).
+-- Las columnas generadas son VIRTUAL (ALTER TABLE no admite STORED), así que peliculas_fts guarda
+-- su propia copia de title_norm: ordenar o filtrar por f.title_norm no recalcula los REPLACE.
+-- Los triggers la mantienen al día. El trigram permite buscar subcadenas de 3 o más caracteres.
+--
+-- Aplicar:   turso db shell <base> < db/migrations/001_peliculas_title_fts.sql
+-- Deshacer:  db/migrations/001_peliculas_title_fts.down.sql
+
+-- Espacios y tildes en minúscula
+ALTER TABLE peliculas ADD COLUMN title_fold TEXT GENERATED ALWAYS AS (
+    REPLACE(REPLACE(REPLACE(REPLACE(REPLACE(REPLACE(REPLACE(REPLACE(REPLACE(REPLACE(REPLACE(REPLACE(REPLACE(REPLACE(REPLACE(REPLACE(REPLACE(REPLACE(REPLACE(REPLACE(REPLACE(REPLACE(REPLACE(REPLACE(REPLACE(REPLACE(REPLACE(REPLACE(title
+        , ' ', ''), 'á', 'a'), 'à', 'a'), 'ä', 'a'), 'â', 'a'), 'ã', 'a'), 'å', 'a')
+        , 'é', 'e'), 'è', 'e'), 'ë', 'e'), 'ê', 'e'), 'í', 'i'), 'ì', 'i'), 'ï', 'i')
+        , 'î', 'i'), 'ó', 'o'), 'ò', 'o'), 'ö', 'o'), 'ô', 'o'), 'õ', 'o'), 'ú', 'u')
+        , 'ù', 'u'), 'ü', 'u'), 'û', 'u'), 'ñ', 'n'), 'ç', 'c'), 'ý', 'y'), 'ÿ', 'y')
+) VIRTUAL;
+
+-- Guiones, ':' y tildes en mayúscula, y después LOWER() para el resto (ASCII)
+ALTER TABLE peliculas ADD COLUMN title_norm TEXT GENERATED ALWAYS AS (
+    LOWER(
+        REPLACE(REPLACE(REPLACE(REPLACE(REPLACE(REPLACE(REPLACE(REPLACE(REPLACE(REPLACE(REPLACE(REPLACE(REPLACE(REPLACE(REPLACE(REPLACE(REPLACE(REPLACE(REPLACE(REPLACE(REPLACE(REPLACE(REPLACE(REPLACE(REPLACE(REPLACE(REPLACE(REPLACE(title_fold
+            , '-', ''), ':', ''), 'Á', 'a'), 'À', 'a'), 'Ä', 'a'), 'Â', 'a'), 'Ã', 'a')
+            , 'Å', 'a'), 'É', 'e'), 'È', 'e'), 'Ë', 'e'), 'Ê', 'e'), 'Í', 'i'), 'Ì', 'i')
+            , 'Ï', 'i'), 'Î', 'i'), 'Ó', 'o'), 'Ò', 'o'), 'Ö', 'o'), 'Ô', 'o'), 'Õ', 'o')
+            , 'Ú', 'u'), 'Ù', 'u'), 'Ü', 'u'), 'Û', 'u'), 'Ñ', 'n'), 'Ç', 'c'), 'Ý', 'y')
+    )
+) VIRTUAL;
+
+CREATE VIRTUAL TABLE peliculas_fts USING fts5(title_norm, tokenize = 'trigram');
+
+INSERT INTO peliculas_fts(rowid, title_norm) SELECT rowid, title_norm FROM peliculas;
+
+CREATE TRIGGER peliculas_fts_ai AFTER INSERT ON peliculas BEGIN
+    INSERT INTO peliculas_fts(rowid, title_norm) VALUES (new.rowid, new.title_norm);
+END;
+
+CREATE TRIGGER peliculas_fts_ad AFTER DELETE ON peliculas BEGIN
+    DELETE FROM peliculas_fts WHERE rowid = old.rowid;
+END;
+
+CREATE TRIGGER peliculas_fts_au AFTER UPDATE OF title ON peliculas BEGIN
+    UPDATE peliculas_fts SET title_norm = new.title_norm WHERE rowid = new.rowid;
+END;
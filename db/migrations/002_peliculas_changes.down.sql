@@ -0,0 +1,6 @@
+-- Deshace 002_peliculas_changes.sql. Sin peliculas_changes la app no activa la réplica local y
+-- todas las lecturas van a Turso como antes.
+DROP TRIGGER IF EXISTS peliculas_changes_ad;
+DROP TRIGGER IF EXISTS peliculas_changes_au;
+DROP TRIGGER IF EXISTS peliculas_changes_ai;
+DROP TABLE IF EXISTS peliculas_changes;
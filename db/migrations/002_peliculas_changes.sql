@@ -0,0 +1,29 @@
+-- 002: registro de cambios de peliculas para la réplica local de la app (CatalogReplica).
+--
+-- Cada INSERT, UPDATE o DELETE deja una fila en peliculas_changes con un seq creciente. La app
+-- copia la tabla una vez por rowid y desde entonces solo pide los cambios con seq mayor que el
+-- último que aplicó (ReplicaSync). Un watermark por rowid no ve ediciones ni borrados, y uno por
+-- fecha depende del reloj; seq no tiene ninguno de los dos problemas.
+-- Los cambios viejos se pueden purgar (DELETE ... WHERE seq < ?): una réplica que se haya quedado
+-- por detrás del seq más bajo que queda vuelve a copiar la tabla entera.
+--
+-- Aplicar:   turso db shell <base> < db/migrations/002_peliculas_changes.sql
+-- Deshacer:  db/migrations/002_peliculas_changes.down.sql
+
+CREATE TABLE peliculas_changes (
+    seq INTEGER PRIMARY KEY AUTOINCREMENT,
+    movie_rowid INTEGER NOT NULL,
+    deleted INTEGER NOT NULL DEFAULT 0
+);
+
+CREATE TRIGGER peliculas_changes_ai AFTER INSERT ON peliculas BEGIN
+    INSERT INTO peliculas_changes(movie_rowid) VALUES (new.rowid);
+END;
+
+CREATE TRIGGER peliculas_changes_au AFTER UPDATE ON peliculas BEGIN
+    INSERT INTO peliculas_changes(movie_rowid) VALUES (new.rowid);
+END;
+
+CREATE TRIGGER peliculas_changes_ad AFTER DELETE ON peliculas BEGIN
+    INSERT INTO peliculas_changes(movie_rowid, deleted) VALUES (old.rowid, 1);
+END;
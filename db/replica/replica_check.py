@@ -0,0 +1,174 @@
+#!/usr/bin/env python3
+"""Comprueba la sincronización de la réplica contra standin_server.py.
+
+Hace lo mismo que ReplicaSync con las mismas consultas (se leen de ReplicaSync.java y
+CatalogReplica.java): copia inicial por páginas con cambios entrando a mitad, deltas, una purga
+del registro de cambios que obliga a copiar otra vez... y tras cada paso compara la réplica con
+la tabla del servidor.
+
+    python3 db/replica/replica_check.py --rows 5000
+"""
+import argparse
+import json
+import os
+import re
+import sqlite3
+import tempfile
+import urllib.request
+
+import standin_server
+
+SRC = os.path.join(os.path.dirname(__file__), "..", "..", "app", "src", "main", "java", "com", "example", "prueba")
+PAGE_SIZE = 500
+COLUMNS = ["rowid", "title", "runtime", "overview", "overview_es", "poster_path", "genres"]
+
+
+def java_constant(source, name, constants):
+    # private static final String NAME = "..." + OTRA.CONSTANTE + "...";
+    expr = re.search(r"\b%s\s*=\s*(.*?);\s*\n" % name, source, re.S).group(1)
+    out = []
+    for literal, ref in re.findall(r'"((?:[^"\\]|\\.)*)"|([A-Za-z_.]+[A-Z_])', expr):
+        out.append(literal if not ref else constants[ref])
+    return "".join(out)
+
+
+def load_sql():
+    with open(os.path.join(SRC, "CatalogReplica.java"), encoding="utf-8") as f:
+        constants = {"CatalogReplica.REMOTE_COLUMNS": java_constant(f.read(), "REMOTE_COLUMNS", {})}
+    with open(os.path.join(SRC, "ReplicaSync.java"), encoding="utf-8") as f:
+        source = f.read()
+    return {name: java_constant(source, name, constants) for name in ("MAX_SEQ_SQL", "SNAPSHOT_SQL", "CHANGES_SQL")}
+
+
+class Client:
+    def __init__(self, url):
+        self.url = url
+
+    def rows(self, sql, *args):
+        stmt = {"sql": sql, "args": [standin_server.to_cell(a) for a in args]}
+        body = json.dumps({"requests": [{"type": "execute", "stmt": stmt}, {"type": "close"}]}).encode("utf-8")
+        request = urllib.request.Request(self.url + "/v2/pipeline", body, {"Content-Type": "application/json"})
+        with urllib.request.urlopen(request) as response:
+            result = json.loads(response.read())["results"][0]
+        if result["type"] != "ok":
+            raise RuntimeError(result["error"]["message"])
+        result = result["response"]["result"]
+        names = [c["name"] for c in result["cols"]]
+        return [dict(zip(names, (c.get("value") for c in row))) for row in result["rows"]]
+
+
+class Replica:
+    """La parte de CatalogReplica que importa aquí: filas por rowid y los watermarks."""
+
+    def __init__(self):
+        self.movies = {}
+        self.bootstrap_after = 0
+        self.change_seq = 0
+        self.complete = False
+        self.bootstraps = 0
+
+    def sync(self, client, sql, between_pages=None):
+        if not self.complete:
+            if self.bootstrap_after == 0:
+                self.begin(client, sql)
+            while not self.complete:
+                page = client.rows(sql["SNAPSHOT_SQL"], self.bootstrap_after, PAGE_SIZE)
+                for row in page:
+                    self.movies[int(row["rowid"])] = tuple(row[c] for c in COLUMNS[1:])
+                if page:
+                    self.bootstrap_after = int(page[-1]["rowid"])
+                self.complete = len(page) < PAGE_SIZE
+                if between_pages:
+                    between_pages()
+        while True:
+            changes = client.rows(sql["CHANGES_SQL"], self.change_seq, PAGE_SIZE)
+            if changes and int(changes[0]["min_seq"]) > self.change_seq + 1:
+                # Como ReplicaSync.startBootstrap: otra copia desde el rowid 0
+                self.complete = False
+                self.bootstrap_after = 0
+                return self.sync(client, sql)
+            for row in changes:
+                rowid = int(row["rowid"])
+                if row["deleted"] == "1" or row["title"] is None:
+                    self.movies.pop(rowid, None)
+                else:
+                    self.movies[rowid] = tuple(row[c] for c in COLUMNS[1:])
+                self.change_seq = int(row["seq"])
+            if len(changes) < PAGE_SIZE:
+                return
+
+    def begin(self, client, sql):
+        self.movies.clear()
+        self.change_seq = int(client.rows(sql["MAX_SEQ_SQL"])[0]["seq"])
+        self.bootstrap_after = 0
+        self.complete = False
+        self.bootstraps += 1
+
+
+def server_rows(path):
+    db = sqlite3.connect(path)
+    rows = db.execute("SELECT %s FROM peliculas" % ", ".join(COLUMNS)).fetchall()
+    db.close()
+    # Mismo formato que llega por Hrana: los enteros como texto
+    return {r[0]: tuple(None if v is None else str(v) for v in r[1:]) for r in rows}
+
+
+def check(step, replica, path):
+    expected = server_rows(path)
+    wrong = sum(1 for k in expected.keys() | replica.movies.keys() if expected.get(k) != replica.movies.get(k))
+    print("%-28s server %6d  replica %6d  seq %6d  copies %d  %s"
+          % (step, len(expected), len(replica.movies), replica.change_seq, replica.bootstraps,
+             "OK" if wrong == 0 else "%d rows differ" % wrong))
+    return wrong == 0
+
+
+def main():
+    parser = argparse.ArgumentParser()
+    parser.add_argument("--rows", type=int, default=5000)
+    parser.add_argument("--changes", type=int, default=300, help="cambios por tanda")
+    parser.add_argument("--seed", type=int, default=42)
+    args = parser.parse_args()
+
+    sql = load_sql()
+    with tempfile.TemporaryDirectory() as tmp:
+        path = os.path.join(tmp, "catalog.db")
+        standin_server.build_catalog(path, args.rows, args.seed)
+        server = standin_server.serve(path, 0)
+        client = Client("http://127.0.0.1:%d" % server.server_address[1])
+        churn = standin_server.Churn(path, args.changes, args.seed)
+        db = sqlite3.connect(path)
+        replica = Replica()
+        ok = True
+
+        # Copia inicial con cambios entre página y página
+        replica.sync(client, sql, between_pages=lambda: churn.step(db))
+        ok &= check("bootstrap + live changes", replica, path)
+
+        for i in range(3):
+            churn.step(db)
+            replica.sync(client, sql)
+            ok &= check("delta %d" % (i + 1), replica, path)
+
+        # Más de una página de cambios seguidos
+        churn.per_second = PAGE_SIZE * 3
+        churn.step(db)
+        replica.sync(client, sql)
+        ok &= check("delta > %d changes" % PAGE_SIZE, replica, path)
+
+        # El servidor purga cambios que la réplica aún no ha visto: tiene que copiar de nuevo
+        churn.per_second = args.changes
+        churn.step(db)
+        db.execute("DELETE FROM peliculas_changes WHERE seq <= (SELECT MAX(seq) - 10 FROM peliculas_changes)")
+        db.commit()
+        before = replica.bootstraps
+        replica.sync(client, sql)
+        ok &= check("purged change log", replica, path) and replica.bootstraps == before + 1
+
+        server.shutdown()
+        db.close()
+    print("OK" if ok else "FAILED")
+    raise SystemExit(0 if ok else 1)
+
+
+if __name__ == "__main__":
+    main()
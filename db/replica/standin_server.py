@@ -0,0 +1,243 @@
+#!/usr/bin/env python3
+"""Sustituto local de Turso para probar la réplica del catálogo (CatalogReplica / ReplicaSync).
+
+Sirve GET /v2 y POST /v2/pipeline con el protocolo Hrana que usa TursoClient (execute con sql o
+sql_id, store_sql, close_sql, close y baton) sobre un SQLite local. Crea una tabla peliculas con
+el mismo esquema que la de Turso, le aplica db/migrations/002_peliculas_changes.sql (y la 001 si
+el sqlite3 tiene FTS5 con trigram) y con --churn va insertando, editando y borrando filas para
+que la app tenga deltas que bajar.
+
+    python3 db/replica/standin_server.py --rows 20000 --churn 5
+
+Para usarlo desde el emulador, en local.properties:
+
+    TURSO_URL=http://10.0.2.2:8080
+    TURSO_TOKEN=local
+
+Las builds debug permiten tráfico sin TLS a 10.0.2.2 (app/src/debug/res/xml/network_security_config.xml).
+"""
+import argparse
+import base64
+import json
+import os
+import random
+import sqlite3
+import threading
+import time
+import uuid
+from http.server import BaseHTTPRequestHandler, ThreadingHTTPServer
+
+MIGRATIONS = os.path.join(os.path.dirname(__file__), "..", "migrations")
+GENRES = ["Action", "Drama", "Comedy", "Romance", "Documentary", "Adventure", "Horror", "Thriller"]
+WORDS = ["star", "wars", "love", "night", "dark", "knight", "return", "city", "lost", "house",
+         "dream", "space", "river", "king", "queen", "ghost", "summer", "winter", "secret", "blood",
+         "niño", "corazón", "película", "amélie", "mañana", "ciudad", "mar", "sol", "luna"]
+
+
+def random_movie(rnd, i):
+    title = " ".join(rnd.choice(WORDS) for _ in range(rnd.randint(1, 4))).title()
+    genres = ", ".join(rnd.sample(GENRES, rnd.randint(1, 3)))
+    return (i, title, rnd.randint(70, 190), "Overview %d" % i, "Sinopsis %d" % i, "/p%d.jpg" % i, genres)
+
+
+def build_catalog(path, rows, seed):
+    rnd = random.Random(seed)
+    db = sqlite3.connect(path)
+    db.execute("CREATE TABLE peliculas (id INTEGER, title TEXT, runtime INTEGER, overview TEXT, "
+               "overview_es TEXT, poster_path TEXT, genres TEXT)")
+    db.executemany("INSERT INTO peliculas VALUES (?, ?, ?, ?, ?, ?, ?)", (random_movie(rnd, i) for i in range(rows)))
+    db.commit()
+    try:
+        apply_migration(db, "001_peliculas_title_fts.sql")
+    except sqlite3.Error as e:
+        # Sin trigram la búsqueda FTS de la app falla, pero la réplica no la necesita
+        print("001 not applied (%s), FTS search unavailable" % e)
+    # Después de copiar las filas: la copia inicial no debe llenar peliculas_changes
+    apply_migration(db, "002_peliculas_changes.sql")
+    db.close()
+
+
+def apply_migration(db, name):
+    with open(os.path.join(MIGRATIONS, name), encoding="utf-8") as f:
+        db.executescript(f.read())
+
+
+class Churn(threading.Thread):
+    """Cada segundo inserta, edita y borra unas cuantas películas."""
+
+    def __init__(self, path, per_second, seed):
+        super().__init__(daemon=True)
+        self.path = path
+        self.per_second = per_second
+        self.rnd = random.Random(seed + 1)
+
+    def step(self, db):
+        max_rowid = db.execute("SELECT COALESCE(MAX(rowid), 0) FROM peliculas").fetchone()[0]
+        for _ in range(self.per_second):
+            op = self.rnd.random()
+            if op < 0.4:
+                db.execute("INSERT INTO peliculas VALUES (?, ?, ?, ?, ?, ?, ?)", random_movie(self.rnd, max_rowid + 1))
+                max_rowid += 1
+            elif op < 0.8:
+                db.execute("UPDATE peliculas SET title = title || ' II', runtime = runtime + 1 WHERE rowid = ?",
+                           (self.rnd.randint(1, max_rowid),))
+            else:
+                db.execute("DELETE FROM peliculas WHERE rowid = ?", (self.rnd.randint(1, max_rowid),))
+        db.commit()
+
+    def run(self):
+        db = sqlite3.connect(self.path)
+        while True:
+            time.sleep(1)
+            self.step(db)
+
+
+def to_value(arg):
+    kind = arg.get("type")
+    if kind == "null":
+        return None
+    if kind == "integer":
+        return int(arg["value"])
+    if kind == "float":
+        return float(arg["value"])
+    if kind == "blob":
+        return base64.b64decode(arg["base64"])
+    return arg["value"]
+
+
+def to_cell(value):
+    if value is None:
+        return {"type": "null"}
+    if isinstance(value, int):
+        return {"type": "integer", "value": str(value)}
+    if isinstance(value, float):
+        return {"type": "float", "value": value}
+    if isinstance(value, bytes):
+        return {"type": "blob", "base64": base64.b64encode(value).decode("ascii")}
+    return {"type": "text", "value": value}
+
+
+class Streams:
+    """Un stream Hrana por baton: conexión propia y textos guardados con store_sql."""
+
+    def __init__(self, path):
+        self.path = path
+        self.lock = threading.Lock()
+        self.by_baton = {}
+
+    def take(self, baton):
+        with self.lock:
+            if baton is None:
+                return {"db": sqlite3.connect(self.path, check_same_thread=False), "sql": {}}
+            return self.by_baton.pop(baton, None)
+
+    def give_back(self, stream):
+        baton = uuid.uuid4().hex
+        with self.lock:
+            self.by_baton[baton] = stream
+        return baton
+
+
+def execute(stream, stmt):
+    sql = stmt["sql"] if "sql" in stmt else stream["sql"][stmt["sql_id"]]
+    args = [to_value(a) for a in stmt.get("args", [])]
+    db = stream["db"]
+    cursor = db.execute(sql, args)
+    rows = cursor.fetchall()
+    db.commit()
+    cols = [{"name": d[0], "decltype": None} for d in (cursor.description or [])]
+    return {"cols": cols, "rows": [[to_cell(v) for v in row] for row in rows],
+            "affected_row_count": max(cursor.rowcount, 0), "last_insert_rowid": str(cursor.lastrowid)}
+
+
+def run_pipeline(streams, body):
+    stream = streams.take(body.get("baton"))
+    if stream is None:
+        return 400, {"message": "Unknown baton"}
+    results = []
+    closed = False
+    for request in body.get("requests", []):
+        kind = request.get("type")
+        try:
+            if kind == "execute":
+                response = {"type": "execute", "result": execute(stream, request["stmt"])}
+            elif kind == "store_sql":
+                stream["sql"][request["sql_id"]] = request["sql"]
+                response = {"type": "store_sql"}
+            elif kind == "close_sql":
+                stream["sql"].pop(request["sql_id"], None)
+                response = {"type": "close_sql"}
+            elif kind == "close":
+                closed = True
+                response = {"type": "close"}
+            else:
+                raise ValueError("Unsupported request type: %s" % kind)
+            results.append({"type": "ok", "response": response})
+        except Exception as e:
+            results.append({"type": "error", "error": {"message": str(e)}})
+    if closed:
+        stream["db"].close()
+        baton = None
+    else:
+        baton = streams.give_back(stream)
+    return 200, {"baton": baton, "base_url": None, "results": results}
+
+
+def make_handler(streams, verbose):
+    class Handler(BaseHTTPRequestHandler):
+        def do_GET(self):
+            self.reply(200, {} if self.path == "/v2" else {"message": "Not found"})
+
+        def do_POST(self):
+            if self.path != "/v2/pipeline":
+                self.reply(404, {"message": "Not found"})
+                return
+            body = json.loads(self.rfile.read(int(self.headers.get("Content-Length", 0))))
+            self.reply(*run_pipeline(streams, body))
+
+        def reply(self, status, payload):
+            data = json.dumps(payload).encode("utf-8")
+            self.send_response(status)
+            self.send_header("Content-Type", "application/json")
+            self.send_header("Content-Length", str(len(data)))
+            self.end_headers()
+            self.wfile.write(data)
+
+        def log_message(self, fmt, *args):
+            if verbose:
+                super().log_message(fmt, *args)
+
+    return Handler
+
+
+def serve(path, port, verbose=False):
+    server = ThreadingHTTPServer(("0.0.0.0", port), make_handler(Streams(path), verbose))
+    threading.Thread(target=server.serve_forever, daemon=True).start()
+    return server
+
+
+def main():
+    parser = argparse.ArgumentParser()
+    parser.add_argument("--db", default="standin_catalog.db")
+    parser.add_argument("--rows", type=int, default=20000)
+    parser.add_argument("--port", type=int, default=8080)
+    parser.add_argument("--churn", type=int, default=0, help="cambios por segundo (0 = catálogo fijo)")
+    parser.add_argument("--seed", type=int, default=42)
+    parser.add_argument("--verbose", action="store_true")
+    args = parser.parse_args()
+
+    if not os.path.exists(args.db):
+        build_catalog(args.db, args.rows, args.seed)
+    if args.churn:
+        Churn(args.db, args.churn, args.seed).start()
+    serve(args.db, args.port, args.verbose)
+    print("serving %s on :%d (churn %d/s)" % (args.db, args.port, args.churn))
+    try:
+        while True:
+            time.sleep(3600)
+    except KeyboardInterrupt:
+        pass
+
+
+if __name__ == "__main__":
+    main()